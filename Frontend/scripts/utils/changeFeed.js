@@ -0,0 +1,52 @@
+/**
+ * Change Feed - subscribes to server-sent route and stop changes
+ * Emits 'data:route-changed', 'data:stops-changed' and 'data:reset' through the event manager,
+ * so views re-fetch only what changed instead of polling.
+ */
+
+import { eventManager } from './eventManager.js';
+
+const FEED_URL = 'http://localhost:8080/api/v1/changes';
+
+class ChangeFeed {
+    constructor() {
+        this.source = null;
+    }
+
+    connect() {
+        if (this.source || typeof EventSource === 'undefined') return;
+
+        // The browser reconnects on its own and sends Last-Event-ID, so missed changes are replayed
+        this.source = new EventSource(FEED_URL);
+
+        this.source.addEventListener('change', (event) => {
+            const change = JSON.parse(event.data);
+            if (change.entity === 'route') {
+                eventManager.emit('data:route-changed', change);
+            } else if (change.entity === 'stops') {
+                eventManager.emit('data:stops-changed', change);
+            }
+        });
+
+        // Sent when this client fell too far behind or reconnected to another instance or a restarted one,
+        // everything has to be re-fetched
+        this.source.addEventListener('reset', () => {
+            eventManager.emit('data:reset', {});
+        });
+
+        this.source.onerror = () => {
+            console.warn('Change feed connection lost, reconnecting...');
+        };
+    }
+
+    disconnect() {
+        if (this.source) {
+            this.source.close();
+            this.source = null;
+        }
+    }
+}
+
+const changeFeed = new ChangeFeed();
+
+export { ChangeFeed, changeFeed };
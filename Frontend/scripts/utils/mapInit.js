@@ -2,6 +2,7 @@ import { getAllBusRoute, onMapStateChange } from "mapUtils";
 import { eventManager } from "./eventManager.js";
 import { router } from "../router.js";
 import { LeafletEnhancements } from "./leafletEnhancements.js";
+import { changeFeed } from "./changeFeed.js";
 
 // MAP OBJECT - Initialize map with enhanced settings
 var map = L.map('map', {
@@ -35,6 +36,9 @@ var routeLayer = L.layerGroup().addTo(map);
 // Initialize enhanced Leaflet features
 var leafletEnhancements;
 
+// Route currently drawn on the map, reloaded when the change feed reports it
+var displayedRouteId = null;
+
 // Initialize map with bus stop data and enhancements
 async function initializeMap() {
     try {
@@ -57,6 +61,12 @@ async function initializeMap() {
         eventManager.listen('route:creation-started', handleRouteCreationStart);
         eventManager.listen('route:show-on-map', handleShowRoute);
         
+        // Re-fetch only what the server reports as changed
+        eventManager.listen('data:stops-changed', reloadStops);
+        eventManager.listen('data:reset', reloadStops);
+        eventManager.listen('data:route-changed', handleRouteDataChange);
+        changeFeed.connect();
+        
         // Add scale control
         L.control.scale({ position: 'bottomleft' }).addTo(map);
         
@@ -133,7 +143,29 @@ function prepareMapForRouteCreation() {
     }
 }
 
+async function reloadStops() {
+    const busStopData = await getAllBusRoute();
+    if (leafletEnhancements && busStopData && busStopData.length > 0) {
+        if (leafletEnhancements.clusterGroup) {
+            leafletEnhancements.clusterGroup.clearLayers();
+        }
+        leafletEnhancements.addStopMarkers(busStopData);
+    }
+}
+
+function handleRouteDataChange(event) {
+    const change = event.detail;
+    if (change.id !== displayedRouteId) return;
+
+    if (change.type === 'DELETED') {
+        resetMapView();
+    } else {
+        loadAndShowRoute(change.id);
+    }
+}
+
 async function loadAndShowRoute(routeId) {
+    displayedRouteId = routeId;
     try {
         const response = await fetch(`http://localhost:8080/api/v1/routes/${routeId}`);
         const result = await response.json();
@@ -206,6 +238,8 @@ function handleShowRoute(event) {
 }
 
 function resetMapView() {
+    displayedRouteId = null;
+
     // Clear route-specific layers
     addRoutedLayer.clearLayers();
     routeLayer.clearLayers();
@@ -1,32 +1,16 @@
 import {map, visibleMarker} from "map";
 
 
-//GET the go route of bus
-async function getGoBusRoute(routeId) {
+//GET both directions of a bus line (metadata and stops) in one request
+async function getBusLine(busNumber) {
     try {
-        let url = `http://localhost:8080/api/busRoute?routeId=${routeId}_1`
+        let url = `http://localhost:8080/api/v1/lines/${encodeURIComponent(busNumber)}`
         let response = await fetch(url, {
             method: "GET"
         });
-        let data = await response.json();
-        return data;
-    }
-    catch(error) {
-    console.log(error);
+        let result = await response.json();
+        return result.success ? result.data : null;
     }
-}
-
-//GET the return route of bus
-async function getReturnBusRoute(routeId) {
-    try {
-        let url = `http://localhost:8080/api/busRoute?routeId=${routeId}_2`
-        let response = await fetch(url, {
-            method: "GET"
-        });
-        let data = await response.json();
-        return data;
-    }
-
     catch(error) {
     console.log(error);
     }
@@ -87,6 +71,6 @@ function onMapStateChange(data) {
 
 }
 
-export {getGoBusRoute, getReturnBusRoute, initMarker, getAllBusRoute, onMapStateChange, initMarkerBasedOnLayer};
+export {getBusLine, initMarker, getAllBusRoute, onMapStateChange, initMarkerBasedOnLayer};
 
 
@@ -0,0 +1,37 @@
+package org.example.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.RequiredArgsConstructor;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary response encodings selected through the Accept header:
+ * application/cbor, application/msgpack and application/x-protobuf (see src/main/proto/busroute.proto).
+ *
+ * The converters are appended after the JSON converter, so clients accepting any media type keep getting
+ * JSON. CBOR and MessagePack use Boot's Jackson settings, including the field-selection filter.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryEncodingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilder.getObject().factory(new CBORFactory()).build()));
+        converters.add(new MessagePackHttpMessageConverter(
+                objectMapperBuilder.getObject().factory(new MessagePackFactory()).build()));
+        converters.add(new ProtobufMessageConverter());
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.exception.ErrorResponse;
+import org.example.service.NetworkSnapshotService;
+import org.example.service.StartupDataLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Answers data endpoints (/api/**) with 503 and Retry-After until the startup data load is done, instead
+ * of serving empty or partial results. Actuator endpoints and the frontend are not affected.
+ *
+ * Reads answered from the network snapshot (stop lookups, bounds, search and route geometry) pass as soon
+ * as a snapshot is loaded, which with a current snapshot file is right after the port opens.
+ */
+@Component
+public class DataReadinessFilter extends OncePerRequestFilter {
+
+    private static final Pattern SNAPSHOT_READS =
+            Pattern.compile("/api/v1/stops/(\\d+|bounds|search)|/api/v1/routes/(?!search$|stats$|scroll$)[^/]+");
+
+    private final StartupDataLoader startupDataLoader;
+    private final NetworkSnapshotService networkSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+
+    public DataReadinessFilter(StartupDataLoader startupDataLoader,
+                               NetworkSnapshotService networkSnapshotService,
+                               ObjectMapper objectMapper,
+                               @Value("${busroute.startup.gate-api:true}") boolean enabled,
+                               @Value("${busroute.startup.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.startupDataLoader = startupDataLoader;
+        this.networkSnapshotService = networkSnapshotService;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || startupDataLoader.isReady() || !request.getRequestURI().startsWith("/api/")
+                || servedBySnapshot(request);
+    }
+
+    private boolean servedBySnapshot(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && networkSnapshotService.isLoaded()
+                && SNAPSHOT_READS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .error("Service Unavailable")
+                .message("Data is still loading, retry later")
+                .path(request.getRequestURI())
+                .details(Map.of("startup", startupDataLoader.getProgress()))
+                .build();
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.config;
+
+import lombok.RequiredArgsConstructor;
+import org.example.dtos.StartupProgress;
+import org.example.service.StartupDataLoader;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readiness contributor ("dataReadiness"): OUT_OF_SERVICE while the startup data load runs, UP once it
+ * finished, DOWN when it gave up. It is part of the readiness group only, so liveness stays UP meanwhile.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataReadinessHealthIndicator implements HealthIndicator {
+
+    private final StartupDataLoader startupDataLoader;
+
+    @Override
+    public Health health() {
+        StartupProgress progress = startupDataLoader.getProgress();
+        Health.Builder builder = switch (startupDataLoader.getStage()) {
+            case READY -> Health.up();
+            case FAILED -> Health.down();
+            default -> Health.outOfService();
+        };
+        builder.withDetail("stage", progress.getStage())
+                .withDetail("stopsImported", progress.getStopsImported())
+                .withDetail("stopsTotal", progress.getStopsTotal())
+                .withDetail("attempt", progress.getAttempt());
+        if (progress.getElapsedMillis() != null) {
+            builder.withDetail("elapsedMillis", progress.getElapsedMillis());
+        }
+        if (progress.getLastError() != null) {
+            builder.withDetail("lastError", progress.getLastError());
+        }
+        return builder.build();
+    }
+}
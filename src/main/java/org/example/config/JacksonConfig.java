@@ -0,0 +1,23 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.example.util.FieldSelection;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the field-selection filter with a pass-through default, so DTOs annotated with
+ * @JsonFilter(FieldSelection.FILTER) serialize in full wherever no selection was requested
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionFilter() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .setFailOnUnknownId(false)
+                .addFilter(FieldSelection.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
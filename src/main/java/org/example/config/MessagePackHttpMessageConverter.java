@@ -0,0 +1,22 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.util.Assert;
+
+/**
+ * Jackson converter for MessagePack (application/msgpack, application/x-msgpack); same property names and
+ * structure as the JSON responses, including ?fields= selections
+ */
+public class MessagePackHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType APPLICATION_MSGPACK = new MediaType("application", "msgpack");
+    public static final MediaType APPLICATION_X_MSGPACK = new MediaType("application", "x-msgpack");
+
+    public MessagePackHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, APPLICATION_MSGPACK, APPLICATION_X_MSGPACK);
+        Assert.isInstanceOf(MessagePackFactory.class, objectMapper.getFactory(), "MessagePackFactory required");
+    }
+}
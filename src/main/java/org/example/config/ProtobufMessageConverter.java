@@ -0,0 +1,87 @@
+package org.example.config;
+
+import org.example.util.FieldSelection;
+import org.example.util.ProtobufEncoder;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the bulk stop and route responses as Protobuf (application/x-protobuf) using ProtobufEncoder.
+ *
+ * Only the body types of busroute.proto are writable, so other endpoints answer 406 for this media type
+ * unless JSON is acceptable too. Write-only: request bodies stay JSON.
+ */
+public class ProtobufMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public ProtobufMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProtobufEncoder.supports(ResolvableType.forClass(clazz));
+    }
+
+    // the class alone does not tell which ApiResponse bodies are writable, canWrite(Type, ...) decides
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        ResolvableType declared = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        return canWrite(mediaType) && (ProtobufEncoder.supports(declared) || supports(clazz));
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Set<String> selection = null;
+        ResolvableType declared = type != null ? ResolvableType.forType(type) : ResolvableType.NONE;
+        if (body instanceof MappingJacksonValue value) {
+            selection = FieldSelection.selectionOf(value);
+            body = value.getValue();
+            declared = ResolvableType.NONE;
+        }
+        try {
+            outputMessage.getHeaders().set("X-Protobuf-Schema", ProtobufEncoder.SCHEMA);
+            outputMessage.getHeaders().set("X-Protobuf-Message", ProtobufEncoder.messageName(body, declared));
+            ProtobufEncoder.write(body, declared, selection, outputMessage.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotWritableException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+    }
+}
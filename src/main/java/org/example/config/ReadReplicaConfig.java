@@ -0,0 +1,78 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.service.StartupDataLoader;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled by busroute.datasource.replicas (comma-separated JDBC URLs).
+ *
+ * The application DataSource is a LazyConnectionDataSourceProxy over the primary pool: it fetches the
+ * physical connection on first use, after the transaction manager has marked it read-only or not, and
+ * takes read-only ones from ReplicaDataSource. So every @Transactional(readOnly = true) method, and the
+ * read methods of the Spring Data repositories, read from a replica; all other work stays on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "busroute.datasource.replicas")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                               DataSourceProperties properties,
+                                               ObjectProvider<StartupDataLoader> startupDataLoader,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${busroute.datasource.replicas}") String urls,
+                                               @Value("${busroute.datasource.replica-username:${spring.datasource.username:}}") String username,
+                                               @Value("${busroute.datasource.replica-password:${spring.datasource.password:}}") String password,
+                                               @Value("${busroute.datasource.replica-pool-size:10}") int poolSize,
+                                               @Value("${busroute.datasource.replica-timeout-ms:2000}") long timeoutMs,
+                                               @Value("${busroute.datasource.read-your-writes:true}") boolean readYourWrites) {
+        List<ReplicaDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + (replicas.size() + 1));
+            pool.setJdbcUrl(url.trim());
+            pool.setDriverClassName(properties.determineDriverClassName());
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(poolSize);
+            // A replica that does not answer should cost a read little more than the fallback to the primary
+            pool.setConnectionTimeout(timeoutMs);
+            pool.setReadOnly(true);
+            replicas.add(new ReplicaDataSource.Replica(pool.getPoolName(), pool,
+                    (int) Math.max(1, timeoutMs / 1000), meterRegistry));
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, readYourWrites,
+                () -> startupDataLoader.getObject().isReady(), meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
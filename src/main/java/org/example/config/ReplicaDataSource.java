@@ -0,0 +1,163 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.RouteChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Connections for read-only transactions: round-robin over the healthy replicas, the primary when none
+ * qualifies.
+ *
+ * A scheduled check runs one query per replica that also reads its change_log high-water mark; a replica
+ * that fails it, or hands out a connection that fails validation, is skipped until the next check
+ * succeeds. Connections are validated when they are taken because the pool skips its own check for
+ * connections used in the last half second, which would hand a busy replica's dead connections to reads
+ * until the next scheduled check. With
+ * read-your-writes every route change this instance commits or receives raises the required high-water
+ * mark to the primary's, and a replica serves reads again once it has replicated that far. A replica
+ * that has the change_log row of a write also has the write, as both commit in one transaction.
+ *
+ * Until the startup data load is done all reads go to the primary, so the indexes are built from it.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource {
+
+    private static final String HIGH_WATER_MARK = "SELECT COALESCE(MAX(id), 0) FROM change_log";
+
+    static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        final JdbcTemplate jdbc;
+        final Counter reads;
+        final int timeoutSeconds;
+        volatile boolean healthy;
+        volatile long highWaterMark = -1;
+
+        Replica(String name, HikariDataSource dataSource, int checkTimeoutSeconds, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.jdbc.setQueryTimeout(checkTimeoutSeconds);
+            this.timeoutSeconds = checkTimeoutSeconds;
+            this.reads = reads(meterRegistry, name);
+        }
+    }
+
+    private final DataSource primary;
+    private final JdbcTemplate primaryJdbc;
+    private final List<Replica> replicas;
+    private final boolean readYourWrites;
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong required = new AtomicLong();
+    private final BooleanSupplier dataReady;
+
+    ReplicaDataSource(DataSource primary, List<Replica> replicas, boolean readYourWrites, BooleanSupplier dataReady,
+                      MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.dataReady = dataReady;
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+        this.primaryReads = reads(meterRegistry, "primary");
+        replicas.forEach(replica -> meterRegistry.gauge("busroute.datasource.replica.healthy",
+                Tags.of("replica", replica.name), replica, r -> r.healthy ? 1 : 0));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (dataReady.getAsBoolean()) {
+            long minimum = required.get();
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (replica.healthy && replica.highWaterMark >= minimum) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        if (connection.isValid(replica.timeoutSeconds)) {
+                            replica.reads.increment();
+                            return connection;
+                        }
+                        replica.dataSource.evictConnection(connection);
+                        markDown(replica, "connection failed validation");
+                    } catch (SQLException e) {
+                        markDown(replica, e.getMessage());
+                    }
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Replicas only have the configured credentials
+        primaryReads.increment();
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${busroute.datasource.replica-check-ms:1000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                Long highWaterMark = replica.jdbc.queryForObject(HIGH_WATER_MARK, Long.class);
+                replica.highWaterMark = highWaterMark != null ? highWaterMark : 0;
+                if (!replica.healthy) {
+                    log.info("Read replica {} is up at change log id {}", replica.name, replica.highWaterMark);
+                    replica.healthy = true;
+                }
+            } catch (RuntimeException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (!readYourWrites) {
+            return;
+        }
+        Long highWaterMark = primaryJdbc.queryForObject(HIGH_WATER_MARK, Long.class);
+        if (highWaterMark != null) {
+            required.accumulateAndGet(highWaterMark, Math::max);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn("Read replica {} is down, reads go to the other replicas or the primary: {}", replica.name, reason);
+            replica.healthy = false;
+            // Not every driver reports a lost server with a state the pool recognises as fatal
+            replica.dataSource.getHikariPoolMXBean().softEvictConnections();
+        }
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("busroute.datasource.read_connections")
+                .description("Connections handed out for read-only transactions")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.config;
+
+import org.example.dtos.*;
+import org.example.model.*;
+import org.example.repository.FrequencyRepository;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.data.projection.TargetAware;
+
+/**
+ * Reflection, proxy and resource hints for the AOT-processed build (fast-start profile).
+ *
+ * Lombok only generates plain accessors, so the Jackson DTOs need binding hints for their fields and
+ * accessors, entities need their constructors and fields for Hibernate, and the interface projections of
+ * native queries are JDK proxies that must be declared up front.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.AppRuntimeHints.class)
+public class RuntimeHintsConfig {
+
+    static class AppRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final Class<?>[] ENTITIES = {
+                BusStop.class, Tag.class, Route.class, Trip.class, StopTime.class, Frequency.class,
+                ChangeLogEntry.class, RouteStop.class
+        };
+
+        private static final Class<?>[] JSON_TYPES = {
+                BusStop.class, Tag.class, ApiResponse.class, AddRouteRequest.class, BusRouteDto.class,
+                BusStopResponse.class, RouteResponse.class, StopSequence.class, ChangeFeedEvent.class,
+                CursorPage.class, ArrivalPrediction.class, IngestResult.class, IsochroneResponse.class,
+                Departure.class, DepartureBoard.class, FrequencyRequest.class, LineResponse.class,
+                LineDirection.class, LineStop.class, RouteWriteBatch.class, RouteWriteRequest.class,
+                OperationStatus.class, StopDedupReport.class, StopMergeCandidate.class, StopDuplicate.class,
+                ReachableStop.class, RouteOverlap.class, RouteOverlapResponse.class, NetworkOverlapReport.class,
+                SharedCorridor.class, SegmentLoad.class, StartupProgress.class, TravelMatrixEntry.class,
+                TravelMatrixStatus.class, VehiclePosition.class, VehiclePositionBatch.class, VehiclePositionUpdate.class
+        };
+
+        private static final Class<?>[] PROJECTIONS = {
+                RouteStopView.class, NetworkStopRow.class, TimetableRow.class, StopRoutePair.class, RouteStopCount.class,
+                LineStopRow.class, FrequencyRepository.FrequencyRow.class
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> entity : ENTITIES) {
+                hints.reflection().registerType(entity, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+            }
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+            for (Class<?> projection : PROJECTIONS) {
+                hints.reflection().registerType(projection, MemberCategory.INVOKE_PUBLIC_METHODS);
+                hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(projection, TargetAware.class));
+            }
+            hints.resources().registerPattern("stop.json");
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (change feed flushing, heartbeats)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
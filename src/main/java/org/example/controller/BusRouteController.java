@@ -7,14 +7,20 @@ import org.example.dtos.AddRouteRequest;
 import org.example.dtos.BusRouteDto;
 import org.example.dtos.RouteResponse;
 import org.example.dtos.ApiResponse;
+import org.example.dtos.CursorPage;
+import org.example.service.RequestCoalescer;
+import org.example.service.RouteGeometryService;
 import org.example.service.RouteService;
+import org.example.util.FieldSelection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * REST Controller for Bus Route management
@@ -28,6 +34,8 @@ import java.util.List;
 public class BusRouteController {
 
     private final RouteService routeService;
+    private final RouteGeometryService routeGeometryService;
+    private final RequestCoalescer requestCoalescer;
 
     /**
      * Create a new bus route
@@ -49,14 +57,18 @@ public class BusRouteController {
     }
 
     /**
-     * Get all routes with pagination
-     * GET /api/v1/routes
+     * Get all routes with pagination, optionally only some fields and without the response envelope
+     * GET /api/v1/routes?fields={routeId,busNumber,...}&envelope={true|false}
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<RouteResponse>>> getAllRoutes(Pageable pageable) {
+    public ResponseEntity<MappingJacksonValue> getAllRoutes(
+            Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
         log.info("Fetching all routes with pagination: {}", pageable);
         
-        Page<RouteResponse> routes = routeService.getAllRoutes(pageable);
+        Set<String> selection = FieldSelection.parse(RouteResponse.class, fields);
+        Page<RouteResponse> routes = routeService.getAllRoutes(pageable, selection);
         
         ApiResponse<Page<RouteResponse>> response = ApiResponse.<Page<RouteResponse>>builder()
                 .success(true)
@@ -64,18 +76,48 @@ public class BusRouteController {
                 .data(routes)
                 .build();
                 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : routes, selection));
     }
 
     /**
-     * Get route by ID with stops
-     * GET /api/v1/routes/{routeId}
+     * Get routes ordered by route id with a continuation cursor instead of page offsets
+     * GET /api/v1/routes/scroll?cursor={nextCursor}&size={size}&includeTotal={true|false}&fields={...}&envelope={true|false}
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<MappingJacksonValue> scrollRoutes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") Integer size,
+            @RequestParam(defaultValue = "false") Boolean includeTotal,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
+        log.info("Scrolling routes after cursor {} with size {}", cursor, size);
+
+        Set<String> selection = FieldSelection.parse(RouteResponse.class, fields);
+        CursorPage<RouteResponse> routes = routeService.scrollRoutes(cursor, size, includeTotal, selection);
+
+        ApiResponse<CursorPage<RouteResponse>> response = ApiResponse.<CursorPage<RouteResponse>>builder()
+                .success(true)
+                .message("Routes retrieved successfully")
+                .data(routes)
+                .build();
+
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : routes, selection));
+    }
+
+    /**
+     * Get route by ID with stops, optionally simplified for a zoom level or tolerance in metres
+     * GET /api/v1/routes/{routeId}?zoom={zoom}&tolerance={tolerance}
      */
     @GetMapping("/{routeId}")
-    public ResponseEntity<ApiResponse<List<BusRouteDto>>> getRouteById(@PathVariable String routeId) {
-        log.info("Fetching route details for ID: {}", routeId);
+    public ResponseEntity<ApiResponse<List<BusRouteDto>>> getRouteById(
+            @PathVariable String routeId,
+            @RequestParam(required = false) Integer zoom,
+            @RequestParam(required = false) Double tolerance) {
+        log.info("Fetching route details for ID: {}, zoom: {}, tolerance: {}", routeId, zoom, tolerance);
         
-        List<BusRouteDto> routeStops = routeService.getRouteWithStops(routeId);
+        List<BusRouteDto> routeStops = zoom == null && tolerance == null
+                ? routeGeometryService.getRoute(routeId)
+                : routeGeometryService.getSimplifiedRoute(routeId, zoom, tolerance);
         
         ApiResponse<List<BusRouteDto>> response = ApiResponse.<List<BusRouteDto>>builder()
                 .success(true)
@@ -154,7 +196,7 @@ public class BusRouteController {
     public ResponseEntity<ApiResponse<Object>> getRouteStatistics() {
         log.info("Fetching route statistics");
         
-        Object stats = routeService.getRouteStatistics();
+        Object stats = requestCoalescer.execute(RequestCoalescer.ROUTE_STATS, "", routeService::getRouteStatistics);
         
         ApiResponse<Object> response = ApiResponse.builder()
                 .success(true)
@@ -4,14 +4,22 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dtos.ApiResponse;
 import org.example.dtos.BusStopResponse;
+import org.example.dtos.CursorPage;
+import org.example.dtos.DepartureBoard;
+import org.example.dtos.StopDedupReport;
 import org.example.model.BusStop;
 import org.example.service.BusStopService;
+import org.example.service.StopDeduplicationService;
+import org.example.service.TimetableService;
+import org.example.util.FieldSelection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Enhanced Bus Stop Controller with proper REST endpoints
@@ -24,16 +32,22 @@ import java.util.List;
 public class BusStopController {
 
     private final BusStopService busStopService;
+    private final TimetableService timetableService;
+    private final StopDeduplicationService stopDeduplicationService;
 
     /**
-     * Get all bus stops with pagination
-     * GET /api/v1/stops
+     * Get all bus stops with pagination, optionally only some fields and without the response envelope
+     * GET /api/v1/stops?fields={id,latitude,longitude,...}&envelope={true|false}
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<BusStopResponse>>> getAllBusStops(Pageable pageable) {
+    public ResponseEntity<MappingJacksonValue> getAllBusStops(
+            Pageable pageable,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
         log.info("Fetching all bus stops with pagination: {}", pageable);
         
-        Page<BusStopResponse> stops = busStopService.getAllStops(pageable);
+        Set<String> selection = FieldSelection.parse(BusStopResponse.class, fields);
+        Page<BusStopResponse> stops = busStopService.getAllStops(pageable, selection);
         
         ApiResponse<Page<BusStopResponse>> response = ApiResponse.<Page<BusStopResponse>>builder()
                 .success(true)
@@ -41,18 +55,47 @@ public class BusStopController {
                 .data(stops)
                 .build();
                 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : stops, selection));
+    }
+
+    /**
+     * Get bus stops ordered by id with a continuation cursor instead of page offsets
+     * GET /api/v1/stops/scroll?cursor={nextCursor}&size={size}&includeTotal={true|false}&fields={...}&envelope={true|false}
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<MappingJacksonValue> scrollBusStops(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") Integer size,
+            @RequestParam(defaultValue = "false") Boolean includeTotal,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
+        log.info("Scrolling bus stops after cursor {} with size {}", cursor, size);
+
+        Set<String> selection = FieldSelection.parse(BusStopResponse.class, fields);
+        CursorPage<BusStopResponse> stops = busStopService.scrollStops(cursor, size, includeTotal, selection);
+
+        ApiResponse<CursorPage<BusStopResponse>> response = ApiResponse.<CursorPage<BusStopResponse>>builder()
+                .success(true)
+                .message("Bus stops retrieved successfully")
+                .data(stops)
+                .build();
+
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : stops, selection));
     }
 
     /**
      * Get bus stop by ID
-     * GET /api/v1/stops/{stopId}
+     * GET /api/v1/stops/{stopId}?fields={...}&envelope={true|false}
      */
     @GetMapping("/{stopId}")
-    public ResponseEntity<ApiResponse<BusStopResponse>> getBusStopById(@PathVariable Long stopId) {
+    public ResponseEntity<MappingJacksonValue> getBusStopById(
+            @PathVariable Long stopId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
         log.info("Fetching bus stop with ID: {}", stopId);
         
-        BusStopResponse stop = busStopService.getStopById(stopId);
+        Set<String> selection = FieldSelection.parse(BusStopResponse.class, fields);
+        BusStopResponse stop = busStopService.getStopById(stopId, selection);
         
         ApiResponse<BusStopResponse> response = ApiResponse.<BusStopResponse>builder()
                 .success(true)
@@ -60,7 +103,7 @@ public class BusStopController {
                 .data(stop)
                 .build();
                 
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : stop, selection));
     }
 
     /**
@@ -88,17 +131,21 @@ public class BusStopController {
 
     /**
      * Get bus stops within a bounding box (for map viewport)
-     * GET /api/v1/stops/bounds?minLat={minLat}&maxLat={maxLat}&minLon={minLon}&maxLon={maxLon}
+     * GET /api/v1/stops/bounds?minLat={minLat}&maxLat={maxLat}&minLon={minLon}&maxLon={maxLon}&fields={id,latitude,longitude}&envelope={true|false}
+     * With fields, only the matching columns are read from the database
      */
     @GetMapping("/bounds")
-    public ResponseEntity<ApiResponse<List<BusStopResponse>>> getStopsInBounds(
+    public ResponseEntity<MappingJacksonValue> getStopsInBounds(
             @RequestParam Double minLat,
             @RequestParam Double maxLat,
             @RequestParam Double minLon,
-            @RequestParam Double maxLon) {
+            @RequestParam Double maxLon,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "true") Boolean envelope) {
         log.info("Fetching stops in bounds: [{}, {}] to [{}, {}]", minLat, minLon, maxLat, maxLon);
         
-        List<BusStopResponse> stops = busStopService.getStopsInBounds(minLat, maxLat, minLon, maxLon);
+        Set<String> selection = FieldSelection.parse(BusStopResponse.class, fields);
+        List<BusStopResponse> stops = busStopService.getStopsInBounds(minLat, maxLat, minLon, maxLon, selection);
         
         ApiResponse<List<BusStopResponse>> response = ApiResponse.<List<BusStopResponse>>builder()
                 .success(true)
@@ -106,6 +153,70 @@ public class BusStopController {
                 .data(stops)
                 .build();
                 
+        return ResponseEntity.ok(FieldSelection.apply(envelope ? response : stops, selection));
+    }
+
+    /**
+     * Get duplicate and near-duplicate stops: groups of stops within maxMeters under similar names
+     * GET /api/v1/stops/duplicates?maxMeters={meters}&minNameSimilarity={0..1}
+     * Without parameters, the report of the last stop import
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<ApiResponse<StopDedupReport>> getDuplicateStops(
+            @RequestParam(required = false) Double maxMeters,
+            @RequestParam(required = false) Double minNameSimilarity) {
+        log.info("Fetching duplicate stops within {} m, name similarity {}", maxMeters, minNameSimilarity);
+
+        StopDedupReport report = stopDeduplicationService.getCandidates(maxMeters, minNameSimilarity);
+
+        ApiResponse<StopDedupReport> response = ApiResponse.<StopDedupReport>builder()
+                .success(true)
+                .message("Duplicate stops retrieved successfully")
+                .data(report)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the routes serving a bus stop
+     * GET /api/v1/stops/{stopId}/routes
+     */
+    @GetMapping("/{stopId}/routes")
+    public ResponseEntity<ApiResponse<List<String>>> getRoutesServingStop(@PathVariable Long stopId) {
+        log.info("Fetching routes serving stop: {}", stopId);
+        
+        List<String> routeIds = busStopService.getRoutesServingStop(stopId);
+        
+        ApiResponse<List<String>> response = ApiResponse.<List<String>>builder()
+                .success(true)
+                .message("Routes serving stop retrieved successfully")
+                .data(routeIds)
+                .build();
+                
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the next scheduled departures from a bus stop
+     * GET /api/v1/stops/{stopId}/departures?after={HH:mm}&limit={limit}
+     */
+    @GetMapping("/{stopId}/departures")
+    public ResponseEntity<ApiResponse<DepartureBoard>> getDepartures(
+            @PathVariable Long stopId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        log.debug("Fetching departures from stop {} after {}", stopId, after);
+
+        DepartureBoard board = timetableService.getDepartures(stopId, after, limit);
+
+        ApiResponse<DepartureBoard> response = ApiResponse.<DepartureBoard>builder()
+                .success(true)
+                .message("Departures retrieved successfully")
+                .data(board)
+                .build();
+
         return ResponseEntity.ok(response);
     }
 
@@ -0,0 +1,54 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ApiResponse;
+import org.example.service.ChangeFeedService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * Change feed for map clients, so they only re-fetch what actually changed
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/changes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:5500"})
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    /**
+     * Subscribe to route and stop changes as Server-Sent Events
+     * GET /api/v1/changes?since={position}
+     * Browsers resume automatically through the Last-Event-ID header after a reconnect; a position
+     * ("epoch:offset") from another instance or an earlier run gets a reset event.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) String since) {
+        String resumeFrom = lastEventId != null ? lastEventId : since;
+        log.debug("Change feed subscription, resuming from position: {}", resumeFrom);
+        return changeFeedService.subscribe(resumeFrom);
+    }
+
+    /**
+     * Current feed position and number of connected clients
+     * GET /api/v1/changes/status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStatus() {
+        Map<String, Object> status = Map.of(
+                "lastOffset", changeFeedService.getLastOffset(),
+                "position", changeFeedService.getPosition(),
+                "clients", changeFeedService.getClientCount());
+
+        return ResponseEntity.ok(ApiResponse.success("Change feed status retrieved successfully", status));
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.LineResponse;
+import org.example.service.LineService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for bus lines, all directions of a bus number together
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/lines")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:5500"})
+public class LineController {
+
+    private final LineService lineService;
+
+    /**
+     * Get a bus line with the metadata and stop geometry of every direction
+     * GET /api/v1/lines/{busNumber}
+     */
+    @GetMapping("/{busNumber}")
+    public ResponseEntity<ApiResponse<LineResponse>> getLine(@PathVariable String busNumber) {
+        log.debug("Fetching line: {}", busNumber);
+
+        LineResponse line = lineService.getLine(busNumber);
+
+        ApiResponse<LineResponse> response = ApiResponse.<LineResponse>builder()
+                .success(true)
+                .message("Line retrieved successfully")
+                .data(line)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.IsochroneResponse;
+import org.example.dtos.NetworkOverlapReport;
+import org.example.dtos.RouteOverlapResponse;
+import org.example.dtos.TravelMatrixEntry;
+import org.example.dtos.TravelMatrixStatus;
+import org.example.service.IsochroneService;
+import org.example.service.RouteOverlapService;
+import org.example.service.TravelMatrixService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for network analysis over the route/stop graph
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:5500"})
+public class NetworkController {
+
+    private final IsochroneService isochroneService;
+    private final TravelMatrixService travelMatrixService;
+    private final RouteOverlapService routeOverlapService;
+
+    /**
+     * Get the stops reachable from a stop within a number of stops, transfers or minutes
+     * GET /api/v1/stops/{stopId}/reachable?mode={stops|transfers|minutes}&limit={limit}&speed={kmh}
+     */
+    @GetMapping("/stops/{stopId}/reachable")
+    public ResponseEntity<ApiResponse<IsochroneResponse>> getReachableStops(
+            @PathVariable Long stopId,
+            @RequestParam(defaultValue = "stops") String mode,
+            @RequestParam(defaultValue = "10") Double limit,
+            @RequestParam(defaultValue = "18") Double speed) {
+        log.info("Computing reachable stops from {} by {} within {}", stopId, mode, limit);
+
+        return reachableResponse(isochroneService.reachable(List.of(stopId), mode, limit, speed));
+    }
+
+    /**
+     * Get the stops reachable from any of several origin stops
+     * GET /api/v1/stops/reachable?origins={id,id,...}&mode={mode}&limit={limit}&speed={kmh}
+     */
+    @GetMapping("/stops/reachable")
+    public ResponseEntity<ApiResponse<IsochroneResponse>> getReachableStopsFromOrigins(
+            @RequestParam List<Long> origins,
+            @RequestParam(defaultValue = "stops") String mode,
+            @RequestParam(defaultValue = "10") Double limit,
+            @RequestParam(defaultValue = "18") Double speed) {
+        log.info("Computing reachable stops from {} origins by {} within {}", origins.size(), mode, limit);
+
+        return reachableResponse(isochroneService.reachable(origins, mode, limit, speed));
+    }
+
+    /**
+     * Start computing the all-pairs travel matrix in the background
+     * POST /api/v1/network/matrix
+     */
+    @PostMapping("/network/matrix")
+    public ResponseEntity<ApiResponse<TravelMatrixStatus>> startTravelMatrix() {
+        log.info("Starting travel matrix job");
+
+        ApiResponse<TravelMatrixStatus> response = ApiResponse.<TravelMatrixStatus>builder()
+                .success(true)
+                .message("Travel matrix job started")
+                .data(travelMatrixService.startJob())
+                .build();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Get the progress of the travel matrix job and the matrix being served
+     * GET /api/v1/network/matrix/status
+     */
+    @GetMapping("/network/matrix/status")
+    public ResponseEntity<ApiResponse<TravelMatrixStatus>> getTravelMatrixStatus() {
+        ApiResponse<TravelMatrixStatus> response = ApiResponse.<TravelMatrixStatus>builder()
+                .success(true)
+                .message("Travel matrix status retrieved successfully")
+                .data(travelMatrixService.getStatus())
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Look up hops and network distance between two stops in the precomputed matrix
+     * GET /api/v1/network/matrix?from={stopId}&to={stopId}
+     */
+    @GetMapping("/network/matrix")
+    public ResponseEntity<ApiResponse<TravelMatrixEntry>> getTravelMatrixEntry(
+            @RequestParam Long from,
+            @RequestParam Long to) {
+        ApiResponse<TravelMatrixEntry> response = ApiResponse.<TravelMatrixEntry>builder()
+                .success(true)
+                .message("Travel matrix entry retrieved successfully")
+                .data(travelMatrixService.lookup(from, to))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the routes sharing stop-to-stop segments with a route, with their shared corridors
+     * GET /api/v1/routes/{routeId}/overlaps?minRatio={0..1}&limit={limit}&minCorridorStops={stops}
+     */
+    @GetMapping("/routes/{routeId}/overlaps")
+    public ResponseEntity<ApiResponse<RouteOverlapResponse>> getRouteOverlaps(
+            @PathVariable String routeId,
+            @RequestParam(defaultValue = "0") Double minRatio,
+            @RequestParam(defaultValue = "20") Integer limit,
+            @RequestParam(defaultValue = "3") Integer minCorridorStops) {
+        log.info("Computing overlaps of route {} at ratio >= {}", routeId, minRatio);
+
+        ApiResponse<RouteOverlapResponse> response = ApiResponse.<RouteOverlapResponse>builder()
+                .success(true)
+                .message("Route overlaps computed successfully")
+                .data(routeOverlapService.getOverlaps(routeId, minRatio, limit, minCorridorStops))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get the network-wide overlap report: overlapping route pairs, longest shared corridors, busiest segments
+     * GET /api/v1/network/overlaps?minRatio={0..1}&limit={limit}&minCorridorStops={stops}
+     */
+    @GetMapping("/network/overlaps")
+    public ResponseEntity<ApiResponse<NetworkOverlapReport>> getNetworkOverlaps(
+            @RequestParam(defaultValue = "0.5") Double minRatio,
+            @RequestParam(defaultValue = "50") Integer limit,
+            @RequestParam(defaultValue = "3") Integer minCorridorStops) {
+        log.info("Computing network overlap report at ratio >= {}", minRatio);
+
+        ApiResponse<NetworkOverlapReport> response = ApiResponse.<NetworkOverlapReport>builder()
+                .success(true)
+                .message("Network overlap report computed successfully")
+                .data(routeOverlapService.getNetworkReport(minRatio, limit, minCorridorStops))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<ApiResponse<IsochroneResponse>> reachableResponse(IsochroneResponse result) {
+        ApiResponse<IsochroneResponse> response = ApiResponse.<IsochroneResponse>builder()
+                .success(true)
+                .message("Reachable stops computed successfully")
+                .data(result)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
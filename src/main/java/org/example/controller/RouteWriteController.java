@@ -0,0 +1,63 @@
+package org.example.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.OperationStatus;
+import org.example.dtos.RouteWriteBatch;
+import org.example.service.RouteWriteQueue;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for queued route writes, for bulk edits that do not need to wait for each commit
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/route-writes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:5500"})
+public class RouteWriteController {
+
+    private final RouteWriteQueue routeWriteQueue;
+
+    /**
+     * Queue route writes; answers 429 with Retry-After when the queue is full
+     * POST /api/v1/route-writes
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<List<OperationStatus>>> submit(@Valid @RequestBody RouteWriteBatch batch) {
+        log.debug("Queueing {} route writes", batch.getWrites().size());
+
+        List<OperationStatus> operations = routeWriteQueue.submit(batch.getWrites());
+
+        ApiResponse<List<OperationStatus>> response = ApiResponse.<List<OperationStatus>>builder()
+                .success(true)
+                .message("Route writes queued")
+                .data(operations)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Get the state of a queued write
+     * GET /api/v1/route-writes/{operationId}
+     */
+    @GetMapping("/{operationId}")
+    public ResponseEntity<ApiResponse<OperationStatus>> getStatus(@PathVariable String operationId) {
+        OperationStatus status = routeWriteQueue.getStatus(operationId);
+
+        ApiResponse<OperationStatus> response = ApiResponse.<OperationStatus>builder()
+                .success(true)
+                .message("Operation status retrieved successfully")
+                .data(status)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.ArrivalPrediction;
+import org.example.dtos.IngestResult;
+import org.example.dtos.VehiclePositionBatch;
+import org.example.model.VehiclePosition;
+import org.example.service.EtaService;
+import org.example.service.VehiclePositionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for live vehicle positions
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:5500"})
+public class VehicleController {
+
+    private final VehiclePositionService vehiclePositionService;
+    private final EtaService etaService;
+
+    /**
+     * Ingest a batch of vehicle positions
+     * POST /api/v1/vehicles/positions
+     */
+    @PostMapping("/vehicles/positions")
+    public ResponseEntity<ApiResponse<IngestResult>> ingestPositions(@RequestBody VehiclePositionBatch batch) {
+        // Called at a very high rate, so no per-request info logging here
+        IngestResult result = vehiclePositionService.ingest(batch.getPositions());
+
+        ApiResponse<IngestResult> response = ApiResponse.<IngestResult>builder()
+                .success(result.getRejected() == 0)
+                .message("Positions ingested")
+                .data(result)
+                .build();
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Get the latest position of every vehicle on a route
+     * GET /api/v1/routes/{routeId}/vehicles
+     */
+    @GetMapping("/routes/{routeId}/vehicles")
+    public ResponseEntity<ApiResponse<List<VehiclePosition>>> getVehiclesOnRoute(@PathVariable String routeId) {
+        List<VehiclePosition> vehicles = vehiclePositionService.getVehiclesOnRoute(routeId);
+
+        ApiResponse<List<VehiclePosition>> response = ApiResponse.<List<VehiclePosition>>builder()
+                .success(true)
+                .message("Vehicles retrieved successfully")
+                .data(vehicles)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get predicted arrivals at a stop from live vehicle positions
+     * GET /api/v1/stops/{stopId}/arrivals?limit={limit}
+     */
+    @GetMapping("/stops/{stopId}/arrivals")
+    public ResponseEntity<ApiResponse<List<ArrivalPrediction>>> getArrivals(
+            @PathVariable Long stopId,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<ArrivalPrediction> arrivals = etaService.getArrivals(stopId, limit);
+
+        ApiResponse<List<ArrivalPrediction>> response = ApiResponse.<List<ArrivalPrediction>>builder()
+                .success(true)
+                .message("Arrivals retrieved successfully")
+                .data(arrivals)
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get ingest statistics
+     * GET /api/v1/vehicles/stats
+     */
+    @GetMapping("/vehicles/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStatistics() {
+        return ResponseEntity.ok(ApiResponse.success("Statistics retrieved successfully", vehiclePositionService.getStatistics()));
+    }
+}
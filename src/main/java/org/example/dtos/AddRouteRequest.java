@@ -2,8 +2,11 @@ package org.example.dtos;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
+import jakarta.validation.Valid;
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * Request DTO for creating/updating bus routes
  */
@@ -29,4 +32,18 @@ public class AddRouteRequest {
     @Size(max = 255, message = "Route description cannot exceed 255 characters")
     @JsonProperty("description")
     private String description;
+
+    // Optional departure time at every stop (HH:mm or HH:mm:ss, past 24:00 after midnight), one per stop id.
+    // Without frequencies this is the route's only trip; with frequencies it gives the running times.
+    @JsonProperty("departureTimes")
+    private List<String> departureTimes;
+
+    // Optional headway-based service windows; running times are estimated when departureTimes is absent
+    @Valid
+    @JsonProperty("frequencies")
+    private List<FrequencyRequest> frequencies;
+
+    // Version the client last read; when set, an update is rejected if the route changed since
+    @JsonProperty("version")
+    private Long version;
 }
@@ -0,0 +1,21 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Predicted arrival of one vehicle at a stop
+ */
+@Data
+@Builder
+public class ArrivalPrediction {
+    private String routeId;
+    private String vehicleId;
+    private Long stopId;
+    private Integer stopSequence;
+    private Double distanceMeters;   // along the route, from the vehicle to the stop
+    private Long etaSeconds;
+    private LocalDateTime expectedArrival;
+}
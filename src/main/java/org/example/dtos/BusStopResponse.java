@@ -1,13 +1,16 @@
 package org.example.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Builder;
 import lombok.Data;
+import org.example.util.FieldSelection;
 
 /**
  * Response DTO for bus stop information
  */
 @Data
 @Builder
+@JsonFilter(FieldSelection.FILTER)
 public class BusStopResponse {
     private Long id;
     private String name;
@@ -0,0 +1,19 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change feed pushed to map clients
+ */
+@Data
+@Builder
+public class ChangeFeedEvent {
+    private long offset;
+    private String entity;   // "route" or "stops"
+    private String id;       // routeId for routes, null for stop imports
+    private String type;     // CREATED, UPDATED, DELETED or IMPORTED
+    private LocalDateTime timestamp;
+}
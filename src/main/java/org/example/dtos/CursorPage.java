@@ -0,0 +1,18 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing; pass nextCursor back as ?cursor= to get the following page
+ */
+@Data
+@Builder
+public class CursorPage<T> {
+    private List<T> items;
+    private int size;
+    private String nextCursor;         // null on the last page
+    private Long total;                // only when requested with includeTotal=true
+}
@@ -0,0 +1,18 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One scheduled departure from a stop
+ */
+@Data
+@Builder
+public class Departure {
+    private String routeId;
+    private String busNumber;
+    private String headsign;            // name of the route's last stop
+    private String tripId;              // routeId@start time of the trip at its first stop
+    private String departureTime;       // HH:mm:ss on the clock
+    private Integer minutesAway;        // from the requested time, so departures after midnight sort last
+}
@@ -0,0 +1,18 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * The next departures from a stop after a time of day
+ */
+@Data
+@Builder
+public class DepartureBoard {
+    private Long stopId;
+    private String stopName;
+    private String after;
+    private List<Departure> departures;
+}
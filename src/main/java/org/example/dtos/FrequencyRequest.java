@@ -0,0 +1,31 @@
+package org.example.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A service window of a route: a trip leaves the first stop every headwayMinutes from startTime until
+ * before endTime
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrequencyRequest {
+
+    @NotBlank(message = "Start time is required")
+    @JsonProperty("startTime")
+    private String startTime;
+
+    @NotBlank(message = "End time is required")
+    @JsonProperty("endTime")
+    private String endTime;
+
+    @NotNull(message = "Headway is required")
+    @Min(value = 1, message = "Headway must be at least 1 minute")
+    @Max(value = 720, message = "Headway cannot exceed 720 minutes")
+    @JsonProperty("headwayMinutes")
+    private Integer headwayMinutes;
+}
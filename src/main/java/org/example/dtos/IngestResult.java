@@ -0,0 +1,14 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of a vehicle position ingest batch
+ */
+@Data
+@Builder
+public class IngestResult {
+    private int accepted;
+    private int rejected;
+}
@@ -0,0 +1,20 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Result of a reachability query
+ */
+@Data
+@Builder
+public class IsochroneResponse {
+    private List<Long> origins;
+    private String mode;
+    private Double limit;
+    private Integer reachableCount;
+    private Long computeMicros;
+    private List<ReachableStop> stops;
+}
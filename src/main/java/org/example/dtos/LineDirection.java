@@ -0,0 +1,26 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One direction of a bus line: the route metadata and its stop geometry
+ */
+@Data
+@Builder
+public class LineDirection {
+    private String routeId;
+    private String routeShortName;
+    private String routeLongName;
+    private Integer direction;
+    private String description;
+    private Long version;
+    private Integer stopCount;
+    private List<LineStop> stops;
+
+    public String getDirectionName() {
+        return direction != null ? (direction == 0 ? "Outbound" : "Return") : null;
+    }
+}
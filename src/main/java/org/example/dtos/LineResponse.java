@@ -0,0 +1,16 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A bus line with every direction, enough to draw it on the map in one request
+ */
+@Data
+@Builder
+public class LineResponse {
+    private String busNumber;
+    private List<LineDirection> directions;
+}
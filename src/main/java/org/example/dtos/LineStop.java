@@ -0,0 +1,17 @@
+package org.example.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One stop of a line direction in sequence order
+ */
+@Data
+@AllArgsConstructor
+public class LineStop {
+    private Long stopId;
+    private double lat;
+    private double lon;
+    private int sequence;
+    private String name;
+}
@@ -0,0 +1,18 @@
+package org.example.dtos;
+
+/**
+ * Projection of one stop of one direction of a line, with the route columns repeated on every row
+ */
+public interface LineStopRow {
+    String getRouteId();
+    String getRouteShortName();
+    String getRouteLongName();
+    Integer getDirection();
+    String getDescription();
+    Long getVersion();
+    Long getStopId();           // stop columns are null for a route without stops
+    Double getLat();
+    Double getLon();
+    Integer getSequence();
+    String getName();
+}
@@ -0,0 +1,25 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Network-wide duplicated service: route pairs above an overlap ratio, the longest shared corridors and
+ * the segments run by the most routes
+ */
+@Data
+@Builder
+public class NetworkOverlapReport {
+    private Integer routeCount;
+    private Integer segmentCount;
+    private Integer sharedSegmentCount;    // segments run by two or more routes
+    private Double sharedMetersRatio;      // share of network length run by two or more routes
+    private Double minRatio;
+    private Integer pairCount;             // pairs at or above minRatio, before the limit was applied
+    private List<RouteOverlap> pairs;
+    private List<SharedCorridor> longestCorridors;
+    private List<SegmentLoad> busiestSegments;
+    private Long computeMillis;
+}
@@ -0,0 +1,8 @@
+package org.example.dtos;
+
+/**
+ * Projection of one stop of one route, used to load the whole network in a single query
+ */
+public interface NetworkStopRow extends RouteStopView {
+    String getRouteId();
+}
@@ -0,0 +1,23 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a queued route write
+ */
+@Data
+@Builder(toBuilder = true)
+public class OperationStatus {
+    private String operationId;
+    private String routeId;
+    private String type;               // CREATE, UPDATE, DELETE
+    private String status;             // QUEUED, APPLIED, COALESCED, FAILED
+    private String coalescedInto;      // the later write to the same route that replaced this one
+    private String error;
+    private Integer batchSize;         // writes committed in the same transaction
+    private LocalDateTime queuedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,16 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A stop reachable from the origin(s) of an isochrone query, with its cost
+ */
+@Data
+@Builder
+public class ReachableStop {
+    private Long stopId;
+    private Double latitude;
+    private Double longitude;
+    private Double cost;   // stops, transfers or minutes depending on the query mode
+}
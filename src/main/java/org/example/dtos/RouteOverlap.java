@@ -0,0 +1,21 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Shared service between two routes, measured over the stop-to-stop segments they both run
+ */
+@Data
+@Builder
+public class RouteOverlap {
+    private String routeId;
+    private String otherRouteId;
+    private Integer sharedSegments;
+    private Double sharedMeters;
+    private Double overlapRatio;       // sharedMeters / length of routeId
+    private Double otherOverlapRatio;  // sharedMeters / length of otherRouteId
+    private List<SharedCorridor> corridors;
+}
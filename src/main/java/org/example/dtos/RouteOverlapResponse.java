@@ -0,0 +1,19 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Routes overlapping one route, largest overlap first
+ */
+@Data
+@Builder
+public class RouteOverlapResponse {
+    private String routeId;
+    private Integer segmentCount;
+    private Double lengthMeters;
+    private Integer overlappingRoutes; // before the limit was applied
+    private List<RouteOverlap> overlaps;
+}
@@ -1,7 +1,9 @@
 package org.example.dtos;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import lombok.Builder;
 import lombok.Data;
+import org.example.util.FieldSelection;
 
 import java.time.LocalDateTime;
 
@@ -10,6 +12,7 @@ import java.time.LocalDateTime;
  */
 @Data
 @Builder
+@JsonFilter(FieldSelection.FILTER)
 public class RouteResponse {
     private String routeId;
     private String busNumber;
@@ -19,6 +22,7 @@ public class RouteResponse {
     private String directionName;
     private Integer stopCount;
     private String description;
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
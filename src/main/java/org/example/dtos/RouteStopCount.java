@@ -0,0 +1,9 @@
+package org.example.dtos;
+
+/**
+ * Projection of the number of stops of one route
+ */
+public interface RouteStopCount {
+    String getRouteId();
+    Long getStopCount();
+}
@@ -0,0 +1,12 @@
+package org.example.dtos;
+
+/**
+ * Projection of one stop of a route in sequence order, including the stop id
+ */
+public interface RouteStopView {
+    Long getStopId();
+    double getLat();
+    double getLon();
+    int getSequence();
+    String getName();
+}
@@ -0,0 +1,20 @@
+package org.example.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for queueing route writes, applied in order
+ */
+@Data
+public class RouteWriteBatch {
+
+    @NotEmpty(message = "At least one write is required")
+    @Size(max = 1000, message = "At most 1000 writes per request")
+    @Valid
+    private List<RouteWriteRequest> writes;
+}
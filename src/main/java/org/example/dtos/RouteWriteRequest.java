@@ -0,0 +1,22 @@
+package org.example.dtos;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * One queued route write: CREATE carries route, UPDATE carries routeId and route, DELETE carries routeId
+ */
+@Data
+public class RouteWriteRequest {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    @NotNull(message = "Write type is required")
+    private Type type;
+
+    private String routeId;
+
+    @Valid
+    private AddRouteRequest route;
+}
@@ -0,0 +1,19 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A stop-to-stop segment and the routes running it
+ */
+@Data
+@Builder
+public class SegmentLoad {
+    private Long fromStopId;
+    private Long toStopId;
+    private Double lengthMeters;
+    private Integer routeCount;
+    private List<String> routeIds;
+}
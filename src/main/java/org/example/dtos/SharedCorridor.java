@@ -0,0 +1,19 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A run of consecutive stops that two routes serve in the same order
+ */
+@Data
+@Builder
+public class SharedCorridor {
+    private String routeId;
+    private String otherRouteId;
+    private Long fromStopId;
+    private Long toStopId;
+    private Integer fromPosition;      // index of fromStopId in the stop sequence of routeId
+    private Integer segmentCount;      // stops in the corridor minus one
+    private Double lengthMeters;
+}
@@ -0,0 +1,18 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of the background startup data load
+ */
+@Data
+@Builder
+public class StartupProgress {
+    private String stage;              // PENDING, IMPORTING_STOPS, WARMING_INDEXES, READY, FAILED
+    private Integer stopsImported;
+    private Integer stopsTotal;
+    private Integer attempt;
+    private Long elapsedMillis;
+    private String lastError;
+}
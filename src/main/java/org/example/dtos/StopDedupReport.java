@@ -0,0 +1,22 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Result of a duplicate stop scan: the merge candidates and whether they were applied
+ */
+@Data
+@Builder
+public class StopDedupReport {
+    private int stopsScanned;
+    private long pairsCompared;
+    private int duplicateCount;
+    private boolean applied;
+    private double maxMeters;
+    private double minNameSimilarity;
+    private long elapsedMillis;
+    private List<StopMergeCandidate> candidates;
+}
@@ -0,0 +1,16 @@
+package org.example.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A stop that would be merged into the kept stop of its candidate
+ */
+@Data
+@AllArgsConstructor
+public class StopDuplicate {
+    private Long stopId;
+    private String name;
+    private double distanceMeters;
+    private double nameSimilarity;
+}
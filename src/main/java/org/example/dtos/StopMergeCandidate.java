@@ -0,0 +1,19 @@
+package org.example.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A group of stops at (nearly) the same place under (nearly) the same name, and the stop that is kept
+ */
+@Data
+@AllArgsConstructor
+public class StopMergeCandidate {
+    private Long keepStopId;
+    private String keepName;
+    private double lat;
+    private double lon;
+    private List<StopDuplicate> duplicates;
+}
@@ -0,0 +1,9 @@
+package org.example.dtos;
+
+/**
+ * Projection of one (stop, route) pair from route_stop
+ */
+public interface StopRoutePair {
+    Long getStopId();
+    String getRouteId();
+}
@@ -0,0 +1,9 @@
+package org.example.dtos;
+
+/**
+ * Projection of one stop of one route with its scheduled times, used to build the departure index
+ */
+public interface TimetableRow extends NetworkStopRow {
+    Integer getArrivalTime();
+    Integer getDepartureTime();
+}
@@ -0,0 +1,17 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Precomputed network distance between two stops
+ */
+@Data
+@Builder
+public class TravelMatrixEntry {
+    private Long fromStopId;
+    private Long toStopId;
+    private boolean reachable;
+    private Integer hops;              // stops ridden along the fewest-stop path
+    private Integer distanceMeters;    // shortest network distance, rounded to the matrix resolution
+}
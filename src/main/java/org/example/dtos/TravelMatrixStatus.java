@@ -0,0 +1,23 @@
+package org.example.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of the all-pairs travel matrix job and of the matrix currently served
+ */
+@Data
+@Builder
+public class TravelMatrixStatus {
+    private String state;              // IDLE, RUNNING, FAILED
+    private Integer originsDone;
+    private Integer originsTotal;
+    private LocalDateTime jobStartedAt;
+    private Long lastJobMillis;
+    private String lastError;
+    private Integer stopCount;         // of the matrix being served, null when none is loaded
+    private LocalDateTime matrixCreatedAt;
+    private Long fileBytes;
+}
@@ -0,0 +1,13 @@
+package org.example.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for ingesting a batch of vehicle positions
+ */
+@Data
+public class VehiclePositionBatch {
+    private List<VehiclePositionUpdate> positions;
+}
@@ -0,0 +1,17 @@
+package org.example.dtos;
+
+import lombok.Data;
+
+/**
+ * One position report inside an ingest batch
+ */
+@Data
+public class VehiclePositionUpdate {
+    private String vehicleId;
+    private String routeId;
+    private Double lat;
+    private Double lon;
+    private Float bearing;
+    private Float speed;
+    private Long timestamp; // epoch milliseconds, defaults to the time of arrival
+}
@@ -0,0 +1,12 @@
+package org.example.event;
+
+import lombok.Value;
+
+/**
+ * Published once by the startup loader after the stop import; listeners warm their in-memory indexes
+ * synchronously, and the instance reports ready only after all of them returned
+ */
+@Value
+public class DataLoadedEvent {
+    int stopCount;
+}
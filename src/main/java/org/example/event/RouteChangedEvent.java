@@ -0,0 +1,29 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published by RouteService after a route was created, updated or deleted, and by ChangeLogService for
+ * changes written by other instances. Listeners that keep derived state (caches, indexes, the change
+ * feed) react to it.
+ */
+@Value
+@AllArgsConstructor
+public class RouteChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    String routeId;
+    ChangeType type;
+    // Stop ids of the route in sequence order, empty for deletes
+    List<Long> stopIds;
+    // Read from the change log: already committed elsewhere, not to be logged again
+    boolean remote;
+
+    public RouteChangedEvent(String routeId, ChangeType type, List<Long> stopIds) {
+        this(routeId, type, stopIds, false);
+    }
+}
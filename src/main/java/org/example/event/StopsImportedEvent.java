@@ -0,0 +1,11 @@
+package org.example.event;
+
+import lombok.Value;
+
+/**
+ * Published after a bulk stop import finished
+ */
+@Value
+public class StopsImportedEvent {
+    int stopCount;
+}
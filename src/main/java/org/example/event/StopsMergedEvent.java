@@ -0,0 +1,26 @@
+package org.example.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published by StopDeduplicationService after duplicate stops were merged into a kept stop and deleted,
+ * and by ChangeLogService for merges made by other instances. The routes that used the merged stops get
+ * their own RouteChangedEvents; this event is for state that holds stops on their own.
+ */
+@Value
+@AllArgsConstructor
+public class StopsMergedEvent {
+
+    long keptStopId;
+    // Deleted stops whose rows now point at the kept stop
+    List<Long> mergedStopIds;
+    // Read from the change log: already committed elsewhere, not to be logged again
+    boolean remote;
+
+    public StopsMergedEvent(long keptStopId, List<Long> mergedStopIds) {
+        this(keptStopId, mergedStopIds, false);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.exception;
+
+/**
+ * Exception for writes that conflict with the current state of a resource
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
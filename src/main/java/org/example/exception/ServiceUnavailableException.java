@@ -0,0 +1,17 @@
+package org.example.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception for requests that cannot be answered right now but can be retried shortly
+ */
+@Getter
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception for work rejected because a queue is full; the client should slow down and retry
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One committed write, appended in the writing transaction (transactional outbox). Every instance tails
+ * the table by id to refresh its in-memory state after writes made on other instances.
+ */
+@Data
+@Entity
+@Table(name = "change_log", indexes = {
+    @Index(name = "idx_change_log_created_at", columnList = "created_at")
+})
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", length = 20, nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", length = 50, nullable = false)
+    private String entityId;
+
+    @Column(name = "change_type", length = 20, nullable = false)
+    private String changeType;
+
+    // Comma-separated stop ids of a route in sequence order, or the stops merged into a stop
+    @Column(name = "stop_ids", columnDefinition = "TEXT")
+    private String stopIds;
+
+    // Instance that made the write; it has applied the change already
+    @Column(name = "origin", length = 64, nullable = false)
+    private String origin;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Headway-based service of a route (GTFS frequencies.txt): a trip leaves the first stop every
+ * headwaySecs from startTime until before endTime. The route's stop times then hold offsets from the
+ * first stop, so the trips of a window are not stored one by one.
+ */
+@Data
+@Entity
+@Table(name = "frequencies", indexes = {
+    @Index(name = "idx_frequencies_route", columnList = "route_id")
+})
+@EqualsAndHashCode(exclude = {"route"})
+@ToString(exclude = {"route"})
+public class Frequency {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "route_id", nullable = false)
+    private Route route;
+
+    @Column(name = "start_time", nullable = false)
+    private Integer startTime;      // seconds since midnight of the service day
+
+    @Column(name = "end_time", nullable = false)
+    private Integer endTime;
+
+    @Column(name = "headway_secs", nullable = false)
+    private Integer headwaySecs;
+}
@@ -48,6 +48,11 @@ public class Route {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    // Optimistic lock; a null version also marks the entity as new, so save() persists instead of merging
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,73 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+
+/**
+ * Read model of the stops of a route in sequence order, denormalized from trip, stop_times and stop.
+ *
+ * The primary key (route_id, seq) is the clustered index on InnoDB, so the stops of a route are one
+ * contiguous range already in order. Written by RouteService together with the trips and stop times, and
+ * rebuilt in bulk by RouteStopProjection.
+ */
+@Data
+@Entity
+@Table(name = "route_stop", indexes = {
+    @Index(name = "idx_route_stop_stop", columnList = "stop_id")
+})
+@IdClass(RouteStop.Key.class)
+public class RouteStop implements Persistable<RouteStop.Key> {
+
+    @Id
+    @Column(name = "route_id", length = 50)
+    private String routeId;
+
+    @Id
+    @Column(name = "seq")
+    private Integer seq;
+
+    @Column(name = "stop_id", nullable = false)
+    private Long stopId;
+
+    @Column(name = "lat", nullable = false)
+    private double lat;
+
+    @Column(name = "lon", nullable = false)
+    private double lon;
+
+    @Column(name = "name")
+    private String name;
+
+    // Rows are only ever inserted or bulk-deleted, so save() persists without selecting first
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public Key getId() {
+        return new Key(routeId, seq);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String routeId;
+        private Integer seq;
+    }
+}
@@ -21,6 +21,11 @@ public class StopTime {
 
     private int stopSequence;
 
+    // Seconds since midnight of the service day, past 24:00 for trips running after midnight; null when the
+    // route has no schedule. On a route with frequencies only the differences to the first stop matter.
+    @Column(name = "arrival_time")
+    private Integer arrivalTime;
 
-
+    @Column(name = "departure_time")
+    private Integer departureTime;
 }
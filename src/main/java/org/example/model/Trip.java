@@ -3,12 +3,14 @@ package org.example.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import org.hibernate.mapping.Join;
+import org.springframework.data.domain.Persistable;
 
 @Data
 @Entity
 @Table(name="trip")
-public class Trip {
+public class Trip implements Persistable<String> {
     @Id
     @Column(name="trip_id")
     private String tripId;
@@ -17,4 +19,24 @@ public class Trip {
     @JoinColumn(name="route_id")
     private Route route;
 
+    // Trips are only inserted or bulk-deleted, so save() persists the assigned id without selecting first
+    @Transient
+    @EqualsAndHashCode.Exclude
+    private boolean isNew = true;
+
+    @Override
+    public String getId() {
+        return tripId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
 }
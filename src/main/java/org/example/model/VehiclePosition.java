@@ -0,0 +1,19 @@
+package org.example.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Live position report of one vehicle. Kept in memory only, never persisted.
+ */
+@Value
+@Builder
+public class VehiclePosition {
+    String vehicleId;
+    String routeId;
+    double lat;
+    double lon;
+    float bearing;      // degrees, 0 = north
+    float speed;        // metres per second
+    long timestamp;     // epoch milliseconds
+}
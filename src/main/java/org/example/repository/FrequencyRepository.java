@@ -0,0 +1,30 @@
+package org.example.repository;
+
+import org.example.model.Frequency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface FrequencyRepository extends JpaRepository<Frequency, Long> {
+
+    @Query("SELECT f.route.routeId AS routeId, f.startTime AS startTime, f.endTime AS endTime, f.headwaySecs AS headwaySecs "
+            + "FROM Frequency f ORDER BY f.route.routeId, f.startTime")
+    List<FrequencyRow> findAllRows();
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Frequency f WHERE f.route.routeId = :routeId")
+    int deleteByRouteId(@Param("routeId") String routeId);
+
+    interface FrequencyRow {
+        String getRouteId();
+
+        Integer getStartTime();
+
+        Integer getEndTime();
+
+        Integer getHeadwaySecs();
+    }
+}
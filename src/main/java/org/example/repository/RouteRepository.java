@@ -1,23 +1,101 @@
 package org.example.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.dtos.BusRouteDto;
+import org.example.dtos.LineStopRow;
+import org.example.dtos.NetworkStopRow;
+import org.example.dtos.RouteStopCount;
+import org.example.dtos.RouteStopView;
+import org.example.dtos.StopRoutePair;
+import org.example.dtos.TimetableRow;
 import org.example.model.BusStop;
 import org.example.model.Route;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface RouteRepository extends JpaRepository<Route, String> {
+// Route geometry and stop lists read the route_stop read model (RouteStop): a range of its (route_id, seq)
+// primary key, already in stop order
+public interface RouteRepository extends JpaRepository<Route, String>, RouteRepositoryCustom {
     @Query(value = """
-            SELECT s.lat, s.lon, st.stop_sequence, s.name 
-            FROM route r 
-            INNER JOIN trip t ON r.route_id = t.route_id 
+            SELECT rs.lat, rs.lon, rs.seq, rs.name
+            FROM route_stop rs
+            WHERE rs.route_id = :routeId
+            ORDER BY rs.seq
+            """, nativeQuery = true)
+    List<BusRouteDto> findRouteStopWithSequence(@Param("routeId") String routeId);
+
+    @Query(value = """
+            SELECT rs.stop_id AS stopId, rs.lat AS lat, rs.lon AS lon, rs.seq AS sequence, rs.name AS name
+            FROM route_stop rs
+            WHERE rs.route_id = :routeId
+            ORDER BY rs.seq
+            """, nativeQuery = true)
+    List<RouteStopView> findRouteStopsWithIds(@Param("routeId") String routeId);
+
+    @Query(value = """
+            SELECT DISTINCT rs.stop_id AS stopId, rs.route_id AS routeId
+            FROM route_stop rs
+            """, nativeQuery = true)
+    List<StopRoutePair> findAllStopRoutePairs();
+
+    @Query(value = """
+            SELECT rs.route_id AS routeId, rs.stop_id AS stopId, rs.lat AS lat, rs.lon AS lon,
+                   rs.seq AS sequence, rs.name AS name
+            FROM route_stop rs
+            ORDER BY rs.route_id, rs.seq
+            """, nativeQuery = true)
+    List<NetworkStopRow> findAllRouteStops();
+
+    @Query(value = """
+            SELECT t.route_id AS routeId, s.id AS stopId, s.lat AS lat, s.lon AS lon,
+                   st.stop_sequence AS sequence, s.name AS name,
+                   st.arrival_time AS arrivalTime, st.departure_time AS departureTime
+            FROM trip t
             INNER JOIN stop_times st ON t.trip_id = st.trip_id
             INNER JOIN stop s ON s.id = st.stop_id
-            WHERE r.route_id LIKE :routeId
-            ORDER BY st.stop_sequence
+            ORDER BY t.route_id, st.stop_sequence
             """, nativeQuery = true)
-    List<BusRouteDto> findRouteStopWithSequence(@Param("routeId") String routeId);
+    List<TimetableRow> findAllRouteStopTimes();
+
+    // Every direction of a line with its stops in one round trip: primary key lookups of the given route ids;
+    // a route without stops yields one row with null stop columns
+    @Query(value = """
+            SELECT r.route_id AS routeId, r.route_short_name AS routeShortName, r.route_long_name AS routeLongName,
+                   r.direction AS direction, r.description AS description, r.version AS version,
+                   rs.stop_id AS stopId, rs.lat AS lat, rs.lon AS lon, rs.seq AS sequence, rs.name AS name
+            FROM route r
+            LEFT JOIN route_stop rs ON rs.route_id = r.route_id
+            WHERE r.route_id IN (:routeIds)
+            ORDER BY r.route_id, rs.seq
+            """, nativeQuery = true)
+    List<LineStopRow> findLineStops(@Param("routeIds") Collection<String> routeIds);
+
+    @Query(value = """
+            SELECT rs.route_id AS routeId, COUNT(*) AS stopCount
+            FROM route_stop rs
+            WHERE rs.route_id IN (:routeIds)
+            GROUP BY rs.route_id
+            """, nativeQuery = true)
+    List<RouteStopCount> countStopsByRouteIds(@Param("routeIds") Collection<String> routeIds);
+
+    @Query(value = "SELECT COUNT(*) FROM route_stop rs WHERE rs.route_id = :routeId", nativeQuery = true)
+    int countStopsByRouteId(@Param("routeId") String routeId);
+
+    @Query(value = "SELECT COUNT(*) FROM route_stop", nativeQuery = true)
+    long countRouteStops();
+
+    // Keyset page: WHERE route_id > :afterRouteId ORDER BY route_id LIMIT n, served from the primary key index
+    List<Route> findByRouteIdGreaterThanOrderByRouteIdAsc(String afterRouteId, Limit limit);
+
+    // SELECT ... FOR UPDATE, serializes writers of one route across instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Route r WHERE r.routeId = :routeId")
+    Optional<Route> findByIdForUpdate(@Param("routeId") String routeId);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package org.example.repository;
+
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+
+/**
+ * Route queries selecting only some columns; tuple elements are aliased with the Route attribute names
+ */
+public interface RouteRepositoryCustom {
+
+    Page<Tuple> findColumnsPage(Collection<String> attributes, Pageable pageable);
+}
@@ -0,0 +1,58 @@
+package org.example.repository;
+
+import org.example.model.RouteStop;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RouteStopRepository extends JpaRepository<RouteStop, RouteStop.Key> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RouteStop rs WHERE rs.routeId = :routeId")
+    int deleteByRouteId(@Param("routeId") String routeId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM route_stop", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO route_stop (route_id, seq, stop_id, lat, lon, name)
+            SELECT t.route_id, st.stop_sequence, s.id, s.lat, s.lon, s.name
+            FROM trip t
+            INNER JOIN stop_times st ON t.trip_id = st.trip_id
+            INNER JOIN stop s ON s.id = st.stop_id
+            """, nativeQuery = true)
+    int insertFromStopTimes();
+
+    // Picks up stop renames and moves from a stop import
+    @Modifying
+    @Query(value = """
+            UPDATE route_stop
+            SET lat = (SELECT s.lat FROM stop s WHERE s.id = route_stop.stop_id),
+                lon = (SELECT s.lon FROM stop s WHERE s.id = route_stop.stop_id),
+                name = (SELECT s.name FROM stop s WHERE s.id = route_stop.stop_id)
+            WHERE EXISTS (SELECT 1 FROM stop s WHERE s.id = route_stop.stop_id
+                          AND (s.lat <> route_stop.lat OR s.lon <> route_stop.lon
+                               OR COALESCE(s.name, '') <> COALESCE(route_stop.name, '')))
+            """, nativeQuery = true)
+    int refreshStopColumns();
+
+    // Merging duplicate stops; the stop columns follow with refreshStopColumns at DataLoadedEvent
+    @Modifying
+    @Query(value = "UPDATE route_stop SET stop_id = :keepId WHERE stop_id IN (:stopIds)", nativeQuery = true)
+    int remapStops(@Param("stopIds") Collection<Long> stopIds, @Param("keepId") Long keepId);
+
+    @Query(value = "SELECT DISTINCT route_id FROM route_stop WHERE stop_id IN (:stopIds)", nativeQuery = true)
+    List<String> findRouteIdsByStopIds(@Param("stopIds") Collection<Long> stopIds);
+
+    @Query("SELECT rs.stopId FROM RouteStop rs WHERE rs.routeId = :routeId ORDER BY rs.seq")
+    List<Long> findStopIdsByRouteId(@Param("routeId") String routeId);
+
+    @Query(value = "SELECT COUNT(*) FROM stop_times", nativeQuery = true)
+    long countStopTimes();
+}
@@ -1,13 +1,28 @@
 package org.example.repository;
 
 import org.example.model.BusStop;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StopRepository extends JpaRepository<BusStop, Long>  {
+public interface StopRepository extends JpaRepository<BusStop, Long>, StopRepositoryCustom {
     BusStop findById(long id);
+
+    List<BusStop> findByLatBetweenAndLonBetween(double minLat, double maxLat, double minLon, double maxLon);
+
+    List<BusStop> findByNameContainingIgnoreCase(String name);
+
+    // Keyset page: WHERE id > :afterId ORDER BY id LIMIT n, served from the primary key index
+    List<BusStop> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    @Query("SELECT s.id FROM BusStop s WHERE s.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
 
@@ -0,0 +1,23 @@
+package org.example.repository;
+
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stop queries selecting only some columns; tuple elements are aliased with the BusStop attribute names
+ */
+public interface StopRepositoryCustom {
+
+    List<Tuple> findColumnsInBounds(Collection<String> attributes, double minLat, double maxLat, double minLon, double maxLon);
+
+    List<Tuple> findColumnsAfterId(Collection<String> attributes, long afterId, int limit);
+
+    Page<Tuple> findColumnsPage(Collection<String> attributes, Pageable pageable);
+
+    Optional<Tuple> findColumnsById(Collection<String> attributes, long id);
+}
@@ -0,0 +1,82 @@
+package org.example.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.example.model.BusStop;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class StopRepositoryCustomImpl implements StopRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Tuple> findColumnsInBounds(Collection<String> attributes, double minLat, double maxLat, double minLon, double maxLon) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<BusStop> stop = query.from(BusStop.class);
+        query.multiselect(selections(stop, attributes))
+                .where(cb.between(stop.get("lat"), minLat, maxLat), cb.between(stop.get("lon"), minLon, maxLon));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<Tuple> findColumnsAfterId(Collection<String> attributes, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<BusStop> stop = query.from(BusStop.class);
+        query.multiselect(selections(stop, attributes))
+                .where(cb.greaterThan(stop.get("id"), afterId))
+                .orderBy(cb.asc(stop.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Page<Tuple> findColumnsPage(Collection<String> attributes, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<BusStop> stop = query.from(BusStop.class);
+        query.multiselect(selections(stop, attributes))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), stop, cb));
+        TypedQuery<Tuple> page = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            page.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        // The count only runs when the page does not already tell the total
+        return PageableExecutionUtils.getPage(page.getResultList(), pageable, this::count);
+    }
+
+    @Override
+    public Optional<Tuple> findColumnsById(Collection<String> attributes, long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<BusStop> stop = query.from(BusStop.class);
+        query.multiselect(selections(stop, attributes))
+                .where(cb.equal(stop.get("id"), id));
+        return entityManager.createQuery(query).getResultStream().findFirst();
+    }
+
+    private long count() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        query.select(cb.count(query.from(BusStop.class)));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Selection<?>> selections(Root<BusStop> stop, Collection<String> attributes) {
+        return attributes.stream().<Selection<?>>map(attribute -> stop.get(attribute).alias(attribute)).toList();
+    }
+}
@@ -3,9 +3,21 @@ package org.example.repository;
 import org.example.model.StopTime;
 import org.example.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface StopTimeRepository extends JpaRepository<StopTime, Long> {
 
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM StopTime st WHERE st.trip.tripId IN (SELECT t.tripId FROM Trip t WHERE t.route.routeId = :routeId)")
+    int deleteByRouteId(@Param("routeId") String routeId);
+
+    // Merging duplicate stops: the stop times of the merged stops move to the kept one
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE stop_times SET stop_id = :keepId WHERE stop_id IN (:stopIds)", nativeQuery = true)
+    int remapStops(@Param("stopIds") Collection<Long> stopIds, @Param("keepId") Long keepId);
 }
@@ -3,8 +3,15 @@ package org.example.repository;
 import org.example.model.Route;
 import org.example.model.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface TripRepository extends JpaRepository<Trip, Long> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Trip t WHERE t.route.routeId = :routeId")
+    int deleteByRouteId(@Param("routeId") String routeId);
 }
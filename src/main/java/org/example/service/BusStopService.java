@@ -1,21 +1,279 @@
 package org.example.service;
 
 
+import jakarta.persistence.Tuple;
 import lombok.AllArgsConstructor;
+import org.example.dtos.BusStopResponse;
+import org.example.dtos.CursorPage;
+import org.example.exception.ResourceNotFoundException;
+import org.example.exception.ValidationException;
 import org.example.model.BusStop;
 import org.example.repository.StopRepository;
+import org.example.util.Cursors;
+import org.example.util.GeoUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class BusStopService {
+    private static final String STOP_CURSOR = "stop";
+    private static final Map<String, String> SPARSE_COLUMNS = Map.of(
+            "name", "name", "latitude", "lat", "longitude", "lon", "bench", "bench", "shelter", "shelter");
+
     private StopRepository stopRepository;
+    private StopRouteIndex stopRouteIndex;
+    private NetworkSnapshotService networkSnapshotService;
+
     public List<BusStop> findAll() {
         return stopRepository.findAll();
     }
     public BusStop findById(long id) {
         return stopRepository.findById(id);
     }
+
+    /**
+     * Get stops with pagination; with a field selection only the matching columns are queried
+     */
+    public Page<BusStopResponse> getAllStops(Pageable pageable, Set<String> fields) {
+        if (fields != null) {
+            return stopRepository.findColumnsPage(columnsFor(fields), pageable).map(row -> mapToSparseResponse(row, fields));
+        }
+        return stopRepository.findAll(pageable).map(this::mapToResponse);
+    }
+
+    /**
+     * Get stops ordered by id after the cursor, without the count query of offset pagination
+     */
+    public CursorPage<BusStopResponse> scrollStops(String cursor, int size, boolean includeTotal, Set<String> fields) {
+        Cursors.requirePageSize(size);
+        long after = Cursors.decodeLong(STOP_CURSOR, cursor, Long.MIN_VALUE);
+        List<BusStopResponse> rows = fields == null
+                ? stopRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1)).stream()
+                        .map(this::mapToResponse)
+                        .collect(Collectors.toList())
+                : stopRepository.findColumnsAfterId(columnsFor(fields), after, size + 1).stream()
+                        .map(row -> mapToSparseResponse(row, fields))
+                        .collect(Collectors.toList());
+        boolean hasMore = rows.size() > size;
+        List<BusStopResponse> page = hasMore ? rows.subList(0, size) : rows;
+
+        return CursorPage.<BusStopResponse>builder()
+                .items(page)
+                .size(page.size())
+                .nextCursor(hasMore ? Cursors.encode(STOP_CURSOR, String.valueOf(page.get(page.size() - 1).getId())) : null)
+                .total(includeTotal ? stopRepository.count() : null)
+                .build();
+    }
+
+    /**
+     * Get a stop from the network snapshot, or from the database reading only the selected columns
+     */
+    public BusStopResponse getStopById(Long stopId, Set<String> fields) {
+        NetworkSnapshot snapshot = networkSnapshotService.forStops();
+        if (snapshot != null) {
+            int stop = snapshot.indexOf(stopId);
+            if (stop < 0) {
+                throw new ResourceNotFoundException("Bus Stop", stopId);
+            }
+            return mapToResponse(snapshot, stop, fields);
+        }
+        if (fields != null) {
+            return stopRepository.findColumnsById(columnsFor(fields), stopId)
+                    .map(row -> mapToSparseResponse(row, fields))
+                    .orElseThrow(() -> new ResourceNotFoundException("Bus Stop", stopId));
+        }
+        BusStop stop = stopRepository.findById(stopId.longValue());
+        if (stop == null) {
+            throw new ResourceNotFoundException("Bus Stop", stopId);
+        }
+        return mapToResponse(stop);
+    }
+
+    /**
+     * Search by name and/or within radius metres of a location, nearest first when a location is given
+     */
+    public List<BusStopResponse> searchStops(String name, Double lat, Double lon, Double radius) {
+        boolean byLocation = lat != null && lon != null;
+        if (!byLocation && (name == null || name.isBlank())) {
+            throw new ValidationException("Either a name or a location (lat and lon) is required");
+        }
+
+        NetworkSnapshot snapshot = networkSnapshotService.forStops();
+        if (snapshot != null) {
+            return searchSnapshot(snapshot, name, lat, lon, radius);
+        }
+
+        List<BusStop> candidates;
+        if (byLocation) {
+            // Bounding box first so the database can use it, exact distance afterwards
+            double dLat = radius / GeoUtils.metersPerDegreeLat();
+            double dLon = radius / GeoUtils.metersPerDegreeLon(lat);
+            candidates = stopRepository.findByLatBetweenAndLonBetween(lat - dLat, lat + dLat, lon - dLon, lon + dLon);
+        } else {
+            candidates = stopRepository.findByNameContainingIgnoreCase(name.trim());
+        }
+
+        return candidates.stream()
+                .filter(stop -> name == null || name.isBlank() || containsIgnoreCase(nameOf(stop), name.trim()))
+                .map(stop -> {
+                    BusStopResponse response = mapToResponse(stop);
+                    if (byLocation) {
+                        response.setDistanceFromUser(GeoUtils.haversineMeters(lat, lon, stop.getLat(), stop.getLon()));
+                    }
+                    return response;
+                })
+                .filter(response -> !byLocation || response.getDistanceFromUser() <= radius)
+                .sorted(byLocation ? Comparator.comparing(BusStopResponse::getDistanceFromUser) : (a, b) -> 0)
+                .collect(Collectors.toList());
+    }
+
+    public List<BusStopResponse> getStopsInBounds(Double minLat, Double maxLat, Double minLon, Double maxLon) {
+        return getStopsInBounds(minLat, maxLat, minLon, maxLon, null);
+    }
+
+    /**
+     * Stops in a bounding box; with a field selection only the matching columns are queried
+     */
+    public List<BusStopResponse> getStopsInBounds(Double minLat, Double maxLat, Double minLon, Double maxLon, Set<String> fields) {
+        if (minLat > maxLat || minLon > maxLon) {
+            throw new ValidationException("Invalid bounds: min values must not exceed max values");
+        }
+        NetworkSnapshot snapshot = networkSnapshotService.forStops();
+        if (snapshot != null) {
+            List<BusStopResponse> stops = new ArrayList<>();
+            for (int stop = snapshot.firstAtOrAbove(minLat); stop < snapshot.stopCount() && snapshot.lat[stop] <= maxLat; stop++) {
+                if (snapshot.lon[stop] >= minLon && snapshot.lon[stop] <= maxLon) {
+                    stops.add(mapToResponse(snapshot, stop, fields));
+                }
+            }
+            return stops;
+        }
+        if (fields != null) {
+            return stopRepository.findColumnsInBounds(columnsFor(fields), minLat, maxLat, minLon, maxLon).stream()
+                    .map(row -> mapToSparseResponse(row, fields))
+                    .collect(Collectors.toList());
+        }
+        return stopRepository.findByLatBetweenAndLonBetween(minLat, maxLat, minLon, maxLon).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Route ids of all routes serving a stop
+     */
+    public List<String> getRoutesServingStop(Long stopId) {
+        NetworkSnapshot snapshot = networkSnapshotService.forStops();
+        if (snapshot != null ? snapshot.indexOf(stopId) < 0 : !stopRepository.existsById(stopId)) {
+            throw new ResourceNotFoundException("Bus Stop", stopId);
+        }
+        return stopRouteIndex.getRouteIds(stopId);
+    }
+
+    private BusStopResponse mapToResponse(BusStop stop) {
+        return BusStopResponse.builder()
+                .id(stop.getId())
+                .name(nameOf(stop))
+                .latitude(stop.getLat())
+                .longitude(stop.getLon())
+                .bench(stop.getBench() != null ? stop.getBench() : stop.getTag() != null ? stop.getTag().getBench() : null)
+                .shelter(stop.getShelter() != null ? stop.getShelter() : stop.getTag() != null ? stop.getTag().getShelter() : null)
+                .routeCount(stopRouteIndex.getRouteCount(stop.getId()))
+                .build();
+    }
+
+    private List<BusStopResponse> searchSnapshot(NetworkSnapshot snapshot, String name, Double lat, Double lon, Double radius) {
+        String part = name == null || name.isBlank() ? null : name.trim().toLowerCase();
+        List<BusStopResponse> results = new ArrayList<>();
+        if (lat != null && lon != null) {
+            double dLat = radius / GeoUtils.metersPerDegreeLat();
+            for (int stop = snapshot.firstAtOrAbove(lat - dLat); stop < snapshot.stopCount() && snapshot.lat[stop] <= lat + dLat; stop++) {
+                if (part != null && !containsLowerCase(snapshot.name(stop), part)) {
+                    continue;
+                }
+                double distance = GeoUtils.haversineMeters(lat, lon, snapshot.lat[stop], snapshot.lon[stop]);
+                if (distance <= radius) {
+                    BusStopResponse response = mapToResponse(snapshot, stop, null);
+                    response.setDistanceFromUser(distance);
+                    results.add(response);
+                }
+            }
+            results.sort(Comparator.comparing(BusStopResponse::getDistanceFromUser));
+        } else {
+            for (int stop = 0; stop < snapshot.stopCount(); stop++) {
+                if (containsLowerCase(snapshot.name(stop), part)) {
+                    results.add(mapToResponse(snapshot, stop, null));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Response for a snapshot stop; with a field selection only the selected fields are set
+     */
+    private BusStopResponse mapToResponse(NetworkSnapshot snapshot, int stop, Set<String> fields) {
+        long id = snapshot.stopIds[stop];
+        BusStopResponse.BusStopResponseBuilder builder = BusStopResponse.builder().id(id);
+        if (fields == null || fields.contains("name")) builder.name(snapshot.name(stop));
+        if (fields == null || fields.contains("latitude")) builder.latitude(snapshot.lat[stop]);
+        if (fields == null || fields.contains("longitude")) builder.longitude(snapshot.lon[stop]);
+        if (fields == null || fields.contains("bench")) builder.bench(snapshot.bench(stop));
+        if (fields == null || fields.contains("shelter")) builder.shelter(snapshot.shelter(stop));
+        if (fields == null || fields.contains("routeCount")) {
+            // The index follows writes synchronously but is built with the other indexes; a snapshot with
+            // every route change in it is as accurate and also available from the snapshot file
+            builder.routeCount(snapshot == networkSnapshotService.forRoutes()
+                    ? snapshot.stopRouteCounts[stop] : stopRouteIndex.getRouteCount(id));
+        }
+        return builder.build();
+    }
+
+    // Response field -> BusStop attribute; the id is always selected for route counts and cursors
+    private static List<String> columnsFor(Set<String> fields) {
+        List<String> columns = new ArrayList<>();
+        columns.add("id");
+        SPARSE_COLUMNS.forEach((field, column) -> {
+            if (fields.contains(field)) {
+                columns.add(column);
+            }
+        });
+        return columns;
+    }
+
+    private BusStopResponse mapToSparseResponse(Tuple row, Set<String> fields) {
+        Long id = row.get("id", Long.class);
+        BusStopResponse.BusStopResponseBuilder builder = BusStopResponse.builder().id(id);
+        if (fields.contains("name")) builder.name(row.get("name", String.class));
+        if (fields.contains("latitude")) builder.latitude(row.get("lat", Double.class));
+        if (fields.contains("longitude")) builder.longitude(row.get("lon", Double.class));
+        if (fields.contains("bench")) builder.bench(row.get("bench", String.class));
+        if (fields.contains("shelter")) builder.shelter(row.get("shelter", String.class));
+        if (fields.contains("routeCount")) builder.routeCount(stopRouteIndex.getRouteCount(id));
+        return builder.build();
+    }
+
+    private String nameOf(BusStop stop) {
+        if (stop.getName() != null) {
+            return stop.getName();
+        }
+        return stop.getTag() != null ? stop.getTag().getName() : null;
+    }
+
+    private boolean containsIgnoreCase(String value, String part) {
+        return value != null && value.toLowerCase().contains(part.toLowerCase());
+    }
+
+    private static boolean containsLowerCase(String value, String lowerCasePart) {
+        return value != null && value.toLowerCase().contains(lowerCasePart);
+    }
 }
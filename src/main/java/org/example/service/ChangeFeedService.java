@@ -0,0 +1,296 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ChangeFeedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.event.StopsImportedEvent;
+import org.example.event.StopsMergedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events feed of committed route and stop changes.
+ *
+ * Changes are collected per key and flushed every coalesce window, so a burst of edits to one
+ * route reaches clients as a single event. Flushed events get a monotonically increasing offset
+ * and are kept in a bounded history, which lets reconnecting clients resume from Last-Event-ID.
+ * Event ids are "epoch:offset", the epoch being a random id of this process: offsets restart with
+ * the process and differ between instances, so a client resuming with another epoch gets a reset.
+ * Each client has a bounded buffer; a client that falls behind gets a "reset" event telling it
+ * to re-fetch everything instead of stalling the feed. Idle clients hold no thread.
+ */
+@Slf4j
+@Service
+public class ChangeFeedService {
+
+    private static final String RESET_EVENT = "reset";
+    private static final String CHANGE_EVENT = "change";
+
+    private final int historySize;
+    private final int clientBufferSize;
+    private final long emitterTimeoutMs;
+
+    // Changes of the current coalesce window, keyed by entity and id
+    private final Map<String, ChangeFeedEvent> pending = new LinkedHashMap<>();
+
+    // Guarded by historyLock, together with client registration so replay and live delivery never leave a gap
+    private final Object historyLock = new Object();
+    private final ArrayDeque<ChangeFeedEvent> history = new ArrayDeque<>();
+    private final Set<FeedClient> clients = ConcurrentHashMap.newKeySet();
+    private long lastOffset = 0;
+
+    private final ExecutorService deliveryExecutor;
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    public ChangeFeedService(@Value("${busroute.feed.history-size:1024}") int historySize,
+                             @Value("${busroute.feed.client-buffer:256}") int clientBufferSize,
+                             @Value("${busroute.feed.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                             @Value("${busroute.feed.delivery-threads:4}") int deliveryThreads) {
+        this.historySize = historySize;
+        this.clientBufferSize = clientBufferSize;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, r -> {
+            Thread thread = new Thread(r, "change-feed-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        record("route", event.getRouteId(), event.getType().name());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStopsImported(StopsImportedEvent event) {
+        record("stops", null, "IMPORTED");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStopsMerged(StopsMergedEvent event) {
+        record("stops", String.valueOf(event.getKeptStopId()), "MERGED");
+    }
+
+    /**
+     * Open a feed for one client, replaying everything after the given position ("epoch:offset", as sent
+     * in the event ids) when it is still retained
+     */
+    public SseEmitter subscribe(String lastSeenPosition) {
+        return subscribe(lastSeenPosition, new SseEmitter(emitterTimeoutMs));
+    }
+
+    SseEmitter subscribe(String lastSeenPosition, SseEmitter emitter) {
+        FeedClient client = new FeedClient(emitter);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(e -> clients.remove(client));
+
+        Long lastSeenOffset = offsetOf(lastSeenPosition);
+        synchronized (historyLock) {
+            if (lastSeenPosition != null && lastSeenOffset == null) {
+                // Another instance or an earlier run of this one, its offsets mean nothing here
+                client.overflowed = true;
+            } else if (lastSeenOffset != null && lastSeenOffset != lastOffset) {
+                ChangeFeedEvent oldest = history.peekFirst();
+                // Offsets behind the history are lost
+                if (lastSeenOffset > lastOffset || oldest == null || lastSeenOffset < oldest.getOffset() - 1) {
+                    client.overflowed = true;
+                } else {
+                    for (ChangeFeedEvent event : history) {
+                        if (event.getOffset() > lastSeenOffset) {
+                            client.offer(event);
+                        }
+                    }
+                }
+            }
+            clients.add(client);
+        }
+        client.scheduleDrain();
+        return emitter;
+    }
+
+    public long getLastOffset() {
+        synchronized (historyLock) {
+            return lastOffset;
+        }
+    }
+
+    /**
+     * Position of the last flushed event, as sent in the event ids
+     */
+    public String getPosition() {
+        return position(getLastOffset());
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Scheduled(fixedDelayString = "${busroute.feed.coalesce-ms:250}")
+    public void flush() {
+        List<ChangeFeedEvent> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+
+        synchronized (historyLock) {
+            for (ChangeFeedEvent event : batch) {
+                event.setOffset(++lastOffset);
+                history.addLast(event);
+                if (history.size() > historySize) {
+                    history.removeFirst();
+                }
+                for (FeedClient client : clients) {
+                    client.offer(event);
+                }
+            }
+        }
+        for (FeedClient client : clients) {
+            client.scheduleDrain();
+        }
+        log.debug("Flushed {} change events to {} clients", batch.size(), clients.size());
+    }
+
+    @Scheduled(fixedRateString = "${busroute.feed.heartbeat-ms:30000}")
+    public void heartbeat() {
+        // Keeps proxies from closing idle streams and detects dead connections
+        for (FeedClient client : clients) {
+            client.heartbeatDue = true;
+            client.scheduleDrain();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
+        for (FeedClient client : clients) {
+            client.emitter.complete();
+        }
+        clients.clear();
+    }
+
+    private void record(String entity, String id, String type) {
+        String key = entity + ":" + id;
+        synchronized (pending) {
+            ChangeFeedEvent previous = pending.get(key);
+            String merged = previous == null ? type : mergeTypes(previous.getType(), type);
+            pending.put(key, ChangeFeedEvent.builder()
+                    .entity(entity)
+                    .id(id)
+                    .type(merged)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private String position(long offset) {
+        return epoch + ":" + offset;
+    }
+
+    /**
+     * Offset of a position of this epoch, null for none or for a position of another epoch
+     */
+    private Long offsetOf(String position) {
+        if (position == null) {
+            return null;
+        }
+        int colon = position.indexOf(':');
+        if (colon < 0 || !position.substring(0, colon).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(position.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String mergeTypes(String earlier, String later) {
+        if ("DELETED".equals(later)) return "DELETED";
+        if ("CREATED".equals(earlier)) return "CREATED";
+        if ("DELETED".equals(earlier)) return "UPDATED";
+        return later;
+    }
+
+    private final class FeedClient {
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeFeedEvent> buffer = new LinkedBlockingQueue<>(clientBufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean heartbeatDue;
+
+        FeedClient(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(ChangeFeedEvent event) {
+            if (!buffer.offer(event)) {
+                // Too far behind, the client has to re-fetch anyway so drop what is buffered
+                buffer.clear();
+                overflowed = true;
+            }
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    deliveryExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    buffer.clear();
+                    long offset = getLastOffset();
+                    emitter.send(SseEmitter.event()
+                            .id(position(offset))
+                            .name(RESET_EVENT)
+                            .data(Map.of("offset", offset, "position", position(offset)), MediaType.APPLICATION_JSON));
+                }
+                ChangeFeedEvent event;
+                while ((event = buffer.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(position(event.getOffset()))
+                            .name(CHANGE_EVENT)
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                if (heartbeatDue) {
+                    heartbeatDue = false;
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping change feed client: {}", e.getMessage());
+                clients.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if ((!buffer.isEmpty() || overflowed) && clients.contains(this)) {
+                scheduleDrain();
+            }
+        }
+    }
+}
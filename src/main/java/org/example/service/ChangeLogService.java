@@ -0,0 +1,182 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.DataLoadedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.event.StopsMergedEvent;
+import org.example.model.ChangeLogEntry;
+import org.example.repository.ChangeLogRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the in-memory state of several instances sharing one database coherent.
+ *
+ * Route writes and stop merges append a change_log row in their own transaction, so the row commits
+ * exactly when the write does. Every instance polls the table by primary key for rows after the last one
+ * it saw and republishes those written by other instances as remote RouteChangedEvents and
+ * StopsMergedEvents, which the caches and indexes already handle for local writes.
+ *
+ * Ids are assigned at insert but rows become visible at commit, so a lower id can appear after a higher
+ * one was read. Skipped ids are remembered and looked up again on every poll until they show up or the
+ * gap timeout passes (rolled-back inserts leave permanent gaps).
+ */
+@Slf4j
+@Service
+public class ChangeLogService {
+
+    private static final String ROUTE = "route";
+    private static final String STOP = "stop";
+    private static final String MERGED = "MERGED";
+    private static final int MAX_GAPS = 10_000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String instanceId;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+    private final long retentionHours;
+
+    // Written by the poller only, after the start position is taken
+    private volatile long lastSeenId = -1;
+    private final Map<Long, Long> gaps = new HashMap<>();     // id -> when it was first skipped
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${busroute.coherence.instance-id:}") String instanceId,
+                            @Value("${busroute.coherence.batch-size:500}") int batchSize,
+                            @Value("${busroute.coherence.gap-timeout-ms:60000}") long gapTimeoutMs,
+                            @Value("${busroute.coherence.retention-hours:24}") long retentionHours) {
+        this.changeLogRepository = changeLogRepository;
+        this.eventPublisher = eventPublisher;
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Append the change in the writing transaction; remote changes were logged by their origin
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        append(ROUTE, event.getRouteId(), event.getType().name(), event.getStopIds());
+    }
+
+    /**
+     * Append the merge in the merging transaction: the kept stop with the stops merged into it
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStopsMerged(StopsMergedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        append(STOP, String.valueOf(event.getKeptStopId()), MERGED, event.getMergedStopIds());
+    }
+
+    /**
+     * Start tailing after the last change present when the indexes are built from the database; runs
+     * before the index builders, so a change committed in between is at worst applied twice
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(DataLoadedEvent.class)
+    public void startTailing() {
+        lastSeenId = changeLogRepository.findMaxId();
+        log.info("Instance {} tailing the change log after id {}", instanceId, lastSeenId);
+    }
+
+    @Scheduled(fixedDelayString = "${busroute.coherence.poll-ms:1000}")
+    public void poll() {
+        long after = lastSeenId;
+        if (after < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        if (!gaps.isEmpty()) {
+            for (ChangeLogEntry late : changeLogRepository.findByIdIn(gaps.keySet())) {
+                gaps.remove(late.getId());
+                entries.add(late);
+            }
+            gaps.values().removeIf(since -> now - since > gapTimeoutMs);
+        }
+
+        List<ChangeLogEntry> batch = changeLogRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(batchSize));
+        for (ChangeLogEntry entry : batch) {
+            for (long skipped = after + 1; skipped < entry.getId() && gaps.size() < MAX_GAPS; skipped++) {
+                gaps.put(skipped, now);
+            }
+            after = entry.getId();
+            entries.add(entry);
+        }
+        lastSeenId = after;
+
+        entries.sort(Comparator.comparing(ChangeLogEntry::getId));
+        int applied = 0;
+        for (ChangeLogEntry entry : entries) {
+            if (instanceId.equals(entry.getOrigin())) {
+                continue;
+            }
+            if (ROUTE.equals(entry.getEntityType())) {
+                eventPublisher.publishEvent(new RouteChangedEvent(entry.getEntityId(),
+                        RouteChangedEvent.ChangeType.valueOf(entry.getChangeType()), stopIdsOf(entry), true));
+                applied++;
+            } else if (STOP.equals(entry.getEntityType()) && MERGED.equals(entry.getChangeType())) {
+                eventPublisher.publishEvent(new StopsMergedEvent(Long.parseLong(entry.getEntityId()), stopIdsOf(entry), true));
+                applied++;
+            }
+        }
+        if (applied > 0) {
+            log.debug("Applied {} changes from other instances up to change log id {}", applied, after);
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${busroute.coherence.cleanup-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = changeLogRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Deleted {} change log entries older than {} hours", deleted, retentionHours);
+        }
+    }
+
+    private void append(String entityType, String entityId, String changeType, List<Long> stopIds) {
+        ChangeLogEntry entry = new ChangeLogEntry();
+        entry.setEntityType(entityType);
+        entry.setEntityId(entityId);
+        entry.setChangeType(changeType);
+        entry.setStopIds(stopIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        entry.setOrigin(instanceId);
+        entry.setCreatedAt(LocalDateTime.now());
+        changeLogRepository.save(entry);
+    }
+
+    private static List<Long> stopIdsOf(ChangeLogEntry entry) {
+        if (entry.getStopIds() == null || entry.getStopIds().isEmpty()) {
+            return List.of();
+        }
+        return Arrays.stream(entry.getStopIds().split(",")).map(Long::valueOf).toList();
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.service;
+
+import org.example.dtos.TimetableRow;
+import org.example.repository.FrequencyRepository.FrequencyRow;
+import org.example.util.LongIntHashMap;
+import org.example.util.ServiceTimes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every scheduled departure of the network, grouped by stop.
+ *
+ * Frequency windows are expanded into trips here, so the database holds one set of running times per
+ * route whatever its headway. Trip t belongs to route tripRoute[t] and leaves the first stop at
+ * tripStart[t]. The departures of stop slot s are departureSeconds[slotStart[s] .. slotStart[s + 1]),
+ * ascending, with the trip of each in departureTrip at the same position; a departure board is a binary
+ * search into that range. Times are seconds since midnight of the service day and run past 24:00 for
+ * trips after midnight. The last stop of a route is not a departure and is left out.
+ */
+class DepartureIndex {
+
+    final String[] routeIds;
+    final String[] headsigns;
+    final int[] tripRoute;
+    final int[] tripStart;
+
+    final long[] stopIds;
+    final String[] stopNames;
+    final int[] slotStart;
+    final int[] departureSeconds;
+    final int[] departureTrip;
+
+    private final LongIntHashMap stopSlots;
+
+    private DepartureIndex(String[] routeIds, String[] headsigns, int[] tripRoute, int[] tripStart, long[] stopIds,
+                           String[] stopNames, int[] slotStart, int[] departureSeconds, int[] departureTrip,
+                           LongIntHashMap stopSlots) {
+        this.routeIds = routeIds;
+        this.headsigns = headsigns;
+        this.tripRoute = tripRoute;
+        this.tripStart = tripStart;
+        this.stopIds = stopIds;
+        this.stopNames = stopNames;
+        this.slotStart = slotStart;
+        this.departureSeconds = departureSeconds;
+        this.departureTrip = departureTrip;
+        this.stopSlots = stopSlots;
+    }
+
+    static DepartureIndex empty() {
+        return new DepartureIndex(new String[0], new String[0], new int[0], new int[0], new long[0], new String[0],
+                new int[1], new int[0], new int[0], new LongIntHashMap());
+    }
+
+    /**
+     * @param rows        stops of every route with their times, ordered by route and sequence
+     * @param frequencies service windows, any order
+     * @param estimator   running times of routes whose stops have no times yet
+     */
+    static DepartureIndex build(List<TimetableRow> rows, List<FrequencyRow> frequencies, RunningTimes estimator) {
+        Map<String, List<FrequencyRow>> windows = new HashMap<>();
+        for (FrequencyRow frequency : frequencies) {
+            windows.computeIfAbsent(frequency.getRouteId(), k -> new ArrayList<>()).add(frequency);
+        }
+
+        List<String> routeIds = new ArrayList<>();
+        List<String> headsigns = new ArrayList<>();
+        List<int[]> routeStops = new ArrayList<>();     // stop slots in sequence
+        List<int[]> routeTimes = new ArrayList<>();     // departure at each stop, first stop at its absolute time
+        IntList tripRoute = new IntList();
+        IntList tripStart = new IntList();
+
+        LongIntHashMap stopSlots = new LongIntHashMap(4096);
+        List<Long> stopIds = new ArrayList<>();
+        List<String> stopNames = new ArrayList<>();
+
+        int from = 0;
+        while (from < rows.size()) {
+            String routeId = rows.get(from).getRouteId();
+            int to = from;
+            while (to < rows.size() && rows.get(to).getRouteId().equals(routeId)) {
+                to++;
+            }
+            List<TimetableRow> stops = rows.subList(from, to);
+            from = to;
+
+            List<FrequencyRow> routeWindows = windows.getOrDefault(routeId, List.of());
+            int[] times = timesOf(stops, estimator);
+            if (stops.size() < 2 || times == null || (routeWindows.isEmpty() && stops.get(0).getDepartureTime() == null)) {
+                continue;       // no schedule: neither explicit times nor frequencies
+            }
+
+            int route = routeIds.size();
+            int[] slots = new int[stops.size()];
+            for (int i = 0; i < slots.length; i++) {
+                TimetableRow row = stops.get(i);
+                int slot = stopSlots.get(row.getStopId(), -1);
+                if (slot < 0) {
+                    slot = stopIds.size();
+                    stopSlots.put(row.getStopId(), slot);
+                    stopIds.add(row.getStopId());
+                    stopNames.add(row.getName());
+                }
+                slots[i] = slot;
+            }
+            routeIds.add(routeId);
+            headsigns.add(stops.get(stops.size() - 1).getName());
+            routeStops.add(slots);
+            routeTimes.add(times);
+
+            if (routeWindows.isEmpty()) {
+                tripRoute.add(route);
+                tripStart.add(times[0]);
+            } else {
+                for (FrequencyRow window : routeWindows) {
+                    for (int start = window.getStartTime(); start < window.getEndTime(); start += window.getHeadwaySecs()) {
+                        tripRoute.add(route);
+                        tripStart.add(start);
+                    }
+                }
+            }
+        }
+
+        // Count departures per slot, fill, then sort each slot by time
+        int slotCount = stopIds.size();
+        int[] slotStart = new int[slotCount + 1];
+        for (int t = 0; t < tripRoute.size; t++) {
+            int[] slots = routeStops.get(tripRoute.values[t]);
+            for (int i = 0; i < slots.length - 1; i++) {
+                slotStart[slots[i] + 1]++;
+            }
+        }
+        for (int s = 0; s < slotCount; s++) {
+            slotStart[s + 1] += slotStart[s];
+        }
+        long[] packed = new long[slotStart[slotCount]];
+        int[] fill = Arrays.copyOf(slotStart, slotCount);
+        for (int t = 0; t < tripRoute.size; t++) {
+            int route = tripRoute.values[t];
+            int[] slots = routeStops.get(route);
+            int[] times = routeTimes.get(route);
+            int shift = tripStart.values[t] - times[0];
+            for (int i = 0; i < slots.length - 1; i++) {
+                packed[fill[slots[i]]++] = ((long) (times[i] + shift) << 32) | t;
+            }
+        }
+        int[] departureSeconds = new int[packed.length];
+        int[] departureTrip = new int[packed.length];
+        for (int s = 0; s < slotCount; s++) {
+            Arrays.sort(packed, slotStart[s], slotStart[s + 1]);
+        }
+        for (int k = 0; k < packed.length; k++) {
+            departureSeconds[k] = (int) (packed[k] >>> 32);
+            departureTrip[k] = (int) packed[k];
+        }
+
+        long[] ids = new long[slotCount];
+        for (int s = 0; s < slotCount; s++) {
+            ids[s] = stopIds.get(s);
+        }
+        return new DepartureIndex(routeIds.toArray(new String[0]), headsigns.toArray(new String[0]),
+                tripRoute.toArray(), tripStart.toArray(), ids, stopNames.toArray(new String[0]),
+                slotStart, departureSeconds, departureTrip, stopSlots);
+    }
+
+    /**
+     * Departure time at every stop, estimated when any stop has none; null when times go backwards
+     */
+    private static int[] timesOf(List<TimetableRow> stops, RunningTimes estimator) {
+        int[] times = new int[stops.size()];
+        for (int i = 0; i < times.length; i++) {
+            Integer departure = stops.get(i).getDepartureTime();
+            if (departure == null) {
+                double[] lat = new double[times.length];
+                double[] lon = new double[times.length];
+                for (int k = 0; k < times.length; k++) {
+                    lat[k] = stops.get(k).getLat();
+                    lon[k] = stops.get(k).getLon();
+                }
+                int[] offsets = estimator.departureOffsets(lat, lon);
+                Integer first = stops.get(0).getDepartureTime();
+                for (int k = 0; k < times.length; k++) {
+                    times[k] = offsets[k] + (first != null ? first : 0);
+                }
+                return times;
+            }
+            if (i > 0 && departure < times[i - 1]) {
+                return null;
+            }
+            times[i] = departure;
+        }
+        return times;
+    }
+
+    int slotOf(long stopId) {
+        return stopSlots.get(stopId, -1);
+    }
+
+    int tripCount() {
+        return tripRoute.length;
+    }
+
+    int departureCount() {
+        return departureSeconds.length;
+    }
+
+    /**
+     * Position of the first departure of the slot at or after the time, slotStart[slot + 1] when none
+     */
+    int lowerBound(int slot, int seconds) {
+        int low = slotStart[slot];
+        int high = slotStart[slot + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureSeconds[mid] < seconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The next departures of the slot at or after a clock time, taking trips of yesterday's service day
+     * still running after midnight and, once today's are used up, tomorrow's
+     *
+     * @return positions into departureSeconds/departureTrip, with the service-day offset of each in dayOffsets
+     */
+    int[] next(int slot, int clockSeconds, int limit, int[] dayOffsets) {
+        int end = slotStart[slot + 1];
+        int[] cursor = new int[3];
+        for (int d = 0; d < 3; d++) {
+            cursor[d] = lowerBound(slot, clockSeconds - (d - 1) * ServiceTimes.DAY_SECONDS);
+        }
+        int[] positions = new int[limit];
+        int found = 0;
+        while (found < limit) {
+            int best = -1;
+            long bestTime = Long.MAX_VALUE;
+            for (int d = 0; d < 3; d++) {
+                if (cursor[d] < end) {
+                    long time = departureSeconds[cursor[d]] + (long) (d - 1) * ServiceTimes.DAY_SECONDS;
+                    if (time < bestTime) {
+                        bestTime = time;
+                        best = d;
+                    }
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            positions[found] = cursor[best]++;
+            dayOffsets[found] = (best - 1) * ServiceTimes.DAY_SECONDS;
+            found++;
+        }
+        return Arrays.copyOf(positions, found);
+    }
+
+    /**
+     * Running times of a route from the positions of its stops
+     */
+    interface RunningTimes {
+        int[] departureOffsets(double[] lat, double[] lon);
+    }
+
+    private static final class IntList {
+        int[] values = new int[1024];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
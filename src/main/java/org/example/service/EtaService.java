@@ -0,0 +1,195 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.ArrivalPrediction;
+import org.example.dtos.RouteStopView;
+import org.example.event.RouteChangedEvent;
+import org.example.model.VehiclePosition;
+import org.example.repository.RouteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Arrival-time predictions from live vehicle positions.
+ *
+ * Every accepted position is snapped onto its route's segment index, which turns it into a
+ * distance along the route. Consecutive snaps of a vehicle give its recent speed (smoothed),
+ * and the arrival at a downstream stop is the remaining distance divided by that speed.
+ * Segment indexes are built off the ingest thread the first time a route reports. The route is
+ * read outside the index map, and an index built while its route changed is used but not cached.
+ */
+@Slf4j
+@Service
+public class EtaService implements VehiclePositionListener {
+
+    private static final double SPEED_SMOOTHING = 0.3;
+    private static final double MAX_PLAUSIBLE_SPEED_MPS = 40.0;
+
+    private final RouteRepository routeRepository;
+    private final StopRouteIndex stopRouteIndex;
+    private final double maxSnapMeters;
+    private final double defaultSpeedMps;
+    private final long maxAgeMs;
+
+    private final ConcurrentHashMap<String, RouteSegmentIndex> indexes = new ConcurrentHashMap<>();
+    private final RouteGenerations generations = new RouteGenerations();
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, VehicleTrack>> tracks = new ConcurrentHashMap<>();
+    private final ExecutorService indexLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "eta-index-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EtaService(RouteRepository routeRepository,
+                      StopRouteIndex stopRouteIndex,
+                      @Value("${busroute.eta.max-snap-meters:150}") double maxSnapMeters,
+                      @Value("${busroute.eta.default-speed-mps:6.0}") double defaultSpeedMps,
+                      @Value("${busroute.vehicles.max-age-ms:120000}") long maxAgeMs) {
+        this.routeRepository = routeRepository;
+        this.stopRouteIndex = stopRouteIndex;
+        this.maxSnapMeters = Math.min(maxSnapMeters, RouteSegmentIndex.CELL_SIZE_METERS);
+        this.defaultSpeedMps = defaultSpeedMps;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    @Override
+    public void onPosition(VehiclePosition position) {
+        RouteSegmentIndex index = indexes.get(position.getRouteId());
+        if (index == null) {
+            scheduleIndexLoad(position.getRouteId());
+            return;
+        }
+        tracks.computeIfAbsent(position.getRouteId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(position.getVehicleId(), id -> new VehicleTrack())
+                .update(index, position);
+    }
+
+    /**
+     * Upcoming arrivals at a stop over all routes serving it, soonest first
+     */
+    public List<ArrivalPrediction> getArrivals(Long stopId, int limit) {
+        long now = System.currentTimeMillis();
+        List<ArrivalPrediction> predictions = new ArrayList<>();
+        for (String routeId : stopRouteIndex.getRouteIds(stopId)) {
+            Map<String, VehicleTrack> vehicles = tracks.get(routeId);
+            if (vehicles == null || vehicles.isEmpty()) {
+                continue;
+            }
+            RouteSegmentIndex index = getOrLoadIndex(routeId);
+            for (int i = 0; i < index.stopCount(); i++) {
+                if (index.stopIds[i] != stopId) {
+                    continue;
+                }
+                double stopAlong = index.cumulativeMeters[i];
+                for (Map.Entry<String, VehicleTrack> entry : vehicles.entrySet()) {
+                    ArrivalPrediction prediction = entry.getValue()
+                            .predict(routeId, entry.getKey(), stopId, index.sequences[i], stopAlong, now);
+                    if (prediction != null) {
+                        predictions.add(prediction);
+                    }
+                }
+            }
+        }
+        predictions.sort(Comparator.comparing(ArrivalPrediction::getEtaSeconds));
+        return predictions.size() > limit ? new ArrayList<>(predictions.subList(0, limit)) : predictions;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        // Distances along the old geometry are meaningless now
+        generations.bump(event.getRouteId());
+        indexes.remove(event.getRouteId());
+        tracks.remove(event.getRouteId());
+    }
+
+    @Scheduled(fixedDelayString = "${busroute.eta.cleanup-ms:60000}")
+    public void evictStaleVehicles() {
+        long cutoff = System.currentTimeMillis() - maxAgeMs;
+        tracks.values().forEach(vehicles -> vehicles.values().removeIf(track -> track.lastTimestamp < cutoff));
+        tracks.values().removeIf(Map::isEmpty);
+    }
+
+    private void scheduleIndexLoad(String routeId) {
+        if (loading.add(routeId)) {
+            indexLoader.execute(() -> {
+                try {
+                    getOrLoadIndex(routeId);
+                } catch (RuntimeException e) {
+                    log.warn("Could not build segment index for route {}: {}", routeId, e.getMessage());
+                } finally {
+                    loading.remove(routeId);
+                }
+            });
+        }
+    }
+
+    private RouteSegmentIndex getOrLoadIndex(String routeId) {
+        RouteSegmentIndex index = indexes.get(routeId);
+        if (index != null) {
+            return index;
+        }
+        long generation = generations.begin(routeId);
+        List<RouteStopView> stops = routeRepository.findRouteStopsWithIds(routeId);
+        return generations.putIfUnchanged(indexes, routeId, generation, new RouteSegmentIndex(routeId, stops));
+    }
+
+    private final class VehicleTrack {
+        private int segment = -1;
+        private double along = Double.NaN;
+        private double speed = Double.NaN;
+        private volatile long lastTimestamp;
+        private final int[] segmentOut = new int[1];
+
+        synchronized void update(RouteSegmentIndex index, VehiclePosition position) {
+            double snapped = index.snap(position.getLat(), position.getLon(), segment, maxSnapMeters, segmentOut);
+            if (Double.isNaN(snapped) || position.getTimestamp() <= lastTimestamp) {
+                return;
+            }
+            if (!Double.isNaN(along)) {
+                double seconds = (position.getTimestamp() - lastTimestamp) / 1000.0;
+                double observed = (snapped - along) / seconds;
+                // Ignore reversals and GPS jumps, they say nothing about the speed ahead
+                if (observed >= 0 && observed <= MAX_PLAUSIBLE_SPEED_MPS) {
+                    speed = Double.isNaN(speed) ? observed : SPEED_SMOOTHING * observed + (1 - SPEED_SMOOTHING) * speed;
+                }
+            }
+            if (Double.isNaN(speed) && position.getSpeed() > 0) {
+                speed = position.getSpeed();
+            }
+            segment = segmentOut[0];
+            along = snapped;
+            lastTimestamp = position.getTimestamp();
+        }
+
+        synchronized ArrivalPrediction predict(String routeId, String vehicleId, Long stopId, int sequence,
+                                               double stopAlong, long now) {
+            if (Double.isNaN(along) || along > stopAlong || now - lastTimestamp > maxAgeMs) {
+                return null;
+            }
+            double metersPerSecond = Double.isNaN(speed) || speed < 0.5 ? defaultSpeedMps : speed;
+            double remaining = stopAlong - along;
+            long sinceReport = (now - lastTimestamp) / 1000;
+            long eta = Math.max(0, Math.round(remaining / metersPerSecond) - sinceReport);
+            return ArrivalPrediction.builder()
+                    .routeId(routeId)
+                    .vehicleId(vehicleId)
+                    .stopId(stopId)
+                    .stopSequence(sequence)
+                    .distanceMeters(Math.round(remaining * 10) / 10.0)
+                    .etaSeconds(eta)
+                    .expectedArrival(LocalDateTime.ofInstant(Instant.ofEpochMilli(now + eta * 1000), ZoneId.systemDefault()))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.IsochroneResponse;
+import org.example.dtos.ReachableStop;
+import org.example.exception.ResourceNotFoundException;
+import org.example.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reachability ("isochrone") queries over the network graph.
+ *
+ * Modes:
+ * - STOPS: breadth-first search over route edges, cost = number of stops ridden
+ * - TRANSFERS: frontier search over routes, cost = number of transfers; riding on along a route is free
+ * - MINUTES: Dijkstra over edge lengths at an assumed speed
+ *
+ * Each search works on primitive arrays sized to the network. Multi-origin queries run one search per
+ * origin on a fork-join pool and merge the per-stop minimum cost.
+ */
+@Slf4j
+@Service
+public class IsochroneService {
+
+    public enum Mode { STOPS, TRANSFERS, MINUTES }
+
+    private static final int MAX_ORIGINS = 100;
+
+    private final NetworkGraphService networkGraphService;
+    private final ForkJoinPool pool;
+
+    public IsochroneService(NetworkGraphService networkGraphService,
+                            @Value("${busroute.isochrone.parallelism:0}") int parallelism) {
+        this.networkGraphService = networkGraphService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stops reachable from any of the origins within the limit, cheapest first
+     *
+     * @param limit     maximum cost in the unit of the mode
+     * @param speedKmh  assumed average speed, MINUTES mode only
+     */
+    public IsochroneResponse reachable(List<Long> originIds, String modeName, double limit, double speedKmh) {
+        Mode mode = parseMode(modeName);
+        if (originIds == null || originIds.isEmpty() || originIds.size() > MAX_ORIGINS) {
+            throw new ValidationException("Between 1 and " + MAX_ORIGINS + " origin stops are required");
+        }
+        if (limit < 0 || (mode == Mode.MINUTES && speedKmh <= 0)) {
+            throw new ValidationException("Limit must be positive and speed greater than zero");
+        }
+
+        NetworkGraph graph = networkGraphService.getGraph();
+        int[] origins = new int[originIds.size()];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = graph.indexOf(originIds.get(i));
+            if (origins[i] < 0) {
+                throw new ResourceNotFoundException("Bus Stop on any route", originIds.get(i));
+            }
+        }
+
+        long started = System.nanoTime();
+        double metersPerMinute = speedKmh * 1000.0 / 60.0;
+        double[] cost = origins.length == 1
+                ? search(graph, origins[0], mode, limit, metersPerMinute)
+                : pool.invoke(new MultiOriginSearch(graph, origins, 0, origins.length, mode, limit, metersPerMinute));
+        long micros = (System.nanoTime() - started) / 1000;
+
+        List<ReachableStop> stops = new ArrayList<>();
+        for (int s = 0; s < cost.length; s++) {
+            if (cost[s] <= limit) {
+                stops.add(ReachableStop.builder()
+                        .stopId(graph.stopIds[s])
+                        .latitude(graph.lat[s])
+                        .longitude(graph.lon[s])
+                        .cost(mode == Mode.MINUTES ? Math.round(cost[s] * 10) / 10.0 : cost[s])
+                        .build());
+            }
+        }
+        stops.sort((a, b) -> Double.compare(a.getCost(), b.getCost()));
+
+        return IsochroneResponse.builder()
+                .origins(originIds)
+                .mode(mode.name())
+                .limit(limit)
+                .reachableCount(stops.size())
+                .computeMicros(micros)
+                .stops(stops)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static Mode parseMode(String modeName) {
+        try {
+            return Mode.valueOf(modeName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ValidationException("Mode must be one of " + Arrays.toString(Mode.values()));
+        }
+    }
+
+    static double[] search(NetworkGraph graph, int origin, Mode mode, double limit, double metersPerMinute) {
+        return switch (mode) {
+            case STOPS -> byStops(graph, origin, (int) limit);
+            case TRANSFERS -> byTransfers(graph, origin, (int) limit);
+            case MINUTES -> byMinutes(graph, origin, limit, metersPerMinute);
+        };
+    }
+
+    private static double[] byStops(NetworkGraph graph, int origin, int maxStops) {
+        double[] cost = unreachable(graph.stopCount());
+        int[] queue = new int[graph.stopCount()];
+        int head = 0, tail = 0;
+        cost[origin] = 0;
+        queue[tail++] = origin;
+        while (head < tail) {
+            int stop = queue[head++];
+            double next = cost[stop] + 1;
+            if (next > maxStops) {
+                continue;
+            }
+            for (int e = graph.edgeStart[stop]; e < graph.edgeStart[stop + 1]; e++) {
+                int target = graph.edgeTarget[e];
+                if (cost[target] > next) {
+                    cost[target] = next;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return cost;
+    }
+
+    private static double[] byTransfers(NetworkGraph graph, int origin, int maxTransfers) {
+        double[] cost = unreachable(graph.stopCount());
+        // Earliest position at which each route has been boarded so far; later boardings add nothing new
+        int[] boardedAt = new int[graph.routeIds.length];
+        Arrays.fill(boardedAt, Integer.MAX_VALUE);
+
+        int[] frontier = {origin};
+        int frontierSize = 1;
+        cost[origin] = 0;
+        for (int transfers = 0; transfers <= maxTransfers && frontierSize > 0; transfers++) {
+            int[] next = new int[graph.stopCount()];
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++) {
+                int stop = frontier[f];
+                for (int k = graph.stopRouteStart[stop]; k < graph.stopRouteStart[stop + 1]; k++) {
+                    int route = graph.stopRoutes[k];
+                    int[] sequence = graph.routeStops[route];
+                    int position = firstPosition(sequence, stop);
+                    if (position >= boardedAt[route]) {
+                        continue;
+                    }
+                    int end = Math.min(boardedAt[route], sequence.length);
+                    boardedAt[route] = position;
+                    for (int i = position + 1; i < end; i++) {
+                        int target = sequence[i];
+                        if (cost[target] > transfers) {
+                            cost[target] = transfers;
+                            next[nextSize++] = target;
+                        }
+                    }
+                }
+            }
+            frontier = next;
+            frontierSize = nextSize;
+        }
+        return cost;
+    }
+
+    private static double[] byMinutes(NetworkGraph graph, int origin, double maxMinutes, double metersPerMinute) {
+        double[] cost = unreachable(graph.stopCount());
+        boolean[] settled = new boolean[graph.stopCount()];
+        IndexedMinHeap heap = new IndexedMinHeap(graph.stopCount());
+        cost[origin] = 0;
+        heap.push(origin, 0);
+        while (!heap.isEmpty()) {
+            int stop = heap.pop();
+            if (settled[stop]) {
+                continue;
+            }
+            settled[stop] = true;
+            for (int e = graph.edgeStart[stop]; e < graph.edgeStart[stop + 1]; e++) {
+                int target = graph.edgeTarget[e];
+                double candidate = cost[stop] + graph.edgeMeters[e] / metersPerMinute;
+                if (candidate <= maxMinutes && candidate < cost[target]) {
+                    cost[target] = candidate;
+                    heap.push(target, candidate);
+                }
+            }
+        }
+        return cost;
+    }
+
+    private static int firstPosition(int[] sequence, int stop) {
+        for (int i = 0; i < sequence.length; i++) {
+            if (sequence[i] == stop) {
+                return i;
+            }
+        }
+        return sequence.length;
+    }
+
+    private static double[] unreachable(int n) {
+        double[] cost = new double[n];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        return cost;
+    }
+
+    /**
+     * Splits the origins in halves until one remains, then merges per-stop minimum costs
+     */
+    private static final class MultiOriginSearch extends RecursiveTask<double[]> {
+        private final NetworkGraph graph;
+        private final int[] origins;
+        private final int from;
+        private final int to;
+        private final Mode mode;
+        private final double limit;
+        private final double metersPerMinute;
+
+        MultiOriginSearch(NetworkGraph graph, int[] origins, int from, int to, Mode mode, double limit, double metersPerMinute) {
+            this.graph = graph;
+            this.origins = origins;
+            this.from = from;
+            this.to = to;
+            this.mode = mode;
+            this.limit = limit;
+            this.metersPerMinute = metersPerMinute;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from == 1) {
+                return search(graph, origins[from], mode, limit, metersPerMinute);
+            }
+            int mid = (from + to) >>> 1;
+            MultiOriginSearch left = new MultiOriginSearch(graph, origins, from, mid, mode, limit, metersPerMinute);
+            MultiOriginSearch right = new MultiOriginSearch(graph, origins, mid, to, mode, limit, metersPerMinute);
+            left.fork();
+            double[] merged = right.compute();
+            double[] other = left.join();
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = Math.min(merged[i], other[i]);
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * Binary min-heap of (stop, cost) with lazy deletion; stale entries are skipped by the caller
+     */
+    private static final class IndexedMinHeap {
+        private int[] items;
+        private double[] keys;
+        private int size;
+
+        IndexedMinHeap(int capacity) {
+            items = new int[Math.max(16, capacity)];
+            keys = new double[items.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int item, double key) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) break;
+                items[i] = items[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            items[i] = item;
+            keys[i] = key;
+        }
+
+        int pop() {
+            int top = items[0];
+            int lastItem = items[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                items[i] = items[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            items[i] = lastItem;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
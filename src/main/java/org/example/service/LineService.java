@@ -0,0 +1,106 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.LineDirection;
+import org.example.dtos.LineResponse;
+import org.example.dtos.LineStop;
+import org.example.dtos.LineStopRow;
+import org.example.event.RouteChangedEvent;
+import org.example.exception.ResourceNotFoundException;
+import org.example.repository.RouteRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bus lines, i.e. both directions of a bus number (routes busNumber_0 and busNumber_1) as one unit.
+ *
+ * A line is read with one query by exact route ids and cached whole until one of its routes changes.
+ * Loads are coalesced, and a load that overlapped a route change is returned but not cached.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LineService {
+
+    private static final int[] DIRECTIONS = {0, 1};
+
+    private final RouteRepository routeRepository;
+    private final RequestCoalescer requestCoalescer;
+    private final ConcurrentHashMap<String, LineResponse> cache = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Every direction of the line with its stops
+     */
+    public LineResponse getLine(String busNumber) {
+        LineResponse line = cache.get(busNumber);
+        if (line != null) {
+            return line;
+        }
+        return requestCoalescer.execute(RequestCoalescer.LINE, busNumber, () -> {
+            long changesBefore = changes.get();
+            LineResponse loaded = load(busNumber);
+            if (changes.get() == changesBefore) {
+                cache.put(busNumber, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        changes.incrementAndGet();
+        cache.remove(busNumberOf(event.getRouteId()));
+    }
+
+    static String busNumberOf(String routeId) {
+        return routeId.split("_")[0];
+    }
+
+    private LineResponse load(String busNumber) {
+        List<String> routeIds = new ArrayList<>(DIRECTIONS.length);
+        for (int direction : DIRECTIONS) {
+            routeIds.add(busNumber + "_" + direction);
+        }
+        List<LineStopRow> rows = routeRepository.findLineStops(routeIds);
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Line", busNumber);
+        }
+
+        List<LineDirection> directions = new ArrayList<>();
+        int from = 0;
+        while (from < rows.size()) {
+            LineStopRow route = rows.get(from);
+            List<LineStop> stops = new ArrayList<>();
+            int to = from;
+            for (; to < rows.size() && rows.get(to).getRouteId().equals(route.getRouteId()); to++) {
+                LineStopRow row = rows.get(to);
+                if (row.getStopId() != null) {
+                    stops.add(new LineStop(row.getStopId(), row.getLat(), row.getLon(), row.getSequence(), row.getName()));
+                }
+            }
+            directions.add(LineDirection.builder()
+                    .routeId(route.getRouteId())
+                    .routeShortName(route.getRouteShortName())
+                    .routeLongName(route.getRouteLongName())
+                    .direction(route.getDirection())
+                    .description(route.getDescription())
+                    .version(route.getVersion())
+                    .stopCount(stops.size())
+                    .stops(stops)
+                    .build());
+            from = to;
+        }
+        log.debug("Loaded line {}: {} directions, {} rows", busNumber, directions.size(), rows.size());
+        return LineResponse.builder()
+                .busNumber(busNumber)
+                .directions(directions)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.service;
+
+import org.example.dtos.NetworkStopRow;
+import org.example.util.GeoUtils;
+import org.example.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable directed graph of the route network on primitive arrays.
+ *
+ * Stops are dense indexes 0..n-1. Every pair of consecutive stops of a route is an edge, stored in
+ * CSR layout (edges of stop s are edgeTarget[edgeStart[s] .. edgeStart[s + 1])). Routes keep their
+ * stop sequence as an index array, and stopRoutes lists the routes calling at each stop.
+ */
+class NetworkGraph {
+
+    final long[] stopIds;
+    final double[] lat;
+    final double[] lon;
+    final LongIntHashMap stopIndex;
+
+    final String[] routeIds;
+    final int[][] routeStops;
+
+    final int[] edgeStart;
+    final int[] edgeTarget;
+    final float[] edgeMeters;
+    final int[] edgeRoute;
+
+    final int[] stopRouteStart;
+    final int[] stopRoutes;
+
+    private NetworkGraph(long[] stopIds, double[] lat, double[] lon, LongIntHashMap stopIndex,
+                         String[] routeIds, int[][] routeStops) {
+        this.stopIds = stopIds;
+        this.lat = lat;
+        this.lon = lon;
+        this.stopIndex = stopIndex;
+        this.routeIds = routeIds;
+        this.routeStops = routeStops;
+
+        int n = stopIds.length;
+        int[] outDegree = new int[n + 1];
+        int[] routeDegree = new int[n + 1];
+        for (int[] sequence : routeStops) {
+            for (int i = 0; i + 1 < sequence.length; i++) {
+                outDegree[sequence[i] + 1]++;
+            }
+            for (int stop : distinct(sequence)) {
+                routeDegree[stop + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            outDegree[i + 1] += outDegree[i];
+            routeDegree[i + 1] += routeDegree[i];
+        }
+        edgeStart = outDegree;
+        edgeTarget = new int[outDegree[n]];
+        edgeMeters = new float[outDegree[n]];
+        edgeRoute = new int[outDegree[n]];
+        stopRouteStart = routeDegree;
+        stopRoutes = new int[routeDegree[n]];
+
+        int[] edgeFill = Arrays.copyOf(edgeStart, n);
+        int[] routeFill = Arrays.copyOf(stopRouteStart, n);
+        for (int r = 0; r < routeStops.length; r++) {
+            int[] sequence = routeStops[r];
+            for (int i = 0; i + 1 < sequence.length; i++) {
+                int from = sequence[i], to = sequence[i + 1];
+                int e = edgeFill[from]++;
+                edgeTarget[e] = to;
+                edgeMeters[e] = (float) GeoUtils.haversineMeters(lat[from], lon[from], lat[to], lon[to]);
+                edgeRoute[e] = r;
+            }
+            for (int stop : distinct(sequence)) {
+                stopRoutes[routeFill[stop]++] = r;
+            }
+        }
+    }
+
+    /**
+     * Build from rows ordered by route id and stop sequence
+     */
+    static NetworkGraph fromRows(List<NetworkStopRow> rows) {
+        LongIntHashMap stopIndex = new LongIntHashMap(rows.size());
+        long[] ids = new long[Math.max(16, rows.size())];
+        double[] lats = new double[ids.length];
+        double[] lons = new double[ids.length];
+        int stopCount = 0;
+
+        List<String> routeIds = new ArrayList<>();
+        List<int[]> sequences = new ArrayList<>();
+        int[] current = new int[16];
+        int currentLength = 0;
+        String currentRoute = null;
+
+        for (NetworkStopRow row : rows) {
+            if (!row.getRouteId().equals(currentRoute)) {
+                if (currentRoute != null) {
+                    routeIds.add(currentRoute);
+                    sequences.add(Arrays.copyOf(current, currentLength));
+                }
+                currentRoute = row.getRouteId();
+                currentLength = 0;
+            }
+            int index = stopIndex.get(row.getStopId(), -1);
+            if (index < 0) {
+                index = stopCount++;
+                stopIndex.put(row.getStopId(), index);
+                ids[index] = row.getStopId();
+                lats[index] = row.getLat();
+                lons[index] = row.getLon();
+            }
+            if (currentLength == current.length) {
+                current = Arrays.copyOf(current, currentLength * 2);
+            }
+            current[currentLength++] = index;
+        }
+        if (currentRoute != null) {
+            routeIds.add(currentRoute);
+            sequences.add(Arrays.copyOf(current, currentLength));
+        }
+
+        return new NetworkGraph(Arrays.copyOf(ids, stopCount), Arrays.copyOf(lats, stopCount),
+                Arrays.copyOf(lons, stopCount), stopIndex,
+                routeIds.toArray(new String[0]), sequences.toArray(new int[0][]));
+    }
+
+    static NetworkGraph empty() {
+        return fromRows(List.of());
+    }
+
+    int stopCount() {
+        return stopIds.length;
+    }
+
+    int indexOf(long stopId) {
+        return stopIndex.get(stopId, -1);
+    }
+
+    private static int[] distinct(int[] values) {
+        return Arrays.stream(values).distinct().toArray();
+    }
+}
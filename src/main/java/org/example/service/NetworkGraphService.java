@@ -0,0 +1,69 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.DataLoadedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.repository.RouteRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the current network graph. It is built from a single query at startup and rebuilt off-thread
+ * after route changes; a burst of changes triggers one rebuild, and readers keep using the previous
+ * graph until the new one is published.
+ */
+@Slf4j
+@Component
+public class NetworkGraphService {
+
+    private final RouteRepository routeRepository;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "network-graph-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile NetworkGraph graph = NetworkGraph.empty();
+
+    public NetworkGraphService(RouteRepository routeRepository) {
+        this.routeRepository = routeRepository;
+    }
+
+    NetworkGraph getGraph() {
+        return graph;
+    }
+
+    @EventListener(DataLoadedEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        NetworkGraph built = NetworkGraph.fromRows(routeRepository.findAllRouteStops());
+        graph = built;
+        log.info("Network graph built: {} stops, {} routes, {} edges in {} ms",
+                built.stopCount(), built.routeIds.length, built.edgeTarget.length, System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Network graph rebuild failed, keeping the previous graph", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.service;
+
+import org.example.dtos.NetworkStopRow;
+import org.example.model.BusStop;
+import org.example.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable copy of the stops and route stop sequences on primitive arrays, for reads without the database.
+ *
+ * Stops are dense indexes sorted by latitude, so a bounding box is a binary search plus a scan of one
+ * latitude band. Names, benches and shelters are references into one string table (-1 for none), which
+ * stores the few distinct bench and shelter values once. Routes are sorted by id and keep their stops as
+ * index arrays; the position in the array is the stop sequence, and stopRouteCounts holds the number of
+ * distinct routes calling at each stop. changeSequence is the number of route
+ * changes seen before the rows were read.
+ */
+class NetworkSnapshot {
+
+    static final NetworkSnapshot EMPTY = new NetworkSnapshot(-1, new long[0], new double[0], new double[0],
+            new int[0], new int[0], new int[0], new String[0], new LongIntHashMap(), new String[0], new int[0][]);
+
+    final long changeSequence;
+
+    final long[] stopIds;
+    final double[] lat;
+    final double[] lon;
+    final int[] nameRef;
+    final int[] benchRef;
+    final int[] shelterRef;
+    final String[] strings;
+    final LongIntHashMap stopIndex;
+
+    final String[] routeIds;
+    final int[][] routeStops;
+    final int[] stopRouteCounts;
+
+    private NetworkSnapshot(long changeSequence, long[] stopIds, double[] lat, double[] lon,
+                            int[] nameRef, int[] benchRef, int[] shelterRef, String[] strings,
+                            LongIntHashMap stopIndex, String[] routeIds, int[][] routeStops) {
+        this.changeSequence = changeSequence;
+        this.stopIds = stopIds;
+        this.lat = lat;
+        this.lon = lon;
+        this.nameRef = nameRef;
+        this.benchRef = benchRef;
+        this.shelterRef = shelterRef;
+        this.strings = strings;
+        this.stopIndex = stopIndex;
+        this.routeIds = routeIds;
+        this.routeStops = routeStops;
+        this.stopRouteCounts = new int[stopIds.length];
+        int[] lastRoute = new int[stopIds.length];
+        Arrays.fill(lastRoute, -1);
+        for (int r = 0; r < routeStops.length; r++) {
+            for (int stop : routeStops[r]) {
+                if (lastRoute[stop] != r) {
+                    lastRoute[stop] = r;
+                    stopRouteCounts[stop]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot from arrays already in snapshot order, as stored by NetworkSnapshotFile
+     */
+    static NetworkSnapshot of(long changeSequence, long[] stopIds, double[] lat, double[] lon, int[] nameRef,
+                              int[] benchRef, int[] shelterRef, String[] strings, String[] routeIds, int[][] routeStops) {
+        LongIntHashMap index = new LongIntHashMap(stopIds.length);
+        for (int i = 0; i < stopIds.length; i++) {
+            index.put(stopIds[i], i);
+        }
+        return new NetworkSnapshot(changeSequence, stopIds, lat, lon, nameRef, benchRef, shelterRef, strings, index,
+                routeIds, routeStops);
+    }
+
+    /**
+     * Build from all stops and the route stop rows ordered by route id and stop sequence; route stops
+     * missing from the stop table are skipped
+     */
+    static NetworkSnapshot build(long changeSequence, List<BusStop> stops, List<NetworkStopRow> rows) {
+        List<BusStop> sorted = new ArrayList<>(stops);
+        sorted.sort(Comparator.comparingDouble(BusStop::getLat));
+        int n = sorted.size();
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        int[] names = new int[n];
+        int[] benches = new int[n];
+        int[] shelters = new int[n];
+        LongIntHashMap index = new LongIntHashMap(n);
+        Map<String, Integer> interned = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            BusStop stop = sorted.get(i);
+            ids[i] = stop.getId();
+            lats[i] = stop.getLat();
+            lons[i] = stop.getLon();
+            names[i] = intern(nameOf(stop), interned, strings);
+            benches[i] = intern(stop.getBench() != null ? stop.getBench()
+                    : stop.getTag() != null ? stop.getTag().getBench() : null, interned, strings);
+            shelters[i] = intern(stop.getShelter() != null ? stop.getShelter()
+                    : stop.getTag() != null ? stop.getTag().getShelter() : null, interned, strings);
+            index.put(stop.getId(), i);
+        }
+        return new NetworkSnapshot(changeSequence, ids, lats, lons, names, benches, shelters,
+                strings.toArray(new String[0]), index, new String[0], new int[0][]).withRoutes(changeSequence, rows);
+    }
+
+    /**
+     * Same stops with new route rows, for rebuilds after route changes
+     */
+    NetworkSnapshot withRoutes(long changeSequence, List<NetworkStopRow> rows) {
+        List<String> routeIds = new ArrayList<>();
+        List<int[]> sequences = new ArrayList<>();
+        int[] current = new int[16];
+        int currentLength = 0;
+        String currentRoute = null;
+        for (NetworkStopRow row : rows) {
+            if (!row.getRouteId().equals(currentRoute)) {
+                if (currentRoute != null) {
+                    routeIds.add(currentRoute);
+                    sequences.add(Arrays.copyOf(current, currentLength));
+                }
+                currentRoute = row.getRouteId();
+                currentLength = 0;
+            }
+            int stop = stopIndex.get(row.getStopId(), -1);
+            if (stop < 0) {
+                continue;
+            }
+            if (currentLength == current.length) {
+                current = Arrays.copyOf(current, currentLength * 2);
+            }
+            current[currentLength++] = stop;
+        }
+        if (currentRoute != null) {
+            routeIds.add(currentRoute);
+            sequences.add(Arrays.copyOf(current, currentLength));
+        }
+
+        // The database collation need not match String order, which the binary search relies on
+        Integer[] order = new Integer[routeIds.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(routeIds::get));
+        String[] sortedRouteIds = new String[order.length];
+        int[][] sortedStops = new int[order.length][];
+        for (int i = 0; i < order.length; i++) {
+            sortedRouteIds[i] = routeIds.get(order[i]);
+            sortedStops[i] = sequences.get(order[i]);
+        }
+
+        return new NetworkSnapshot(changeSequence, stopIds, lat, lon, nameRef, benchRef, shelterRef,
+                strings, stopIndex, sortedRouteIds, sortedStops);
+    }
+
+    int stopCount() {
+        return stopIds.length;
+    }
+
+    int indexOf(long stopId) {
+        return stopIndex.get(stopId, -1);
+    }
+
+    int routeIndexOf(String routeId) {
+        int at = Arrays.binarySearch(routeIds, routeId);
+        return at >= 0 ? at : -1;
+    }
+
+    /**
+     * First stop index with a latitude at or above minLat, stopCount() when there is none
+     */
+    int firstAtOrAbove(double minLat) {
+        int low = 0, high = lat.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lat[mid] < minLat) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    String name(int stop) {
+        return string(nameRef[stop]);
+    }
+
+    String bench(int stop) {
+        return string(benchRef[stop]);
+    }
+
+    String shelter(int stop) {
+        return string(shelterRef[stop]);
+    }
+
+    private String string(int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+
+    private static int intern(String value, Map<String, Integer> interned, List<String> strings) {
+        if (value == null) {
+            return -1;
+        }
+        return interned.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    private static String nameOf(BusStop stop) {
+        if (stop.getName() != null) {
+            return stop.getName();
+        }
+        return stop.getTag() != null ? stop.getTag().getName() : null;
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped file of a network snapshot, so a restarted instance can serve reads before it has
+ * queried the database.
+ *
+ * Layout (little endian):
+ * <pre>
+ * int    magic "BRNS"
+ * int    format version
+ * int    stop count n
+ * int    route count r
+ * int    string count s
+ * int    route stop count m
+ * long   change_log high-water mark when the rows were read
+ * long   creation time, epoch millis
+ * long   CRC32C of everything after the header
+ * long[n]    stop ids, in snapshot (latitude) order
+ * double[n]  latitudes
+ * double[n]  longitudes
+ * int[n]     name, bench and shelter string references, one array each (-1 for none)
+ * int[r + 1] start of each route in the route stops
+ * int[m]     route stops as stop indexes
+ * int[s + r + 1] byte offsets of the strings followed by the route ids
+ * byte[]     UTF-8 bytes of the strings and route ids
+ * </pre>
+ * Sections are read with bulk copies out of the mapping; only the strings are decoded.
+ */
+final class NetworkSnapshotFile {
+
+    static final int MAGIC = 0x534E5242; // "BRNS" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 48;
+
+    /**
+     * A loaded file: the snapshot and the header fields used to decide whether it is still current
+     */
+    record Contents(NetworkSnapshot snapshot, long highWaterMark, long createdAt) {
+    }
+
+    private NetworkSnapshotFile() {
+    }
+
+    /**
+     * Write to a temporary file next to the target and move it into place, so readers never see a partial file
+     */
+    static void write(Path path, NetworkSnapshot snapshot, long highWaterMark) throws IOException {
+        int n = snapshot.stopCount();
+        int r = snapshot.routeIds.length;
+        int s = snapshot.strings.length;
+        int m = 0;
+        for (int[] stops : snapshot.routeStops) {
+            m += stops.length;
+        }
+        byte[][] encoded = new byte[s + r][];
+        int textBytes = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (i < s ? snapshot.strings[i] : snapshot.routeIds[i - s]).getBytes(StandardCharsets.UTF_8);
+            textBytes += encoded[i].length;
+        }
+        long size = HEADER_BYTES + fixedBytes(n, r, s, m) + textBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Network snapshot too large to map: " + size + " bytes");
+        }
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(HEADER_BYTES);
+            buffer.asLongBuffer().put(snapshot.stopIds);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asDoubleBuffer().put(snapshot.lat);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asDoubleBuffer().put(snapshot.lon);
+            buffer.position(buffer.position() + 8 * n);
+            putInts(buffer, snapshot.nameRef);
+            putInts(buffer, snapshot.benchRef);
+            putInts(buffer, snapshot.shelterRef);
+            int start = 0;
+            buffer.putInt(start);
+            for (int[] stops : snapshot.routeStops) {
+                start += stops.length;
+                buffer.putInt(start);
+            }
+            for (int[] stops : snapshot.routeStops) {
+                putInts(buffer, stops);
+            }
+            int offset = 0;
+            buffer.putInt(offset);
+            for (byte[] bytes : encoded) {
+                offset += bytes.length;
+                buffer.putInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                buffer.put(bytes);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            buffer.position(0);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(r).putInt(s).putInt(m)
+                    .putLong(highWaterMark).putLong(System.currentTimeMillis()).putLong(crc.getValue());
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Map and verify the file
+     *
+     * @throws IOException when the file is not a snapshot of this version, truncated or corrupt
+     */
+    static Contents read(Path path, long changeSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a network snapshot file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a network snapshot file of version " + VERSION + ": " + path);
+            }
+            int n = buffer.getInt();
+            int r = buffer.getInt();
+            int s = buffer.getInt();
+            int m = buffer.getInt();
+            long highWaterMark = buffer.getLong();
+            long createdAt = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (n < 0 || r < 0 || s < 0 || m < 0 || HEADER_BYTES + fixedBytes(n, r, s, m) > size) {
+                throw new IOException("Truncated network snapshot file: " + path);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_BYTES, (int) size - HEADER_BYTES));
+            if (crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch in network snapshot file: " + path);
+            }
+
+            long[] stopIds = new long[n];
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            buffer.asLongBuffer().get(stopIds);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asDoubleBuffer().get(lat);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asDoubleBuffer().get(lon);
+            buffer.position(buffer.position() + 8 * n);
+            int[] nameRef = getInts(buffer, n);
+            int[] benchRef = getInts(buffer, n);
+            int[] shelterRef = getInts(buffer, n);
+            int[] routeStart = getInts(buffer, r + 1);
+            int[] allRouteStops = getInts(buffer, m);
+            int[] textOffsets = getInts(buffer, s + r + 1);
+            int textStart = buffer.position();
+            // The checksum only proves the bytes are as written; indexes are checked so a bad writer cannot
+            // make the snapshot fail later with an out-of-bounds read
+            if (!ascending(routeStart, m) || !ascending(textOffsets, size - textStart) || !within(allRouteStops, 0, n)
+                    || !within(nameRef, -1, s) || !within(benchRef, -1, s) || !within(shelterRef, -1, s)) {
+                throw new IOException("Inconsistent network snapshot file: " + path);
+            }
+
+            String[] strings = new String[s];
+            String[] routeIds = new String[r];
+            for (int i = 0; i < s + r; i++) {
+                byte[] bytes = new byte[textOffsets[i + 1] - textOffsets[i]];
+                buffer.get(textStart + textOffsets[i], bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                if (i < s) {
+                    strings[i] = value;
+                } else {
+                    routeIds[i - s] = value;
+                }
+            }
+            int[][] routeStops = new int[r][];
+            for (int i = 0; i < r; i++) {
+                routeStops[i] = Arrays.copyOfRange(allRouteStops, routeStart[i], routeStart[i + 1]);
+            }
+
+            NetworkSnapshot snapshot = NetworkSnapshot.of(changeSequence, stopIds, lat, lon, nameRef, benchRef,
+                    shelterRef, strings, routeIds, routeStops);
+            return new Contents(snapshot, highWaterMark, createdAt);
+        }
+    }
+
+    private static long fixedBytes(int n, int r, int s, int m) {
+        return 24L * n + 12L * n + 4L * (r + 1) + 4L * m + 4L * (s + r + 1);
+    }
+
+    // Starts at 0, never decreases and ends at last
+    private static boolean ascending(int[] offsets, long last) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != last) {
+            return false;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Every value in [min, limit)
+    private static boolean within(int[] values, int min, int limit) {
+        for (int value : values) {
+            if (value < min || value >= limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + 4 * values.length);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
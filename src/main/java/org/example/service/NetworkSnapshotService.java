@@ -0,0 +1,210 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.BusRouteDto;
+import org.example.event.DataLoadedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.event.StopsMergedEvent;
+import org.example.repository.ChangeLogRepository;
+import org.example.repository.RouteRepository;
+import org.example.repository.StopRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current network snapshot. It is built at startup and rebuilt off-thread after route changes,
+ * a burst of changes triggering one rebuild; readers take the reference once and never lock.
+ *
+ * Stops do not change after the import, so stop reads use any built snapshot. Route reads use it only
+ * while no route change has happened since its rows were read, and fall back to the database otherwise,
+ * so a write is visible to the next read.
+ *
+ * Every published snapshot is also written to busroute.snapshot.path with the change_log high-water mark.
+ * On the next start the file is loaded before the startup import and used while the database still has
+ * that high-water mark and stop count, so reads it can answer are served before the indexes are warm.
+ */
+@Slf4j
+@Component
+public class NetworkSnapshotService {
+
+    private final StopRepository stopRepository;
+    private final RouteRepository routeRepository;
+    private final ChangeLogRepository changeLogRepository;
+    private final Path snapshotPath;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "network-snapshot-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object fileLock = new Object();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean stopsChanged = new AtomicBoolean();
+    private final AtomicLong routeChanges = new AtomicLong();
+    private final AtomicReference<NetworkSnapshot> snapshot = new AtomicReference<>(NetworkSnapshot.EMPTY);
+
+    public NetworkSnapshotService(StopRepository stopRepository,
+                                  RouteRepository routeRepository,
+                                  ChangeLogRepository changeLogRepository,
+                                  @Value("${busroute.snapshot.path:data/network-snapshot.bin}") String snapshotPath) {
+        this.stopRepository = stopRepository;
+        this.routeRepository = routeRepository;
+        this.changeLogRepository = changeLogRepository;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    /**
+     * Whether stop reads can be answered, possibly from the snapshot file before the startup load is done
+     */
+    public boolean isLoaded() {
+        return forStops() != null;
+    }
+
+    /**
+     * Snapshot for stop reads, null before the first build
+     */
+    NetworkSnapshot forStops() {
+        NetworkSnapshot current = snapshot.get();
+        return current == NetworkSnapshot.EMPTY ? null : current;
+    }
+
+    /**
+     * Snapshot for route reads, null while a route change is not in it yet
+     */
+    NetworkSnapshot forRoutes() {
+        NetworkSnapshot current = snapshot.get();
+        return current != NetworkSnapshot.EMPTY && current.changeSequence == routeChanges.get() ? current : null;
+    }
+
+    /**
+     * Stops of a route in sequence order, or null when the snapshot cannot answer (stale, or the route
+     * has no stops in it) and the caller should ask the database
+     */
+    public List<BusRouteDto> findRouteStops(String routeId) {
+        NetworkSnapshot current = forRoutes();
+        int route = current != null ? current.routeIndexOf(routeId) : -1;
+        if (route < 0) {
+            return null;
+        }
+        int[] stops = current.routeStops[route];
+        List<BusRouteDto> result = new ArrayList<>(stops.length);
+        for (int i = 0; i < stops.length; i++) {
+            int stop = stops[i];
+            result.add(new BusRouteDto(current.lat[stop], current.lon[stop], i, current.name(stop)));
+        }
+        return result;
+    }
+
+    /**
+     * Load the snapshot file if the database has not changed since it was written; runs before the
+     * startup import begins
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFile() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            NetworkSnapshotFile.Contents contents = NetworkSnapshotFile.read(snapshotPath, routeChanges.get());
+            long highWaterMark = changeLogRepository.findMaxId();
+            long stopCount = stopRepository.count();
+            if (contents.highWaterMark() != highWaterMark || contents.snapshot().stopCount() != stopCount) {
+                log.info("Ignoring stale network snapshot {}: change log at {} (file {}), {} stops (file {})",
+                        snapshotPath, highWaterMark, contents.highWaterMark(), stopCount, contents.snapshot().stopCount());
+                return;
+            }
+            snapshot.compareAndSet(NetworkSnapshot.EMPTY, contents.snapshot());
+            log.info("Network snapshot loaded from {}: {} stops, {} routes in {} ms", snapshotPath,
+                    contents.snapshot().stopCount(), contents.snapshot().routeIds.length, System.currentTimeMillis() - started);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unusable network snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @EventListener(DataLoadedEvent.class)
+    public void rebuild() {
+        publish(null);
+    }
+
+    private void publish(NetworkSnapshot stopsFrom) {
+        long started = System.currentTimeMillis();
+        // Read before the rows: a change committed in between only makes this snapshot look stale
+        long sequence = routeChanges.get();
+        long highWaterMark = changeLogRepository.findMaxId();
+        NetworkSnapshot built = stopsFrom != null
+                ? stopsFrom.withRoutes(sequence, routeRepository.findAllRouteStops())
+                : NetworkSnapshot.build(sequence, stopRepository.findAll(), routeRepository.findAllRouteStops());
+        // Two builds may finish out of order; the one that saw more changes wins
+        NetworkSnapshot published = snapshot.accumulateAndGet(built,
+                (previous, next) -> next.changeSequence >= previous.changeSequence ? next : previous);
+        log.info("Network snapshot built: {} stops, {} routes, {} strings in {} ms",
+                built.stopCount(), built.routeIds.length, built.strings.length, System.currentTimeMillis() - started);
+        if (published == built && snapshotPath != null) {
+            // A late older file only carries an older high-water mark, which the next start rejects
+            synchronized (fileLock) {
+                try {
+                    NetworkSnapshotFile.write(snapshotPath, built, highWaterMark);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Could not write network snapshot {}: {}", snapshotPath, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        routeChanges.incrementAndGet();
+        scheduleRebuild();
+    }
+
+    /**
+     * Merged stops are deleted, so the next build reads the stops again instead of keeping them
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStopsMerged(StopsMergedEvent event) {
+        routeChanges.incrementAndGet();
+        stopsChanged.set(true);
+        scheduleRebuild();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                boolean full = stopsChanged.getAndSet(false);
+                try {
+                    // Otherwise stops only change with an import, which ends in DataLoadedEvent and a full build
+                    publish(full ? null : forStops());
+                } catch (RuntimeException e) {
+                    if (full) {
+                        stopsChanged.set(true);
+                    }
+                    log.error("Network snapshot rebuild failed, route reads stay on the database", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.RouteChangedEvent;
+import org.example.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for expensive reads: concurrent calls with the same name and key share one computation.
+ *
+ * The first caller (the leader) runs the loader on its own thread; callers arriving while it runs wait for
+ * its result, or its exception, for at most the timeout and then get a 503 with Retry-After. Nothing is
+ * cached: the entry is removed as soon as the leader finishes, so the next burst computes again. A route
+ * change drops the entries of that route, so a read arriving after a write never joins a computation
+ * that started before it.
+ *
+ * Use it outside transactions, so waiting callers do not hold database connections.
+ * Metrics: busroute.coalesce.calls{name, role=leader|follower|timeout}; the coalescing ratio of a name is
+ * follower / (leader + follower).
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    public static final String ROUTE_STOPS = "route-stops";
+    public static final String ROUTE_STATS = "route-stats";
+    public static final String LINE = "line";
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMs;
+    private final int retryAfterSeconds;
+
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${busroute.coalesce.timeout-ms:5000}") long timeoutMs,
+                            @Value("${busroute.coalesce.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        meterRegistry.gauge("busroute.coalesce.in_flight", inFlight, Map::size);
+    }
+
+    /**
+     * Run the loader, or wait for the identical call already running
+     *
+     * @param name read being coalesced, also the metrics tag
+     * @param key  parameters of the read
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, String key, Supplier<T> loader) {
+        String flightKey = name + ":" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flightKey, flight);
+        if (running == null) {
+            count(name, "leader");
+            try {
+                T result = loader.get();
+                flight.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(flightKey, flight);
+            }
+        }
+
+        count(name, "follower");
+        try {
+            return (T) running.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            count(name, "timeout");
+            throw new ServiceUnavailableException("Still computing " + name + " for " + key + ", retry shortly",
+                    retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Coalesced " + name + " was cancelled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for " + name, retryAfterSeconds);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        inFlight.remove(ROUTE_STOPS + ":" + event.getRouteId());
+        inFlight.remove(LINE + ":" + LineService.busNumberOf(event.getRouteId()));
+        inFlight.keySet().removeIf(key -> key.startsWith(ROUTE_STATS + ":"));
+    }
+
+    private void count(String name, String role) {
+        counters.computeIfAbsent(name + ":" + role, k -> Counter.builder("busroute.coalesce.calls")
+                .description("Reads by coalescing role")
+                .tag("name", name)
+                .tag("role", role)
+                .register(meterRegistry)).increment();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-route change counters for caches that build a route's entry outside the map: a build takes a
+ * token with begin, and putIfUnchanged only keeps the result when no change of the route overlapped the
+ * build. The change listener must bump before it removes the cached entry.
+ */
+final class RouteGenerations {
+
+    private final ConcurrentHashMap<String, Long> generations = new ConcurrentHashMap<>();
+
+    long begin(String routeId) {
+        return generations.getOrDefault(routeId, 0L);
+    }
+
+    boolean unchanged(String routeId, long token) {
+        return generations.getOrDefault(routeId, 0L) == token;
+    }
+
+    void bump(String routeId) {
+        generations.merge(routeId, 1L, Long::sum);
+    }
+
+    /**
+     * Cache a value built since begin returned the token, unless the route changed meanwhile
+     *
+     * @return the cached value when another build got there first, otherwise the given one
+     */
+    <V> V putIfUnchanged(ConcurrentMap<String, V> cache, String routeId, long token, V built) {
+        if (!unchanged(routeId, token)) {
+            return built;
+        }
+        V raced = cache.putIfAbsent(routeId, built);
+        if (raced != null) {
+            return raced;
+        }
+        // A change that came in between the check and the put has not seen this value
+        if (!unchanged(routeId, token)) {
+            cache.remove(routeId, built);
+        }
+        return built;
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.BusRouteDto;
+import org.example.event.RouteChangedEvent;
+import org.example.util.GeoUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Level-of-detail route geometry for zoomed-out maps.
+ *
+ * The full stop geometry of a route is simplified with Douglas-Peucker once per tolerance level
+ * and cached until the route changes; levels built while their route changed are returned but not
+ * cached. Requests pick the coarsest level whose tolerance is still
+ * below one screen pixel at the requested zoom, so the drawn line looks the same with far fewer points.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RouteGeometryService {
+
+    // Tolerances in metres, level 0 is the full geometry
+    static final double[] TOLERANCE_LEVELS = {0, 5, 15, 40, 100, 250};
+
+    // Web Mercator ground resolution at zoom 0 on the equator, metres per 256px-tile pixel
+    private static final double METERS_PER_PIXEL_ZOOM_0 = 156_543.03392;
+
+    private final RouteService routeService;
+    private final RequestCoalescer requestCoalescer;
+    private final NetworkSnapshotService networkSnapshotService;
+    private final ConcurrentHashMap<String, List<List<BusRouteDto>>> cache = new ConcurrentHashMap<>();
+    private final RouteGenerations generations = new RouteGenerations();
+
+    /**
+     * Full stop geometry of a route, from the network snapshot when it is current and from the database
+     * (coalesced) otherwise
+     */
+    public List<BusRouteDto> getRoute(String routeId) {
+        List<BusRouteDto> stops = networkSnapshotService.findRouteStops(routeId);
+        return stops != null ? stops : requestCoalescer.execute(RequestCoalescer.ROUTE_STOPS, routeId,
+                () -> routeService.getRouteWithStops(routeId));
+    }
+
+    /**
+     * Geometry of a route simplified for a map zoom level or an explicit tolerance in metres
+     */
+    public List<BusRouteDto> getSimplifiedRoute(String routeId, Integer zoom, Double toleranceMeters) {
+        List<List<BusRouteDto>> levels = cache.get(routeId);
+        if (levels == null) {
+            // Not computeIfAbsent: a missing route must throw without leaving anything behind
+            levels = loadLevels(routeId);
+        }
+        List<BusRouteDto> full = levels.get(0);
+        double tolerance = toleranceMeters != null ? toleranceMeters
+                : zoom != null && !full.isEmpty() ? metersPerPixel(zoom, full.get(0).getLat()) : 0;
+        return levels.get(levelFor(tolerance));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        generations.bump(event.getRouteId());
+        cache.remove(event.getRouteId());
+    }
+
+    static int levelFor(double tolerance) {
+        int level = 0;
+        for (int i = 1; i < TOLERANCE_LEVELS.length; i++) {
+            if (TOLERANCE_LEVELS[i] <= tolerance) {
+                level = i;
+            }
+        }
+        return level;
+    }
+
+    static double metersPerPixel(int zoom, double lat) {
+        return METERS_PER_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(lat)) / Math.pow(2, zoom);
+    }
+
+    private List<List<BusRouteDto>> loadLevels(String routeId) {
+        long generation = generations.begin(routeId);
+        return generations.putIfUnchanged(cache, routeId, generation, buildLevels(getRoute(routeId)));
+    }
+
+    private List<List<BusRouteDto>> buildLevels(List<BusRouteDto> points) {
+        List<List<BusRouteDto>> levels = new ArrayList<>(TOLERANCE_LEVELS.length);
+        levels.add(List.copyOf(points));
+        for (int i = 1; i < TOLERANCE_LEVELS.length; i++) {
+            // Each level simplifies the previous one, which is cheaper and keeps levels nested
+            levels.add(simplify(levels.get(i - 1), TOLERANCE_LEVELS[i]));
+        }
+        return levels;
+    }
+
+    /**
+     * Iterative Douglas-Peucker on a local metric projection; the first and last points are always kept
+     */
+    static List<BusRouteDto> simplify(List<BusRouteDto> points, double toleranceMeters) {
+        int n = points.size();
+        if (n < 3) {
+            return points;
+        }
+        double lat0 = points.get(0).getLat();
+        double kx = GeoUtils.metersPerDegreeLon(lat0);
+        double ky = GeoUtils.metersPerDegreeLat();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = points.get(i).getLon() * kx;
+            y[i] = points.get(i).getLat() * ky;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        ArrayDeque<int[]> stack = new ArrayDeque<>();
+        stack.push(new int[]{0, n - 1});
+        while (!stack.isEmpty()) {
+            int[] range = stack.pop();
+            int first = range[0], last = range[1];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = distanceToSegment(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                stack.push(new int[]{first, farthest});
+                stack.push(new int[]{farthest, last});
+            }
+        }
+
+        List<BusRouteDto> result = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                result.add(points.get(i));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.service;
+
+import org.example.util.GeoUtils;
+import org.example.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment index of the route network for overlap analysis.
+ *
+ * Every pair of consecutive stops of a route is a directed segment. Segments are interned through a hash
+ * map keyed by the (from, to) stop indexes of the network graph, and each segment lists the ordinals of
+ * the routes running it in CSR layout (routes of segment s are segmentRoutes[segmentRouteStart[s] ..
+ * segmentRouteStart[s + 1]), ascending). The overlaps of a route with all others are then one pass over
+ * its own segments and their postings, so the work grows with how many routes share each segment and
+ * never with the number of route pairs.
+ */
+class RouteOverlapIndex {
+
+    final NetworkGraph graph;
+    final int[][] routeSegments;       // segment ordinals in stop order
+    final double[] routeMeters;
+
+    final int[] segmentFrom;           // stop indexes of the graph
+    final int[] segmentTo;
+    final double[] segmentMeters;
+    final int[] segmentRouteStart;
+    final int[] segmentRoutes;
+
+    private final Map<String, Integer> routeOrdinals;
+
+    /**
+     * Overlap of one route with one other route; corridors are {first, last} segment positions in the
+     * route's own segment sequence
+     */
+    record Overlap(int route, int partner, int sharedSegments, double sharedMeters, List<int[]> corridors) {
+    }
+
+    RouteOverlapIndex(NetworkGraph graph) {
+        this.graph = graph;
+        int routeCount = graph.routeIds.length;
+        routeSegments = new int[routeCount][];
+        routeMeters = new double[routeCount];
+        routeOrdinals = new HashMap<>(routeCount * 2);
+
+        LongIntHashMap segmentIds = new LongIntHashMap(graph.edgeTarget.length);
+        int[] from = new int[Math.max(16, graph.edgeTarget.length)];
+        int[] to = new int[from.length];
+        int segmentCount = 0;
+        for (int r = 0; r < routeCount; r++) {
+            routeOrdinals.put(graph.routeIds[r], r);
+            int[] stops = graph.routeStops[r];
+            int[] segments = new int[Math.max(0, stops.length - 1)];
+            for (int i = 0; i < segments.length; i++) {
+                long key = ((long) stops[i] << 32) | (stops[i + 1] & 0xFFFFFFFFL);
+                int segment = segmentIds.get(key, -1);
+                if (segment < 0) {
+                    segment = segmentCount++;
+                    segmentIds.put(key, segment);
+                    if (segment == from.length) {
+                        from = Arrays.copyOf(from, segment * 2);
+                        to = Arrays.copyOf(to, segment * 2);
+                    }
+                    from[segment] = stops[i];
+                    to[segment] = stops[i + 1];
+                }
+                segments[i] = segment;
+            }
+            routeSegments[r] = segments;
+        }
+        segmentFrom = Arrays.copyOf(from, segmentCount);
+        segmentTo = Arrays.copyOf(to, segmentCount);
+        segmentMeters = new double[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            segmentMeters[s] = GeoUtils.haversineMeters(graph.lat[segmentFrom[s]], graph.lon[segmentFrom[s]],
+                    graph.lat[segmentTo[s]], graph.lon[segmentTo[s]]);
+        }
+
+        // Two passes: count routes per segment, then fill; a route running a segment twice is listed once
+        int[] lastRoute = new int[segmentCount];
+        Arrays.fill(lastRoute, -1);
+        int[] counts = new int[segmentCount + 1];
+        for (int r = 0; r < routeCount; r++) {
+            for (int segment : routeSegments[r]) {
+                routeMeters[r] += segmentMeters[segment];
+                if (lastRoute[segment] != r) {
+                    lastRoute[segment] = r;
+                    counts[segment + 1]++;
+                }
+            }
+        }
+        for (int s = 0; s < segmentCount; s++) {
+            counts[s + 1] += counts[s];
+        }
+        segmentRouteStart = counts;
+        segmentRoutes = new int[counts[segmentCount]];
+        int[] fill = Arrays.copyOf(counts, segmentCount);
+        Arrays.fill(lastRoute, -1);
+        for (int r = 0; r < routeCount; r++) {
+            for (int segment : routeSegments[r]) {
+                if (lastRoute[segment] != r) {
+                    lastRoute[segment] = r;
+                    segmentRoutes[fill[segment]++] = r;
+                }
+            }
+        }
+    }
+
+    int routeCount() {
+        return routeSegments.length;
+    }
+
+    int segmentCount() {
+        return segmentMeters.length;
+    }
+
+    int routeCountOf(int segment) {
+        return segmentRouteStart[segment + 1] - segmentRouteStart[segment];
+    }
+
+    int ordinalOf(String routeId) {
+        Integer ordinal = routeOrdinals.get(routeId);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Stop index of the graph at the start of segment position i of the route
+     */
+    int stopAt(int route, int position) {
+        return graph.routeStops[route][position];
+    }
+
+    double ratio(double sharedMeters, int route) {
+        return routeMeters[route] > 0 ? Math.min(1.0, sharedMeters / routeMeters[route]) : 0;
+    }
+
+    /**
+     * Overlaps of the route with every route sharing at least one segment
+     *
+     * @param minPartner          only partners with an ordinal at or above this are reported
+     * @param minCorridorSegments shorter shared runs still count towards the overlap but are not listed
+     */
+    List<Overlap> overlapsOf(int route, Scratch scratch, int minPartner, int minCorridorSegments) {
+        int[] segments = routeSegments[route];
+        int touched = 0;
+        for (int i = 0; i < segments.length; i++) {
+            int segment = segments[i];
+            for (int k = segmentRouteStart[segment]; k < segmentRouteStart[segment + 1]; k++) {
+                int partner = segmentRoutes[k];
+                if (partner == route || partner < minPartner) {
+                    continue;
+                }
+                if (scratch.count[partner] == 0) {
+                    scratch.touched[touched++] = partner;
+                }
+                scratch.count[partner]++;
+                scratch.shared[partner] += segmentMeters[segment];
+                if (scratch.runEnd[partner] != i - 1) {
+                    scratch.flush(partner, minCorridorSegments);
+                    scratch.runStart[partner] = i;
+                }
+                scratch.runEnd[partner] = i;
+            }
+        }
+
+        List<Overlap> overlaps = new ArrayList<>(touched);
+        for (int t = 0; t < touched; t++) {
+            int partner = scratch.touched[t];
+            scratch.flush(partner, minCorridorSegments);
+            List<int[]> corridors = scratch.corridors[partner];
+            overlaps.add(new Overlap(route, partner, scratch.count[partner], scratch.shared[partner],
+                    corridors != null ? corridors : List.of()));
+            scratch.reset(partner);
+        }
+        return overlaps;
+    }
+
+    /**
+     * Per-thread accumulators indexed by route ordinal, left clean after every overlapsOf call
+     */
+    static final class Scratch {
+        private final int[] count;
+        private final double[] shared;
+        private final int[] runStart;
+        private final int[] runEnd;
+        private final int[] touched;
+        private final List<int[]>[] corridors;
+
+        @SuppressWarnings("unchecked")
+        Scratch(int routeCount) {
+            count = new int[routeCount];
+            shared = new double[routeCount];
+            runStart = new int[routeCount];
+            runEnd = new int[routeCount];
+            Arrays.fill(runEnd, -2);
+            touched = new int[routeCount];
+            corridors = (List<int[]>[]) new List<?>[routeCount];
+        }
+
+        private void flush(int partner, int minCorridorSegments) {
+            int end = runEnd[partner];
+            if (end >= 0 && end - runStart[partner] + 1 >= minCorridorSegments) {
+                if (corridors[partner] == null) {
+                    corridors[partner] = new ArrayList<>(2);
+                }
+                corridors[partner].add(new int[]{runStart[partner], end});
+            }
+            runEnd[partner] = -2;
+        }
+
+        private void reset(int partner) {
+            count[partner] = 0;
+            shared[partner] = 0;
+            runEnd[partner] = -2;
+            corridors[partner] = null;
+        }
+    }
+}
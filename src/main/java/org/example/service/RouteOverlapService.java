@@ -0,0 +1,300 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.NetworkOverlapReport;
+import org.example.dtos.RouteOverlap;
+import org.example.dtos.RouteOverlapResponse;
+import org.example.dtos.SegmentLoad;
+import org.example.dtos.SharedCorridor;
+import org.example.exception.ResourceNotFoundException;
+import org.example.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Which routes run the same stretches of road, for rationalizing duplicated service.
+ *
+ * Works on a RouteOverlapIndex of the current network graph, built on first use after every graph
+ * rebuild. A route's overlaps are computed on demand; the network report runs every route on a fork-join
+ * pool and keeps the last result until the graph or the parameters change.
+ */
+@Slf4j
+@Service
+public class RouteOverlapService {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private static final Comparator<RouteOverlap> LARGEST_OVERLAP = Comparator
+            .comparing((RouteOverlap o) -> Math.max(o.getOverlapRatio(), o.getOtherOverlapRatio())).reversed()
+            .thenComparing(RouteOverlap::getSharedMeters, Comparator.reverseOrder());
+    private static final Comparator<SharedCorridor> LONGEST_CORRIDOR = Comparator
+            .comparing(SharedCorridor::getLengthMeters, Comparator.reverseOrder());
+
+    private final NetworkGraphService networkGraphService;
+    private final ForkJoinPool pool;
+    private volatile RouteOverlapIndex index;
+    private volatile CachedReport lastReport;
+
+    private record CachedReport(RouteOverlapIndex index, double minRatio, int limit, int minCorridorStops,
+                                NetworkOverlapReport report) {
+    }
+
+    public RouteOverlapService(NetworkGraphService networkGraphService,
+                               @Value("${busroute.overlap.parallelism:0}") int parallelism) {
+        this.networkGraphService = networkGraphService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Routes sharing segments with the route, largest overlap first
+     *
+     * @param minRatio         minimum share of either route's length run in common
+     * @param minCorridorStops shortest shared run of stops listed as a corridor
+     */
+    public RouteOverlapResponse getOverlaps(String routeId, double minRatio, int limit, int minCorridorStops) {
+        validate(minRatio, limit, minCorridorStops);
+        RouteOverlapIndex current = currentIndex();
+        int route = current.ordinalOf(routeId);
+        if (route < 0) {
+            throw new ResourceNotFoundException("Route", routeId);
+        }
+
+        List<RouteOverlap> overlaps = new ArrayList<>();
+        for (RouteOverlapIndex.Overlap overlap : current.overlapsOf(route,
+                new RouteOverlapIndex.Scratch(current.routeCount()), 0, minCorridorStops - 1)) {
+            RouteOverlap response = toResponse(current, overlap, true);
+            if (Math.max(response.getOverlapRatio(), response.getOtherOverlapRatio()) >= minRatio) {
+                overlaps.add(response);
+            }
+        }
+        overlaps.sort(LARGEST_OVERLAP);
+
+        return RouteOverlapResponse.builder()
+                .routeId(routeId)
+                .segmentCount(current.routeSegments[route].length)
+                .lengthMeters(round(current.routeMeters[route]))
+                .overlappingRoutes(overlaps.size())
+                .overlaps(overlaps.subList(0, Math.min(limit, overlaps.size())))
+                .build();
+    }
+
+    /**
+     * Route pairs with at least minRatio of either route in common, the longest shared corridors and the
+     * segments run by the most routes
+     */
+    public NetworkOverlapReport getNetworkReport(double minRatio, int limit, int minCorridorStops) {
+        validate(minRatio, limit, minCorridorStops);
+        RouteOverlapIndex current = currentIndex();
+        CachedReport cached = lastReport;
+        if (cached != null && cached.index() == current && cached.minRatio() == minRatio
+                && cached.limit() == limit && cached.minCorridorStops() == minCorridorStops) {
+            return cached.report();
+        }
+
+        long started = System.currentTimeMillis();
+        Partial result = pool.invoke(new RouteRange(current, 0, current.routeCount(), minRatio, limit, minCorridorStops - 1));
+        result.pairs.sort(LARGEST_OVERLAP);
+
+        int sharedSegments = 0;
+        double sharedMeters = 0;
+        double totalMeters = 0;
+        List<Integer> busiest = new ArrayList<>();
+        for (int s = 0; s < current.segmentCount(); s++) {
+            totalMeters += current.segmentMeters[s];
+            if (current.routeCountOf(s) > 1) {
+                sharedSegments++;
+                sharedMeters += current.segmentMeters[s];
+                busiest.add(s);
+            }
+        }
+        busiest.sort(Comparator.comparingInt((Integer s) -> current.routeCountOf(s)).reversed()
+                .thenComparing(s -> current.segmentMeters[s], Comparator.reverseOrder()));
+
+        NetworkOverlapReport report = NetworkOverlapReport.builder()
+                .routeCount(current.routeCount())
+                .segmentCount(current.segmentCount())
+                .sharedSegmentCount(sharedSegments)
+                .sharedMetersRatio(totalMeters > 0 ? round3(sharedMeters / totalMeters) : 0.0)
+                .minRatio(minRatio)
+                .pairCount(result.pairs.size())
+                .pairs(result.pairs.subList(0, Math.min(limit, result.pairs.size())))
+                .longestCorridors(result.corridors)
+                .busiestSegments(busiest.stream().limit(limit).map(s -> toSegmentLoad(current, s)).toList())
+                .computeMillis(System.currentTimeMillis() - started)
+                .build();
+        lastReport = new CachedReport(current, minRatio, limit, minCorridorStops, report);
+        log.info("Overlap report over {} routes and {} segments: {} pairs at ratio >= {} in {} ms",
+                current.routeCount(), current.segmentCount(), result.pairs.size(), minRatio, report.getComputeMillis());
+        return report;
+    }
+
+    private RouteOverlapIndex currentIndex() {
+        NetworkGraph graph = networkGraphService.getGraph();
+        RouteOverlapIndex current = index;
+        if (current == null || current.graph != graph) {
+            long started = System.currentTimeMillis();
+            current = new RouteOverlapIndex(graph);
+            index = current;
+            log.info("Route overlap index built: {} routes, {} segments in {} ms",
+                    current.routeCount(), current.segmentCount(), System.currentTimeMillis() - started);
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static void validate(double minRatio, int limit, int minCorridorStops) {
+        if (minRatio < 0 || minRatio > 1) {
+            throw new ValidationException("minRatio must be between 0 and 1");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (minCorridorStops < 2) {
+            throw new ValidationException("A corridor has at least 2 stops");
+        }
+    }
+
+    private static RouteOverlap toResponse(RouteOverlapIndex index, RouteOverlapIndex.Overlap overlap,
+                                           boolean withCorridors) {
+        List<SharedCorridor> corridors = null;
+        if (withCorridors) {
+            corridors = new ArrayList<>(overlap.corridors().size());
+            for (int[] run : overlap.corridors()) {
+                corridors.add(toCorridor(index, overlap, run));
+            }
+            corridors.sort(LONGEST_CORRIDOR);
+        }
+        return RouteOverlap.builder()
+                .routeId(index.graph.routeIds[overlap.route()])
+                .otherRouteId(index.graph.routeIds[overlap.partner()])
+                .sharedSegments(overlap.sharedSegments())
+                .sharedMeters(round(overlap.sharedMeters()))
+                .overlapRatio(round3(index.ratio(overlap.sharedMeters(), overlap.route())))
+                .otherOverlapRatio(round3(index.ratio(overlap.sharedMeters(), overlap.partner())))
+                .corridors(corridors)
+                .build();
+    }
+
+    private static SharedCorridor toCorridor(RouteOverlapIndex index, RouteOverlapIndex.Overlap overlap, int[] run) {
+        int[] segments = index.routeSegments[overlap.route()];
+        double meters = 0;
+        for (int i = run[0]; i <= run[1]; i++) {
+            meters += index.segmentMeters[segments[i]];
+        }
+        return SharedCorridor.builder()
+                .routeId(index.graph.routeIds[overlap.route()])
+                .otherRouteId(index.graph.routeIds[overlap.partner()])
+                .fromStopId(index.graph.stopIds[index.stopAt(overlap.route(), run[0])])
+                .toStopId(index.graph.stopIds[index.stopAt(overlap.route(), run[1] + 1)])
+                .fromPosition(run[0])
+                .segmentCount(run[1] - run[0] + 1)
+                .lengthMeters(round(meters))
+                .build();
+    }
+
+    private static SegmentLoad toSegmentLoad(RouteOverlapIndex index, int segment) {
+        List<String> routeIds = new ArrayList<>(index.routeCountOf(segment));
+        for (int k = index.segmentRouteStart[segment]; k < index.segmentRouteStart[segment + 1]; k++) {
+            routeIds.add(index.graph.routeIds[index.segmentRoutes[k]]);
+        }
+        return SegmentLoad.builder()
+                .fromStopId(index.graph.stopIds[index.segmentFrom[segment]])
+                .toStopId(index.graph.stopIds[index.segmentTo[segment]])
+                .lengthMeters(round(index.segmentMeters[segment]))
+                .routeCount(routeIds.size())
+                .routeIds(routeIds)
+                .build();
+    }
+
+    private static double round(double meters) {
+        return Math.round(meters * 10) / 10.0;
+    }
+
+    private static double round3(double ratio) {
+        return Math.round(ratio * 1000) / 1000.0;
+    }
+
+    /**
+     * Pairs and the longest corridors found in a range of routes, each pair reported once (partner > route)
+     */
+    private static final class Partial {
+        final List<RouteOverlap> pairs = new ArrayList<>();
+        List<SharedCorridor> corridors = new ArrayList<>();
+
+        Partial merge(Partial other, int limit) {
+            pairs.addAll(other.pairs);
+            corridors.addAll(other.corridors);
+            corridors = top(corridors, limit);
+            return this;
+        }
+
+        static List<SharedCorridor> top(List<SharedCorridor> corridors, int limit) {
+            corridors.sort(LONGEST_CORRIDOR);
+            return corridors.size() > limit ? new ArrayList<>(corridors.subList(0, limit)) : corridors;
+        }
+    }
+
+    /**
+     * Recursively halves the route range; small ranges are computed directly with one scratch each
+     */
+    private static final class RouteRange extends RecursiveTask<Partial> {
+        private static final int LEAF_SIZE = 32;
+
+        private final RouteOverlapIndex index;
+        private final int from;
+        private final int to;
+        private final double minRatio;
+        private final int limit;
+        private final int minCorridorSegments;
+
+        RouteRange(RouteOverlapIndex index, int from, int to, double minRatio, int limit, int minCorridorSegments) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.minRatio = minRatio;
+            this.limit = limit;
+            this.minCorridorSegments = minCorridorSegments;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= LEAF_SIZE) {
+                Partial partial = new Partial();
+                RouteOverlapIndex.Scratch scratch = new RouteOverlapIndex.Scratch(index.routeCount());
+                for (int route = from; route < to; route++) {
+                    for (RouteOverlapIndex.Overlap overlap : index.overlapsOf(route, scratch, route + 1, minCorridorSegments)) {
+                        for (int[] run : overlap.corridors()) {
+                            partial.corridors.add(toCorridor(index, overlap, run));
+                        }
+                        double ratio = Math.max(index.ratio(overlap.sharedMeters(), overlap.route()),
+                                index.ratio(overlap.sharedMeters(), overlap.partner()));
+                        if (ratio >= minRatio) {
+                            partial.pairs.add(toResponse(index, overlap, false));
+                        }
+                    }
+                    if (partial.corridors.size() > 4 * limit) {
+                        partial.corridors = Partial.top(partial.corridors, limit);
+                    }
+                }
+                partial.corridors = Partial.top(partial.corridors, limit);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            RouteRange left = new RouteRange(index, from, mid, minRatio, limit, minCorridorSegments);
+            RouteRange right = new RouteRange(index, mid, to, minRatio, limit, minCorridorSegments);
+            right.fork();
+            return left.compute().merge(right.join(), limit);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.service;
+
+import org.example.dtos.RouteStopView;
+import org.example.util.GeoUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable segment model of one route: consecutive stop pairs with cumulative distance,
+ * plus a uniform grid over the route's bounding box for snapping positions onto segments.
+ *
+ * Coordinates are projected to local metres around the first stop, which is accurate enough at
+ * city scale and keeps the point-to-segment math planar. A snap only checks the segments
+ * registered in the 3x3 cells around the point, so its cost does not grow with route length.
+ */
+class RouteSegmentIndex {
+
+    static final double CELL_SIZE_METERS = 250.0;
+
+    final String routeId;
+    final long[] stopIds;
+    final int[] sequences;
+    final double[] cumulativeMeters;
+
+    private final double originLat;
+    private final double originLon;
+    private final double metersPerDegLat;
+    private final double metersPerDegLon;
+    private final double[] x;
+    private final double[] y;
+
+    // Grid in CSR layout: segments of cell c are cellItems[cellStart[c] .. cellStart[c + 1])
+    private final double minX;
+    private final double minY;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    RouteSegmentIndex(String routeId, List<RouteStopView> stops) {
+        this.routeId = routeId;
+        int n = stops.size();
+        stopIds = new long[n];
+        sequences = new int[n];
+        cumulativeMeters = new double[n];
+        x = new double[n];
+        y = new double[n];
+
+        originLat = n > 0 ? stops.get(0).getLat() : 0;
+        originLon = n > 0 ? stops.get(0).getLon() : 0;
+        metersPerDegLat = GeoUtils.metersPerDegreeLat();
+        metersPerDegLon = GeoUtils.metersPerDegreeLon(originLat);
+
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE, hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            RouteStopView stop = stops.get(i);
+            stopIds[i] = stop.getStopId();
+            sequences[i] = stop.getSequence();
+            x[i] = (stop.getLon() - originLon) * metersPerDegLon;
+            y[i] = (stop.getLat() - originLat) * metersPerDegLat;
+            if (i > 0) {
+                cumulativeMeters[i] = cumulativeMeters[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            }
+            loX = Math.min(loX, x[i]);
+            loY = Math.min(loY, y[i]);
+            hiX = Math.max(hiX, x[i]);
+            hiY = Math.max(hiY, y[i]);
+        }
+        if (n == 0) {
+            loX = loY = hiX = hiY = 0;
+        }
+        minX = loX;
+        minY = loY;
+        cols = (int) ((hiX - loX) / CELL_SIZE_METERS) + 1;
+        rows = (int) ((hiY - loY) / CELL_SIZE_METERS) + 1;
+
+        // Two passes: count segments per cell, then fill
+        int cells = cols * rows;
+        int[] counts = new int[cells + 1];
+        for (int s = 0; s + 1 < n; s++) {
+            forEachCell(s, c -> counts[c + 1]++);
+        }
+        for (int c = 0; c < cells; c++) {
+            counts[c + 1] += counts[c];
+        }
+        cellStart = counts;
+        cellItems = new int[counts[cells]];
+        int[] fill = Arrays.copyOf(counts, cells);
+        for (int s = 0; s + 1 < n; s++) {
+            final int segment = s;
+            forEachCell(s, c -> cellItems[fill[c]++] = segment);
+        }
+    }
+
+    int stopCount() {
+        return stopIds.length;
+    }
+
+    double lengthMeters() {
+        return stopIds.length == 0 ? 0 : cumulativeMeters[stopIds.length - 1];
+    }
+
+    /**
+     * Snap a coordinate to the nearest segment within maxOffsetMeters.
+     * The hint (previous segment of the same vehicle, or -1) is tried first, as vehicles rarely jump.
+     *
+     * @return distance along the route in metres, or NaN when no segment is close enough
+     */
+    double snap(double lat, double lon, int hint, double maxOffsetMeters, int[] segmentOut) {
+        if (stopIds.length < 2) {
+            return Double.NaN;
+        }
+        double px = (lon - originLon) * metersPerDegLon;
+        double py = (lat - originLat) * metersPerDegLat;
+        double bestOffset = Double.MAX_VALUE;
+        double bestAlong = Double.NaN;
+        int bestSegment = -1;
+
+        if (hint >= 0) {
+            for (int s = Math.max(0, hint - 1); s <= Math.min(stopIds.length - 2, hint + 2); s++) {
+                double t = fraction(s, px, py);
+                double offset = offset(s, t, px, py);
+                if (offset < bestOffset) {
+                    bestOffset = offset;
+                    bestAlong = along(s, t);
+                    bestSegment = s;
+                }
+            }
+            // Still on or next to the previous segment, no need to look further
+            if (bestOffset <= maxOffsetMeters / 2) {
+                segmentOut[0] = bestSegment;
+                return bestAlong;
+            }
+        }
+
+        int cx = (int) Math.floor((px - minX) / CELL_SIZE_METERS);
+        int cy = (int) Math.floor((py - minY) / CELL_SIZE_METERS);
+        for (int gy = cy - 1; gy <= cy + 1; gy++) {
+            if (gy < 0 || gy >= rows) continue;
+            for (int gx = cx - 1; gx <= cx + 1; gx++) {
+                if (gx < 0 || gx >= cols) continue;
+                int c = gy * cols + gx;
+                for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+                    int s = cellItems[k];
+                    double t = fraction(s, px, py);
+                    double offset = offset(s, t, px, py);
+                    if (offset < bestOffset) {
+                        bestOffset = offset;
+                        bestAlong = along(s, t);
+                        bestSegment = s;
+                    }
+                }
+            }
+        }
+        if (bestSegment < 0 || bestOffset > maxOffsetMeters) {
+            return Double.NaN;
+        }
+        segmentOut[0] = bestSegment;
+        return bestAlong;
+    }
+
+    /**
+     * Projection of a point on segment s; offset and along take the result as plain doubles, so a snap
+     * allocates nothing per candidate segment
+     *
+     * @return position of the projected point, from 0 at the start of the segment to 1 at its end
+     */
+    private double fraction(int s, double px, double py) {
+        double ax = x[s], ay = y[s];
+        double dx = x[s + 1] - ax, dy = y[s + 1] - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        return Math.max(0, Math.min(1, t));
+    }
+
+    /**
+     * @return perpendicular offset in metres of the point from its projection at fraction t of segment s
+     */
+    private double offset(int s, double t, double px, double py) {
+        double qx = x[s] + t * (x[s + 1] - x[s]);
+        double qy = y[s] + t * (y[s + 1] - y[s]);
+        return Math.hypot(px - qx, py - qy);
+    }
+
+    /**
+     * @return distance along the route at fraction t of segment s
+     */
+    private double along(int s, double t) {
+        return cumulativeMeters[s] + t * (cumulativeMeters[s + 1] - cumulativeMeters[s]);
+    }
+
+    private void forEachCell(int s, java.util.function.IntConsumer action) {
+        int x0 = (int) ((Math.min(x[s], x[s + 1]) - minX) / CELL_SIZE_METERS);
+        int x1 = (int) ((Math.max(x[s], x[s + 1]) - minX) / CELL_SIZE_METERS);
+        int y0 = (int) ((Math.min(y[s], y[s + 1]) - minY) / CELL_SIZE_METERS);
+        int y1 = (int) ((Math.max(y[s], y[s + 1]) - minY) / CELL_SIZE_METERS);
+        for (int gy = y0; gy <= y1; gy++) {
+            for (int gx = x0; gx <= x1; gx++) {
+                action.accept(gy * cols + gx);
+            }
+        }
+    }
+}
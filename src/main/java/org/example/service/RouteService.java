@@ -1,17 +1,28 @@
 package org.example.service;
 
+import jakarta.persistence.Tuple;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dtos.AddRouteRequest;
 import org.example.dtos.BusRouteDto;
+import org.example.dtos.CursorPage;
+import org.example.dtos.RouteStopCount;
 import org.example.dtos.RouteResponse;
+import org.example.event.RouteChangedEvent;
+import org.example.exception.ConflictException;
 import org.example.exception.ResourceNotFoundException;
 import org.example.exception.ValidationException;
 import org.example.model.BusStop;
+import org.example.model.Frequency;
 import org.example.model.Route;
 import org.example.model.StopTime;
 import org.example.model.Trip;
 import org.example.repository.RouteRepository;
+import org.example.util.Cursors;
+import org.example.util.FieldSelection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -31,10 +42,19 @@ import java.util.stream.Collectors;
 @Transactional
 public class RouteService {
     
+    private static final String ROUTE_CURSOR = "route";
+    private static final Map<String, String> SPARSE_COLUMNS = Map.of(
+            "routeShortName", "route_short_name", "routeLongName", "route_long_name",
+            "direction", "direction", "directionName", "direction", "version", "version");
+
     private final RouteRepository routeRepository;
     private final BusStopService busStopService;
     private final TripService tripService;
     private final StopTimeService stopTimeService;
+    private final RouteWriteLocks routeWriteLocks;
+    private final TimetableService timetableService;
+    private final RouteStopProjection routeStopProjection;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a new route with validation and proper error handling
@@ -47,34 +67,52 @@ public class RouteService {
         
         // Check if route already exists
         String routeId = generateRouteId(request.getBusNumber(), request.getDirection());
+        routeWriteLocks.lockUntilCompletion(routeId);
         if (routeRepository.existsById(routeId)) {
-            throw new ValidationException("Route already exists for bus " + request.getBusNumber() + " direction " + request.getDirection());
+            throw new ConflictException("Route already exists for bus " + request.getBusNumber() + " direction " + request.getDirection());
         }
         
         // Validate all stops exist
         List<BusStop> stops = validateAndGetStops(request.getStopIds());
         
-        // Create route
+        // Create route; the new entity has no version yet, so this is an INSERT that fails on a duplicate key
+        // instead of silently merging into a route another instance created after our existence check
         Route route = createRouteEntity(request, stops);
-        Route savedRoute = routeRepository.save(route);
+        Route savedRoute;
+        try {
+            savedRoute = routeRepository.saveAndFlush(route);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Route already exists for bus " + request.getBusNumber() + " direction " + request.getDirection(), e);
+        }
         
         // Create trip and stop times
-        createTripAndStopTimes(savedRoute, stops);
+        createTripAndStopTimes(savedRoute, stops, request);
+        eventPublisher.publishEvent(new RouteChangedEvent(routeId, RouteChangedEvent.ChangeType.CREATED, stopIdsOf(stops)));
         
         log.info("Successfully created route: {}", routeId);
         return mapToRouteResponse(savedRoute, stops.size());
     }
 
     /**
-     * Get all routes with pagination
+     * Get all routes with pagination; with a field selection only the matching columns are queried, and stop
+     * counts are only looked up when the selection includes them
      */
     @Transactional(readOnly = true)
-    public Page<RouteResponse> getAllRoutes(Pageable pageable) {
+    public Page<RouteResponse> getAllRoutes(Pageable pageable, Set<String> fields) {
+        boolean withStopCount = FieldSelection.includes(fields, "stopCount");
+        if (fields != null) {
+            Page<Tuple> rows = routeRepository.findColumnsPage(columnsFor(fields), pageable);
+            Map<String, Integer> stopCounts = withStopCount
+                    ? stopCountsFor(rows.stream().map(row -> row.get("routeId", String.class)).toList())
+                    : Map.of();
+            return rows.map(row -> mapToSparseResponse(row, fields, stopCounts));
+        }
+
         Page<Route> routePage = routeRepository.findAll(pageable);
         
         List<RouteResponse> responses = routePage.getContent().stream()
                 .map(route -> {
-                    int stopCount = getStopCountForRoute(route.getRouteId());
+                    Integer stopCount = withStopCount ? getStopCountForRoute(route.getRouteId()) : null;
                     return mapToRouteResponse(route, stopCount);
                 })
                 .collect(Collectors.toList());
@@ -82,6 +120,33 @@ public class RouteService {
         return new PageImpl<>(responses, pageable, routePage.getTotalElements());
     }
 
+    /**
+     * Get routes ordered by route id after the cursor; stop counts come from one grouped query per page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RouteResponse> scrollRoutes(String cursor, int size, boolean includeTotal, Set<String> fields) {
+        Cursors.requirePageSize(size);
+        String after = Cursors.decode(ROUTE_CURSOR, cursor);
+        List<Route> rows = routeRepository.findByRouteIdGreaterThanOrderByRouteIdAsc(after != null ? after : "", Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<Route> page = hasMore ? rows.subList(0, size) : rows;
+
+        boolean withStopCount = FieldSelection.includes(fields, "stopCount");
+        Map<String, Integer> stopCounts = withStopCount
+                ? stopCountsFor(page.stream().map(Route::getRouteId).toList())
+                : Map.of();
+        List<RouteResponse> items = page.stream()
+                .map(route -> mapToRouteResponse(route, withStopCount ? stopCounts.getOrDefault(route.getRouteId(), 0) : null))
+                .collect(Collectors.toList());
+
+        return CursorPage.<RouteResponse>builder()
+                .items(items)
+                .size(items.size())
+                .nextCursor(hasMore ? Cursors.encode(ROUTE_CURSOR, page.get(page.size() - 1).getRouteId()) : null)
+                .total(includeTotal ? routeRepository.count() : null)
+                .build();
+    }
+
     /**
      * Get route with stops by ID
      */
@@ -105,8 +170,13 @@ public class RouteService {
     public RouteResponse updateRoute(String routeId, AddRouteRequest request) {
         log.info("Updating route: {}", routeId);
         
-        Route existingRoute = routeRepository.findById(routeId)
+        routeWriteLocks.lockUntilCompletion(routeId);
+        Route existingRoute = routeRepository.findByIdForUpdate(routeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Route", routeId));
+        if (request.getVersion() != null && !request.getVersion().equals(existingRoute.getVersion())) {
+            throw new ConflictException("Route " + routeId + " is at version " + existingRoute.getVersion()
+                    + " but the update was based on version " + request.getVersion());
+        }
         
         validateRouteRequest(request);
         List<BusStop> stops = validateAndGetStops(request.getStopIds());
@@ -115,9 +185,10 @@ public class RouteService {
         updateRouteEntity(existingRoute, request, stops);
         Route savedRoute = routeRepository.save(existingRoute);
         
-        // Recreate trip and stop times
+        // Recreate trip and stop times; the delete flushes the route first, which runs the version check
         deleteTripAndStopTimes(routeId);
-        createTripAndStopTimes(savedRoute, stops);
+        createTripAndStopTimes(savedRoute, stops, request);
+        eventPublisher.publishEvent(new RouteChangedEvent(routeId, RouteChangedEvent.ChangeType.UPDATED, stopIdsOf(stops)));
         
         log.info("Successfully updated route: {}", routeId);
         return mapToRouteResponse(savedRoute, stops.size());
@@ -127,10 +198,22 @@ public class RouteService {
      * Delete a route and all associated data
      */
     public void deleteRoute(String routeId) {
+        if (!deleteRouteIfExists(routeId)) {
+            throw new ResourceNotFoundException("Route", routeId);
+        }
+    }
+
+    /**
+     * Delete a route and all associated data if there is such a route
+     *
+     * @return whether the route existed
+     */
+    public boolean deleteRouteIfExists(String routeId) {
         log.info("Deleting route: {}", routeId);
         
+        routeWriteLocks.lockUntilCompletion(routeId);
         if (!routeRepository.existsById(routeId)) {
-            throw new ResourceNotFoundException("Route", routeId);
+            return false;
         }
         
         // Delete associated trips and stop times (cascade should handle this)
@@ -138,8 +221,10 @@ public class RouteService {
         
         // Delete route
         routeRepository.deleteById(routeId);
+        eventPublisher.publishEvent(new RouteChangedEvent(routeId, RouteChangedEvent.ChangeType.DELETED, List.of()));
         
         log.info("Successfully deleted route: {}", routeId);
+        return true;
     }
 
     /**
@@ -216,7 +301,11 @@ public class RouteService {
         return stops;
     }
 
-    private String generateRouteId(String busNumber, Integer direction) {
+    private List<Long> stopIdsOf(List<BusStop> stops) {
+        return stops.stream().map(BusStop::getId).collect(Collectors.toList());
+    }
+
+    static String generateRouteId(String busNumber, Integer direction) {
         return busNumber + "_" + direction;
     }
 
@@ -242,29 +331,49 @@ public class RouteService {
         BusStop endStop = stops.get(stops.size() - 1);
         String longName = startStop.getName() + " đến " + endStop.getName();
         route.setRoute_long_name(longName);
+        // Stops live in other tables, touching the row makes every update bump the version
+        route.setUpdatedAt(LocalDateTime.now());
     }
 
-    private void createTripAndStopTimes(Route route, List<BusStop> stops) {
+    private void createTripAndStopTimes(Route route, List<BusStop> stops, AddRouteRequest request) {
+        // Validate the schedule before writing anything; with frequencies the times are one trip's running times
+        List<Frequency> frequencies = timetableService.frequenciesFor(route, request);
+        int[][] times = timetableService.stopTimesFor(request, stops);
+        List<Trip> trips = new ArrayList<>(stops.size());
+        List<StopTime> stopTimes = new ArrayList<>(stops.size());
         for (int i = 0; i < stops.size(); i++) {
             Trip trip = new Trip();
             trip.setRoute(route);
             trip.setTripId(route.getRouteId() + "_" + i);
-            Trip savedTrip = tripService.saveTrip(trip);
+            trips.add(trip);
 
             StopTime stopTime = new StopTime();
             stopTime.setStopSequence(i);
             stopTime.setBusStop(stops.get(i));
-            stopTime.setTrip(savedTrip);
-            stopTimeService.saveStopTime(stopTime);
+            stopTime.setTrip(trip);
+            if (times != null) {
+                stopTime.setArrivalTime(times[0][i]);
+                stopTime.setDepartureTime(times[1][i]);
+            }
+            stopTimes.add(stopTime);
         }
+        // Trips are new (Persistable), so these are plain inserts that go out as JDBC batches
+        tripService.saveTrips(trips);
+        stopTimeService.saveStopTimes(stopTimes);
+        timetableService.saveFrequencies(frequencies);
+        routeStopProjection.replaceRoute(route.getRouteId(), stops);
     }
 
     private void deleteTripAndStopTimes(String routeId) {
-        // This would require additional repository methods
-        // For now, rely on cascade delete
+        // Bulk deletes, so a rewritten route never keeps stop times of the previous version
+        int stopTimes = stopTimeService.deleteStopTimesOfRoute(routeId);
+        int trips = tripService.deleteTripsOfRoute(routeId);
+        int frequencies = timetableService.deleteFrequenciesOfRoute(routeId);
+        routeStopProjection.deleteRoute(routeId);
+        log.debug("Removed {} trips, {} stop times and {} frequencies of route {}", trips, stopTimes, frequencies, routeId);
     }
 
-    private RouteResponse mapToRouteResponse(Route route, int stopCount) {
+    private RouteResponse mapToRouteResponse(Route route, Integer stopCount) {
         return RouteResponse.builder()
                 .routeId(route.getRouteId())
                 .busNumber(extractBusNumber(route.getRouteId()))
@@ -272,17 +381,55 @@ public class RouteService {
                 .routeLongName(route.getRoute_long_name())
                 .direction(route.getDirection())
                 .stopCount(stopCount)
+                .version(route.getVersion())
                 .createdAt(LocalDateTime.now()) // You'd want to add these fields to your entity
                 .updatedAt(LocalDateTime.now())
                 .build();
     }
 
+    // Response field -> Route attribute; the route id is always selected for the bus number and stop counts
+    private static Collection<String> columnsFor(Set<String> fields) {
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("routeId");
+        SPARSE_COLUMNS.forEach((field, column) -> {
+            if (fields.contains(field)) {
+                columns.add(column);
+            }
+        });
+        return columns;
+    }
+
+    private RouteResponse mapToSparseResponse(Tuple row, Set<String> fields, Map<String, Integer> stopCounts) {
+        String routeId = row.get("routeId", String.class);
+        RouteResponse.RouteResponseBuilder builder = RouteResponse.builder().routeId(routeId);
+        if (fields.contains("busNumber")) builder.busNumber(extractBusNumber(routeId));
+        if (fields.contains("routeShortName")) builder.routeShortName(row.get("route_short_name", String.class));
+        if (fields.contains("routeLongName")) builder.routeLongName(row.get("route_long_name", String.class));
+        if (fields.contains("direction") || fields.contains("directionName")) builder.direction(row.get("direction", Integer.class));
+        if (fields.contains("stopCount")) builder.stopCount(stopCounts.getOrDefault(routeId, 0));
+        if (fields.contains("version")) builder.version(row.get("version", Long.class));
+        if (fields.contains("createdAt")) builder.createdAt(LocalDateTime.now());
+        if (fields.contains("updatedAt")) builder.updatedAt(LocalDateTime.now());
+        return builder.build();
+    }
+
+    // One grouped query for the stop counts of a page of routes
+    private Map<String, Integer> stopCountsFor(List<String> routeIds) {
+        Map<String, Integer> stopCounts = new HashMap<>();
+        if (!routeIds.isEmpty()) {
+            for (RouteStopCount count : routeRepository.countStopsByRouteIds(routeIds)) {
+                stopCounts.put(count.getRouteId(), count.getStopCount().intValue());
+            }
+        }
+        return stopCounts;
+    }
+
     private String extractBusNumber(String routeId) {
         return routeId.split("_")[0];
     }
 
     private int getStopCountForRoute(String routeId) {
-        return getRouteWithStops(routeId).size();
+        return routeRepository.countStopsByRouteId(routeId);
     }
 
     private Map<String, Long> getRoutesByDirection() {
@@ -295,14 +442,10 @@ public class RouteService {
     }
 
     private double getAverageStopsPerRoute() {
-        List<Route> routes = routeRepository.findAll();
-        if (routes.isEmpty()) return 0.0;
+        long routes = routeRepository.count();
+        if (routes == 0) return 0.0;
         
-        double totalStops = routes.stream()
-                .mapToInt(route -> getStopCountForRoute(route.getRouteId()))
-                .sum();
-                
-        return totalStops / routes.size();
+        return (double) routeRepository.countRouteStops() / routes;
     }
 
     // Legacy methods for backward compatibility
@@ -0,0 +1,78 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.event.DataLoadedEvent;
+import org.example.model.BusStop;
+import org.example.model.RouteStop;
+import org.example.repository.RouteStopRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the route_stop read model.
+ *
+ * Route writes replace the rows of the route in the writing transaction. At startup, before the
+ * in-memory indexes are built from it, the table is rebuilt in bulk from stop_times when the row counts
+ * differ (first start, data written by an older version), and otherwise only the stop columns are
+ * refreshed from the freshly imported stops.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class RouteStopProjection {
+
+    private final RouteStopRepository routeStopRepository;
+
+    void replaceRoute(String routeId, List<BusStop> stops) {
+        routeStopRepository.deleteByRouteId(routeId);
+        List<RouteStop> rows = new ArrayList<>(stops.size());
+        for (int i = 0; i < stops.size(); i++) {
+            BusStop stop = stops.get(i);
+            RouteStop row = new RouteStop();
+            row.setRouteId(routeId);
+            row.setSeq(i);
+            row.setStopId(stop.getId());
+            row.setLat(stop.getLat());
+            row.setLon(stop.getLon());
+            row.setName(stop.getName());
+            rows.add(row);
+        }
+        routeStopRepository.saveAll(rows);
+    }
+
+    int deleteRoute(String routeId) {
+        return routeStopRepository.deleteByRouteId(routeId);
+    }
+
+    /**
+     * Rebuild every row from trip, stop_times and stop in one statement
+     */
+    public int rebuild() {
+        long started = System.currentTimeMillis();
+        routeStopRepository.deleteAllRows();
+        int rows = routeStopRepository.insertFromStopTimes();
+        log.info("Rebuilt route_stop: {} rows in {} ms", rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(DataLoadedEvent.class)
+    public void synchronize() {
+        if (routeStopRepository.count() != routeStopRepository.countStopTimes()) {
+            rebuild();
+        } else {
+            int refreshed = routeStopRepository.refreshStopColumns();
+            if (refreshed > 0) {
+                log.info("Refreshed stop columns of {} route_stop rows", refreshed);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks that serialize writes to the same route.
+ * Writes to different routes only share a lock when their ids hash to the same stripe,
+ * so with enough stripes unrelated routes effectively never contend.
+ * Set busroute.routes.lock-stripes=0 to rely on database constraints and versioning alone.
+ */
+@Slf4j
+@Component
+public class RouteWriteLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public RouteWriteLocks(@Value("${busroute.routes.lock-stripes:64}") int stripeCount) {
+        if (stripeCount <= 0) {
+            this.stripes = new ReentrantLock[0];
+            this.mask = 0;
+            log.info("Route write lock striping disabled");
+            return;
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size <= 0) size = 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Lock the stripe of a route until the surrounding transaction completes,
+     * so the next writer only starts after this one has committed or rolled back.
+     */
+    public void lockUntilCompletion(String routeId) {
+        if (stripes.length == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Route write locks require an active transaction");
+        }
+        ReentrantLock lock = stripeFor(routeId);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return stripes.length > 0;
+    }
+
+    private ReentrantLock stripeFor(String routeId) {
+        int h = routeId.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+}
@@ -0,0 +1,376 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.OperationStatus;
+import org.example.dtos.RouteWriteRequest;
+import org.example.exception.ResourceNotFoundException;
+import org.example.exception.TooManyRequestsException;
+import org.example.exception.ValidationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind path for bulk route edits.
+ *
+ * Writes are queued and return an operation id at once. A single writer thread takes up to batch-size
+ * writes, waiting at most max-wait-ms for a batch to fill, and commits them in one transaction through
+ * the normal RouteService methods, so validation, locks, the route_stop rows and change events are the
+ * same as for direct writes. Within a batch the writes to one route are folded, last write wins: an
+ * update or delete replaces an earlier update, an update turns an earlier create into a create of its
+ * own content, and a delete after a create leaves only the delete, applied whether or not the route
+ * existed. Updates that carry a version are not folded, their version check depends on the writes before
+ * them; other writes to the same route are applied in order. If any write of a batch fails the batch is
+ * rolled back and its writes are retried one transaction each, so only the failing ones are reported as
+ * failed.
+ *
+ * The queue holds at most capacity writes; a submit that does not fit is rejected as a whole with 429,
+ * which keeps the database load at one writer whatever the clients send.
+ */
+@Slf4j
+@Service
+public class RouteWriteQueue {
+
+    private final RouteService routeService;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final int retryAfterSeconds;
+    private final long retentionMillis;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Semaphore free;
+    private final LinkedBlockingQueue<Operation> queue = new LinkedBlockingQueue<>();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long lastSweep;
+
+    private final DistributionSummary batchSizes;
+    private final Counter applied;
+    private final Counter coalesced;
+    private final Counter failed;
+
+    private static final class Operation {
+        final String id = UUID.randomUUID().toString();
+        final RouteWriteRequest.Type type;
+        final String routeId;
+        final AddRouteRequest request;
+        final LocalDateTime queuedAt = LocalDateTime.now();
+        final CompletableFuture<OperationStatus> completion = new CompletableFuture<>();
+        final List<Operation> replaced = new ArrayList<>();
+        // How the write is applied once it has replaced earlier writes to its route
+        RouteWriteRequest.Type applyAs;
+        boolean ifExists;
+        volatile OperationStatus status;
+        volatile long completedAtMillis;
+
+        Operation(RouteWriteRequest.Type type, String routeId, AddRouteRequest request) {
+            this.type = type;
+            this.routeId = routeId;
+            this.request = request;
+            this.applyAs = type;
+            this.status = OperationStatus.builder()
+                    .operationId(id)
+                    .routeId(routeId)
+                    .type(type.name())
+                    .status("QUEUED")
+                    .queuedAt(queuedAt)
+                    .build();
+        }
+    }
+
+    public RouteWriteQueue(RouteService routeService,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${busroute.write-behind.capacity:10000}") int capacity,
+                           @Value("${busroute.write-behind.batch-size:200}") int batchSize,
+                           @Value("${busroute.write-behind.max-wait-ms:20}") long maxWaitMs,
+                           @Value("${busroute.write-behind.retry-after-seconds:1}") int retryAfterSeconds,
+                           @Value("${busroute.write-behind.status-retention-minutes:15}") long retentionMinutes) {
+        this.routeService = routeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+        this.free = new Semaphore(capacity);
+
+        meterRegistry.gauge("busroute.write_behind.queued", queue, LinkedBlockingQueue::size);
+        this.batchSizes = DistributionSummary.builder("busroute.write_behind.batch_size")
+                .description("Writes committed per transaction")
+                .register(meterRegistry);
+        this.applied = outcome(meterRegistry, "applied");
+        this.coalesced = outcome(meterRegistry, "coalesced");
+        this.failed = outcome(meterRegistry, "failed");
+
+        this.writer = new Thread(this::run, "route-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue writes in order; all are queued or, when the queue lacks room for all of them, none
+     *
+     * @throws TooManyRequestsException when the queue is full
+     */
+    public List<OperationStatus> submit(List<RouteWriteRequest> writes) {
+        List<Operation> accepted = new ArrayList<>(writes.size());
+        for (RouteWriteRequest write : writes) {
+            accepted.add(toOperation(write));
+        }
+        if (!free.tryAcquire(accepted.size())) {
+            throw new TooManyRequestsException("Write queue is full (" + queue.size() + " of " + capacity
+                    + " queued), retry later", retryAfterSeconds);
+        }
+        List<OperationStatus> statuses = new ArrayList<>(accepted.size());
+        for (Operation operation : accepted) {
+            operations.put(operation.id, operation);
+            queue.add(operation);
+            statuses.add(operation.status);
+        }
+        return statuses;
+    }
+
+    public OperationStatus getStatus(String operationId) {
+        return find(operationId).status;
+    }
+
+    /**
+     * Completes with the final status once the write has been committed, coalesced or has failed
+     */
+    public CompletableFuture<OperationStatus> completion(String operationId) {
+        return find(operationId).completion;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // The writer drains what is queued before it stops
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private Operation find(String operationId) {
+        Operation operation = operations.get(operationId);
+        if (operation == null) {
+            throw new ResourceNotFoundException("Operation", operationId);
+        }
+        return operation;
+    }
+
+    private Operation toOperation(RouteWriteRequest write) {
+        AddRouteRequest request = write.getRoute();
+        switch (write.getType()) {
+            case CREATE -> {
+                if (request == null) {
+                    throw new ValidationException("A CREATE write needs a route");
+                }
+                String routeId = RouteService.generateRouteId(request.getBusNumber(), request.getDirection());
+                if (write.getRouteId() != null && !write.getRouteId().equals(routeId)) {
+                    throw new ValidationException("Route id " + write.getRouteId() + " does not match bus "
+                            + request.getBusNumber() + " direction " + request.getDirection());
+                }
+                return new Operation(write.getType(), routeId, request);
+            }
+            case UPDATE -> {
+                if (write.getRouteId() == null || request == null) {
+                    throw new ValidationException("An UPDATE write needs a routeId and a route");
+                }
+                return new Operation(write.getType(), write.getRouteId(), request);
+            }
+            default -> {
+                if (write.getRouteId() == null) {
+                    throw new ValidationException("A DELETE write needs a routeId");
+                }
+                return new Operation(write.getType(), write.getRouteId(), null);
+            }
+        }
+    }
+
+    private void run() {
+        List<Operation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Operation first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    long deadline = System.nanoTime() + maxWaitNanos;
+                    while (batch.size() < batchSize) {
+                        Operation next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                    free.release(batch.size());
+                    apply(batch);
+                }
+                sweep();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Route write batch failed unexpectedly", e);
+                for (Operation operation : batch) {
+                    complete(operation, "FAILED", e.getMessage(), batch.size());
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Operation> batch) {
+        Map<String, List<Operation>> byRoute = new LinkedHashMap<>();
+        for (Operation operation : batch) {
+            List<Operation> writes = byRoute.computeIfAbsent(operation.routeId, id -> new ArrayList<>(1));
+            Operation last = writes.isEmpty() ? null : writes.get(writes.size() - 1);
+            if (last != null && replaces(last, operation)) {
+                operation.replaced.add(last);
+                operation.replaced.addAll(last.replaced);
+                writes.set(writes.size() - 1, operation);
+            } else {
+                writes.add(operation);
+            }
+        }
+        List<Operation> writes = new ArrayList<>(batch.size());
+        byRoute.values().forEach(writes::addAll);
+
+        long started = System.currentTimeMillis();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (Operation write : writes) {
+                    execute(write);
+                    // Keeps every flush of the batch as cheap as the first, and drops trips that the bulk
+                    // delete of a later write to the same route would leave managed
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            });
+            for (Operation write : writes) {
+                complete(write, "APPLIED", null, writes.size());
+            }
+            batchSizes.record(writes.size());
+            log.debug("Committed {} route writes ({} queued) in {} ms", writes.size(), batch.size(),
+                    System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            log.info("Route write batch of {} rolled back ({}), applying the writes one by one", writes.size(), e.getMessage());
+            for (Operation write : writes) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> execute(write));
+                    complete(write, "APPLIED", null, 1);
+                    batchSizes.record(1);
+                } catch (RuntimeException single) {
+                    complete(write, "FAILED", single.getMessage(), 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether next can take the place of last, the latest pending write to the same route, so that only
+     * next is applied; sets how next is applied when it can
+     */
+    private static boolean replaces(Operation last, Operation next) {
+        if (next.type == RouteWriteRequest.Type.CREATE
+                || next.type == RouteWriteRequest.Type.UPDATE && next.request.getVersion() != null) {
+            return false;
+        }
+        switch (last.applyAs) {
+            case UPDATE -> {
+                return true;
+            }
+            case CREATE -> {
+                if (next.type == RouteWriteRequest.Type.DELETE) {
+                    // Had the create failed because the route existed, the delete would have removed it
+                    next.ifExists = true;
+                    return true;
+                }
+                // An update may rename the bus, the create has to produce the route id the writes refer to
+                if (!RouteService.generateRouteId(next.request.getBusNumber(), next.request.getDirection())
+                        .equals(next.routeId)) {
+                    return false;
+                }
+                next.applyAs = RouteWriteRequest.Type.CREATE;
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void execute(Operation write) {
+        switch (write.applyAs) {
+            case CREATE -> routeService.createRoute(write.request);
+            case UPDATE -> routeService.updateRoute(write.routeId, write.request);
+            case DELETE -> {
+                if (write.ifExists) {
+                    routeService.deleteRouteIfExists(write.routeId);
+                } else {
+                    routeService.deleteRoute(write.routeId);
+                }
+            }
+        }
+    }
+
+    private void complete(Operation write, String status, String error, int committedWith) {
+        long now = System.currentTimeMillis();
+        LocalDateTime completedAt = LocalDateTime.now();
+        write.status = write.status.toBuilder().status(status).error(error).batchSize(committedWith)
+                .completedAt(completedAt).build();
+        write.completedAtMillis = now;
+        write.completion.complete(write.status);
+        (status.equals("APPLIED") ? applied : failed).increment();
+        for (Operation replaced : write.replaced) {
+            replaced.status = replaced.status.toBuilder().status("COALESCED").coalescedInto(write.id)
+                    .error(error).batchSize(committedWith).completedAt(completedAt).build();
+            replaced.completedAtMillis = now;
+            replaced.completion.complete(replaced.status);
+            coalesced.increment();
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < 1000) {
+            return;
+        }
+        lastSweep = now;
+        operations.values().removeIf(operation -> operation.completedAtMillis > 0
+                && now - operation.completedAtMillis > retentionMillis);
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("busroute.write_behind.writes")
+                .description("Queued route writes by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
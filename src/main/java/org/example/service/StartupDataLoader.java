@@ -0,0 +1,176 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.StartupProgress;
+import org.example.event.DataLoadedEvent;
+import org.example.event.StopsImportedEvent;
+import org.example.model.BusStop;
+import org.example.repository.StopRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Staged startup: the HTTP port opens and liveness is reported right away, while the stop import and
+ * index warmup run on a background thread.
+ *
+ * Stages: IMPORTING_STOPS scans stop.json for duplicate stops (StopDeduplicationService), saves it in
+ * batches, merges the duplicates that earlier imports saved and publishes StopsImportedEvent;
+ * WARMING_INDEXES publishes DataLoadedEvent, whose listeners rebuild their in-memory state
+ * synchronously; READY is set only after that.
+ *
+ * A failing step is retried with exponential backoff, so a slow or briefly unavailable database delays
+ * readiness instead of killing the instance. Completed steps are not repeated: after a failed
+ * StopsImportedEvent listener the event is published again without re-importing the stops, and after a
+ * failed warmup only DataLoadedEvent is.
+ */
+@Slf4j
+@Component
+public class StartupDataLoader {
+
+    public enum Stage { PENDING, IMPORTING_STOPS, WARMING_INDEXES, READY, FAILED }
+
+    private final StopRepository stopRepository;
+    private final StopDeduplicationService stopDeduplicationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ResourceLoader resourceLoader;
+    private final String stopFile;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "startup-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Stage stage = Stage.PENDING;
+    private volatile int stopsImported;
+    private volatile int stopsTotal;
+    private volatile int attempt;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String lastError;
+
+    public StartupDataLoader(StopRepository stopRepository,
+                             StopDeduplicationService stopDeduplicationService,
+                             ApplicationEventPublisher eventPublisher,
+                             ResourceLoader resourceLoader,
+                             @Value("${busroute.startup.stop-file:classpath:stop.json}") String stopFile,
+                             @Value("${busroute.startup.batch-size:500}") int batchSize,
+                             @Value("${busroute.startup.max-attempts:5}") int maxAttempts,
+                             @Value("${busroute.startup.retry-backoff-ms:2000}") long retryBackoffMs) {
+        this.stopRepository = stopRepository;
+        this.stopDeduplicationService = stopDeduplicationService;
+        this.eventPublisher = eventPublisher;
+        this.resourceLoader = resourceLoader;
+        this.stopFile = stopFile;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        startedAt = System.currentTimeMillis();
+        executor.execute(this::load);
+    }
+
+    public boolean isReady() {
+        return stage == Stage.READY;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public StartupProgress getProgress() {
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        return StartupProgress.builder()
+                .stage(stage.name())
+                .stopsImported(stopsImported)
+                .stopsTotal(stopsTotal)
+                .attempt(attempt)
+                .elapsedMillis(startedAt > 0 ? end - startedAt : null)
+                .lastError(lastError)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void load() {
+        long backoff = retryBackoffMs;
+        // Steps completed by an earlier attempt
+        int count = -1;
+        boolean announced = false;
+        for (attempt = 1; ; attempt++) {
+            try {
+                if (!announced) {
+                    stage = Stage.IMPORTING_STOPS;
+                    if (count < 0) {
+                        count = importStops();
+                    }
+                    eventPublisher.publishEvent(new StopsImportedEvent(count));
+                    announced = true;
+                }
+                stage = Stage.WARMING_INDEXES;
+                eventPublisher.publishEvent(new DataLoadedEvent(count));
+                finishedAt = System.currentTimeMillis();
+                stage = Stage.READY;
+                log.info("Startup data loaded: {} stops, ready after {} ms", count, finishedAt - startedAt);
+                return;
+            } catch (IOException | RuntimeException e) {
+                lastError = e.getMessage();
+                log.warn("Startup data load attempt {}/{} failed in stage {}: {}", attempt, maxAttempts, stage, e.getMessage());
+            }
+            if (attempt >= maxAttempts) {
+                break;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, 30_000);
+        }
+        finishedAt = System.currentTimeMillis();
+        stage = Stage.FAILED;
+        log.error("Startup data load gave up after {} attempts, the instance stays unready", maxAttempts);
+    }
+
+    private int importStops() throws IOException {
+        Resource resource = resourceLoader.getResource(stopFile);
+        BusStop[] busStops;
+        try (InputStream in = resource.getInputStream()) {
+            busStops = new ObjectMapper().readValue(in, BusStop[].class);
+        }
+        List<BusStop> stops = stopDeduplicationService.deduplicateImport(Arrays.asList(busStops));
+        stopsTotal = stops.size();
+        stopsImported = 0;
+        for (int from = 0; from < stops.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, stops.size());
+            stopRepository.saveAll(stops.subList(from, to));
+            stopsImported = to;
+            log.info("Imported {}/{} stops", to, stops.size());
+        }
+        stopDeduplicationService.applyImportMerges();
+        return stops.size();
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.StopDedupReport;
+import org.example.dtos.StopDuplicate;
+import org.example.dtos.StopMergeCandidate;
+import org.example.event.RouteChangedEvent;
+import org.example.event.StopsMergedEvent;
+import org.example.exception.ValidationException;
+import org.example.model.BusStop;
+import org.example.repository.RouteStopRepository;
+import org.example.repository.StopRepository;
+import org.example.repository.StopTimeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Duplicate and near-duplicate stops (see StopDeduplicator).
+ *
+ * The stop import scans stop.json before saving it and keeps the report for GET /api/v1/stops/duplicates.
+ * With busroute.dedup.apply the duplicates are not saved, and stop_times and route_stop rows that still
+ * point at them from earlier imports are moved to the kept stop before those stop rows are deleted. This
+ * happens before DataLoadedEvent, so every index is built from the merged stops. Instances that are
+ * already running learn about the merge through change_log: every route that used a merged stop gets a
+ * RouteChangedEvent and every kept stop a StopsMergedEvent, in the merging transaction.
+ */
+@Slf4j
+@Service
+public class StopDeduplicationService {
+
+    private static final int DELETE_BATCH = 1000;
+
+    private final StopRepository stopRepository;
+    private final StopTimeRepository stopTimeRepository;
+    private final RouteStopRepository routeStopRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final boolean apply;
+    private final double maxMeters;
+    private final double minNameSimilarity;
+    private final double unnamedMeters;
+
+    private volatile StopDedupReport lastImport;
+
+    public StopDeduplicationService(StopRepository stopRepository,
+                                    StopTimeRepository stopTimeRepository,
+                                    RouteStopRepository routeStopRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${busroute.dedup.enabled:true}") boolean enabled,
+                                    @Value("${busroute.dedup.apply:false}") boolean apply,
+                                    @Value("${busroute.dedup.max-meters:8}") double maxMeters,
+                                    @Value("${busroute.dedup.min-name-similarity:0.8}") double minNameSimilarity,
+                                    @Value("${busroute.dedup.unnamed-meters:2}") double unnamedMeters) {
+        this.stopRepository = stopRepository;
+        this.stopTimeRepository = stopTimeRepository;
+        this.routeStopRepository = routeStopRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.apply = apply;
+        this.maxMeters = maxMeters;
+        this.minNameSimilarity = minNameSimilarity;
+        this.unnamedMeters = unnamedMeters;
+    }
+
+    /**
+     * Scan the stops of an import and return the ones to save: all of them, or without the duplicates when
+     * merges are applied
+     */
+    public List<BusStop> deduplicateImport(List<BusStop> stops) {
+        if (!enabled) {
+            return stops;
+        }
+        StopDedupReport report = scan(stops, maxMeters, minNameSimilarity, apply);
+        lastImport = report;
+        log.info("Stop import: {} duplicate stops in {} groups among {} stops ({} pairs compared in {} ms){}",
+                report.getDuplicateCount(), report.getCandidates().size(), stops.size(), report.getPairsCompared(),
+                report.getElapsedMillis(), apply ? ", merging" : "");
+        if (!apply || report.getDuplicateCount() == 0) {
+            return stops;
+        }
+        Set<Long> duplicates = duplicateIds(report);
+        List<BusStop> kept = new ArrayList<>(stops.size() - duplicates.size());
+        for (BusStop stop : stops) {
+            if (!duplicates.contains(stop.getId())) {
+                kept.add(stop);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Point the stop_times and route_stop rows of merged stops at the kept stops and delete the merged
+     * stop rows; runs after the kept stops are saved
+     *
+     * @return the number of stop_times rows moved
+     */
+    @Transactional
+    public int applyImportMerges() {
+        StopDedupReport report = lastImport;
+        if (report == null || !report.isApplied() || report.getDuplicateCount() == 0) {
+            return 0;
+        }
+        // Only duplicates saved by an earlier import are stored; the others were never seen by anyone
+        List<Long> duplicates = new ArrayList<>(duplicateIds(report));
+        Set<Long> stored = new HashSet<>();
+        Set<String> routeIds = new LinkedHashSet<>();
+        for (int from = 0; from < duplicates.size(); from += DELETE_BATCH) {
+            List<Long> batch = duplicates.subList(from, Math.min(from + DELETE_BATCH, duplicates.size()));
+            stored.addAll(stopRepository.findExistingIds(batch));
+            routeIds.addAll(routeStopRepository.findRouteIdsByStopIds(batch));
+        }
+        if (stored.isEmpty()) {
+            return 0;
+        }
+
+        int moved = 0;
+        for (StopMergeCandidate candidate : report.getCandidates()) {
+            List<Long> ids = candidate.getDuplicates().stream().map(StopDuplicate::getStopId).filter(stored::contains).toList();
+            if (ids.isEmpty()) {
+                continue;
+            }
+            moved += stopTimeRepository.remapStops(ids, candidate.getKeepStopId());
+            routeStopRepository.remapStops(ids, candidate.getKeepStopId());
+            eventPublisher.publishEvent(new StopsMergedEvent(candidate.getKeepStopId(), ids));
+        }
+        List<Long> deleted = new ArrayList<>(stored);
+        for (int from = 0; from < deleted.size(); from += DELETE_BATCH) {
+            stopRepository.deleteAllByIdInBatch(deleted.subList(from, Math.min(from + DELETE_BATCH, deleted.size())));
+        }
+        for (String routeId : routeIds) {
+            eventPublisher.publishEvent(new RouteChangedEvent(routeId, RouteChangedEvent.ChangeType.UPDATED,
+                    routeStopRepository.findStopIdsByRouteId(routeId)));
+        }
+        log.info("Merged {} duplicate stops, {} stop times of {} routes moved to the kept stops",
+                deleted.size(), moved, routeIds.size());
+        return moved;
+    }
+
+    /**
+     * Report of the last import, or a scan of the stored stops when other thresholds are given or the
+     * import was not scanned
+     */
+    @Transactional(readOnly = true)
+    public StopDedupReport getCandidates(Double maxMeters, Double minNameSimilarity) {
+        StopDedupReport report = lastImport;
+        if (report != null && maxMeters == null && minNameSimilarity == null) {
+            return report;
+        }
+        double meters = maxMeters != null ? maxMeters : this.maxMeters;
+        double similarity = minNameSimilarity != null ? minNameSimilarity : this.minNameSimilarity;
+        if (meters <= 0 || meters > 500) {
+            throw new ValidationException("maxMeters must be greater than 0 and at most 500");
+        }
+        if (similarity < 0 || similarity > 1) {
+            throw new ValidationException("minNameSimilarity must be between 0 and 1");
+        }
+        return scan(stopRepository.findAll(), meters, similarity, false);
+    }
+
+    private StopDedupReport scan(List<BusStop> stops, double meters, double similarity, boolean applied) {
+        long started = System.currentTimeMillis();
+        StopDeduplicator.Result result = StopDeduplicator.find(stops, meters, similarity, unnamedMeters);
+        return StopDedupReport.builder()
+                .stopsScanned(stops.size())
+                .pairsCompared(result.pairsCompared())
+                .duplicateCount(result.duplicateCount())
+                .applied(applied)
+                .maxMeters(meters)
+                .minNameSimilarity(similarity)
+                .elapsedMillis(System.currentTimeMillis() - started)
+                .candidates(result.candidates())
+                .build();
+    }
+
+    private static Set<Long> duplicateIds(StopDedupReport report) {
+        Set<Long> ids = new HashSet<>();
+        for (StopMergeCandidate candidate : report.getCandidates()) {
+            for (StopDuplicate duplicate : candidate.getDuplicates()) {
+                ids.add(duplicate.getStopId());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,258 @@
+package org.example.service;
+
+import org.example.dtos.StopDuplicate;
+import org.example.dtos.StopMergeCandidate;
+import org.example.model.BusStop;
+import org.example.util.GeoUtils;
+import org.example.util.LongIntHashMap;
+import org.example.util.TextFolding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds duplicate stops: pairs within maxMeters whose folded names are at least minSimilarity alike, or
+ * within unnamedMeters when either stop has no name. A stop named as opposite ("đối diện") another never
+ * matches it.
+ *
+ * Stops are bucketed into a hash grid of maxMeters cells and each stop is compared only with the stops
+ * of its own and the eight neighbouring cells, so the work grows with the number of stops times the local
+ * density instead of with its square. Longitude cells are sized at the latitude farthest from the equator,
+ * where a degree is shortest, so no pair within maxMeters is more than one cell apart.
+ *
+ * Matching pairs are joined with union-find. A group keeps its preferred stop (named, then with more
+ * bench and shelter data, then the lowest id); members that do not match the kept stop themselves stay,
+ * so a chain of close stops along a street does not collapse into one.
+ */
+public final class StopDeduplicator {
+
+    // "Đối diện X" is the platform across the street from "X": close and alike, but serving the other direction
+    private static final String OPPOSITE = " doi dien ";
+
+    /**
+     * Merge groups; pairsCompared counts the distance checks, pairsMatched the pairs within the thresholds
+     */
+    public record Result(List<StopMergeCandidate> candidates, long pairsCompared, long pairsMatched, int duplicateCount) {
+    }
+
+    private final List<BusStop> stops;
+    private final double maxMeters;
+    private final double minSimilarity;
+    private final double unnamedMeters;
+    // Filled on first use: only stops close to another stop need their name folded
+    private final String[] names;
+    private final String[] folded;
+
+    private StopDeduplicator(List<BusStop> stops, double maxMeters, double minSimilarity, double unnamedMeters) {
+        this.stops = stops;
+        this.maxMeters = maxMeters;
+        this.minSimilarity = minSimilarity;
+        this.unnamedMeters = Math.min(unnamedMeters, maxMeters);
+        this.names = new String[stops.size()];
+        this.folded = new String[stops.size()];
+    }
+
+    public static Result find(List<BusStop> stops, double maxMeters, double minSimilarity, double unnamedMeters) {
+        return new StopDeduplicator(stops, maxMeters, minSimilarity, unnamedMeters).find();
+    }
+
+    private Result find() {
+        int n = stops.size();
+        double maxAbsLat = 0;
+        for (BusStop stop : stops) {
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(stop.getLat()));
+        }
+        double cellLat = maxMeters / GeoUtils.metersPerDegreeLat();
+        double cellLon = maxMeters / GeoUtils.metersPerDegreeLon(Math.min(maxAbsLat, 89.0));
+
+        // Grid in CSR layout: stops of cell c are cellItems[cellStart[c] .. cellStart[c + 1])
+        long[] rows = new long[n];
+        long[] cols = new long[n];
+        int[] cellOfStop = new int[n];
+        LongIntHashMap cellIndex = new LongIntHashMap(n);
+        int cells = 0;
+        for (int i = 0; i < n; i++) {
+            rows[i] = (long) Math.floor(stops.get(i).getLat() / cellLat);
+            cols[i] = (long) Math.floor(stops.get(i).getLon() / cellLon);
+            long key = key(rows[i], cols[i]);
+            int cell = cellIndex.get(key, -1);
+            if (cell < 0) {
+                cell = cells++;
+                cellIndex.put(key, cell);
+            }
+            cellOfStop[i] = cell;
+        }
+        int[] cellStart = new int[cells + 1];
+        for (int i = 0; i < n; i++) {
+            cellStart[cellOfStop[i] + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cellItems = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int i = 0; i < n; i++) {
+            cellItems[fill[cellOfStop[i]]++] = i;
+        }
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        long compared = 0;
+        long matched = 0;
+        for (int i = 0; i < n; i++) {
+            for (long dRow = -1; dRow <= 1; dRow++) {
+                for (long dCol = -1; dCol <= 1; dCol++) {
+                    int cell = cellIndex.get(key(rows[i] + dRow, cols[i] + dCol), -1);
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = cellItems[k];
+                        if (j <= i) {
+                            continue;
+                        }
+                        compared++;
+                        if (matches(i, j, distance(i, j))) {
+                            matched++;
+                            union(parent, i, j);
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] groupStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            groupStart[root(parent, i) + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            groupStart[i + 1] += groupStart[i];
+        }
+        int[] members = new int[n];
+        int[] next = Arrays.copyOf(groupStart, n);
+        for (int i = 0; i < n; i++) {
+            members[next[root(parent, i)]++] = i;
+        }
+
+        List<StopMergeCandidate> candidates = new ArrayList<>();
+        int duplicates = 0;
+        for (int group = 0; group < n; group++) {
+            int from = groupStart[group], to = groupStart[group + 1];
+            if (to - from < 2) {
+                continue;
+            }
+            int keep = members[from];
+            for (int k = from + 1; k < to; k++) {
+                if (preferred(members[k], keep)) {
+                    keep = members[k];
+                }
+            }
+            List<StopDuplicate> merged = new ArrayList<>();
+            for (int k = from; k < to; k++) {
+                int member = members[k];
+                double meters = distance(keep, member);
+                if (member != keep && matches(keep, member, meters)) {
+                    merged.add(new StopDuplicate(stops.get(member).getId(), nullIfEmpty(name(member)), round(meters, 10),
+                            round(TextFolding.similarity(folded(keep), folded(member)), 100)));
+                }
+            }
+            if (!merged.isEmpty()) {
+                BusStop kept = stops.get(keep);
+                candidates.add(new StopMergeCandidate(kept.getId(), nullIfEmpty(name(keep)), kept.getLat(), kept.getLon(), merged));
+                duplicates += merged.size();
+            }
+        }
+        candidates.sort(Comparator.comparing(StopMergeCandidate::getKeepStopId));
+        return new Result(candidates, compared, matched, duplicates);
+    }
+
+    private boolean matches(int a, int b, double meters) {
+        if (meters > maxMeters) {
+            return false;
+        }
+        if (folded(a).isEmpty() || folded(b).isEmpty()) {
+            return meters <= unnamedMeters;
+        }
+        if (opposite(folded(a)) != opposite(folded(b))) {
+            return false;
+        }
+        return TextFolding.similarity(folded(a), folded(b)) >= minSimilarity;
+    }
+
+    private static boolean opposite(String folded) {
+        return (" " + folded + " ").contains(OPPOSITE);
+    }
+
+    private String name(int i) {
+        if (names[i] == null) {
+            BusStop stop = stops.get(i);
+            String name = stop.getName() != null ? stop.getName() : stop.getTag() != null ? stop.getTag().getName() : null;
+            names[i] = name != null ? name : "";
+        }
+        return names[i];
+    }
+
+    private String folded(int i) {
+        if (folded[i] == null) {
+            folded[i] = TextFolding.fold(name(i));
+        }
+        return folded[i];
+    }
+
+    private double distance(int a, int b) {
+        BusStop first = stops.get(a);
+        BusStop second = stops.get(b);
+        return GeoUtils.haversineMeters(first.getLat(), first.getLon(), second.getLat(), second.getLon());
+    }
+
+    private boolean preferred(int candidate, int current) {
+        boolean candidateNamed = !folded(candidate).isEmpty();
+        if (candidateNamed != !folded(current).isEmpty()) {
+            return candidateNamed;
+        }
+        int candidateDetail = detail(stops.get(candidate));
+        int currentDetail = detail(stops.get(current));
+        if (candidateDetail != currentDetail) {
+            return candidateDetail > currentDetail;
+        }
+        return stops.get(candidate).getId() < stops.get(current).getId();
+    }
+
+    private static int detail(BusStop stop) {
+        String bench = stop.getBench() != null ? stop.getBench() : stop.getTag() != null ? stop.getTag().getBench() : null;
+        String shelter = stop.getShelter() != null ? stop.getShelter() : stop.getTag() != null ? stop.getTag().getShelter() : null;
+        return (bench != null ? 1 : 0) + (shelter != null ? 1 : 0);
+    }
+
+    private static String nullIfEmpty(String name) {
+        return name.isEmpty() ? null : name;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = root(parent, a);
+        int rootB = root(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xFFFFFFFFL);
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.StopRoutePair;
+import org.example.event.DataLoadedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.repository.RouteRepository;
+import org.example.util.LongIntHashMap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Reverse index from stop id to the routes serving it.
+ *
+ * Postings are sorted int arrays of route ordinals, one per stop slot, so a lookup is a hash probe
+ * plus an array read. The whole index is an immutable state object swapped on every change; a route
+ * write only copies the outer posting array and the postings of the stops it touched.
+ */
+@Slf4j
+@Component
+public class StopRouteIndex {
+
+    private static final int[] NO_ROUTES = new int[0];
+
+    private final RouteRepository routeRepository;
+    private volatile State state = State.empty();
+
+    public StopRouteIndex(RouteRepository routeRepository) {
+        this.routeRepository = routeRepository;
+    }
+
+    /**
+     * Route ids serving the stop, in the order routes were first indexed
+     */
+    public List<String> getRouteIds(long stopId) {
+        State current = state;
+        int[] postings = current.postingsOf(stopId);
+        List<String> routeIds = new ArrayList<>(postings.length);
+        for (int ordinal : postings) {
+            routeIds.add(current.routeNames[ordinal]);
+        }
+        return routeIds;
+    }
+
+    public int getRouteCount(long stopId) {
+        return state.postingsOf(stopId).length;
+    }
+
+    /**
+     * Rebuild from route_stop, run once at startup
+     */
+    @EventListener(DataLoadedEvent.class)
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        List<StopRoutePair> pairs = routeRepository.findAllStopRoutePairs();
+
+        Map<String, Integer> ordinals = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        LongIntHashMap slots = new LongIntHashMap(pairs.size());
+        List<IntList> lists = new ArrayList<>();
+        for (StopRoutePair pair : pairs) {
+            int ordinal = ordinals.computeIfAbsent(pair.getRouteId(), id -> {
+                names.add(id);
+                return names.size() - 1;
+            });
+            int slot = slots.get(pair.getStopId(), -1);
+            if (slot < 0) {
+                slot = lists.size();
+                slots.put(pair.getStopId(), slot);
+                lists.add(new IntList());
+            }
+            lists.get(slot).add(ordinal);
+        }
+
+        int[][] postings = new int[lists.size()][];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = lists.get(i).toSortedArray();
+        }
+        Map<String, long[]> routeStops = new HashMap<>();
+        Map<String, List<Long>> grouped = new HashMap<>();
+        for (StopRoutePair pair : pairs) {
+            grouped.computeIfAbsent(pair.getRouteId(), id -> new ArrayList<>()).add(pair.getStopId());
+        }
+        grouped.forEach((routeId, stops) -> routeStops.put(routeId, stops.stream().mapToLong(Long::longValue).toArray()));
+
+        state = new State(slots, postings, names.toArray(new String[0]), ordinals, routeStops);
+        log.info("Stop-route index built: {} stops, {} routes in {} ms",
+                postings.length, names.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRouteChanged(RouteChangedEvent event) {
+        State current = state;
+        String routeId = event.getRouteId();
+        long[] previousStops = current.routeStops.getOrDefault(routeId, new long[0]);
+        long[] newStops = event.getType() == RouteChangedEvent.ChangeType.DELETED
+                ? new long[0]
+                : event.getStopIds().stream().mapToLong(Long::longValue).distinct().toArray();
+
+        Map<String, Integer> ordinals = current.routeOrdinals;
+        String[] names = current.routeNames;
+        Integer ordinal = ordinals.get(routeId);
+        if (ordinal == null) {
+            if (newStops.length == 0) {
+                return;
+            }
+            ordinals = new HashMap<>(ordinals);
+            ordinal = names.length;
+            ordinals.put(routeId, ordinal);
+            names = Arrays.copyOf(names, names.length + 1);
+            names[ordinal] = routeId;
+        }
+
+        LongIntHashMap slots = current.stopSlots;
+        int[][] postings = current.postings.clone();
+        for (long stopId : previousStops) {
+            int slot = slots.get(stopId, -1);
+            if (slot >= 0) {
+                postings[slot] = without(postings[slot], ordinal);
+            }
+        }
+        for (long stopId : newStops) {
+            int slot = slots.get(stopId, -1);
+            if (slot < 0) {
+                if (slots == current.stopSlots) {
+                    slots = slots.copy();
+                }
+                slot = postings.length;
+                slots.put(stopId, slot);
+                postings = Arrays.copyOf(postings, postings.length + 1);
+                postings[slot] = NO_ROUTES;
+            }
+            postings[slot] = with(postings[slot], ordinal);
+        }
+
+        Map<String, long[]> routeStops = new HashMap<>(current.routeStops);
+        if (newStops.length == 0) {
+            routeStops.remove(routeId);
+        } else {
+            routeStops.put(routeId, newStops);
+        }
+        state = new State(slots, postings, names, ordinals, routeStops);
+    }
+
+    private static int[] with(int[] postings, int ordinal) {
+        int at = Arrays.binarySearch(postings, ordinal);
+        if (at >= 0) {
+            return postings;
+        }
+        int insert = -at - 1;
+        int[] result = new int[postings.length + 1];
+        System.arraycopy(postings, 0, result, 0, insert);
+        result[insert] = ordinal;
+        System.arraycopy(postings, insert, result, insert + 1, postings.length - insert);
+        return result;
+    }
+
+    private static int[] without(int[] postings, int ordinal) {
+        int at = Arrays.binarySearch(postings, ordinal);
+        if (at < 0) {
+            return postings;
+        }
+        int[] result = new int[postings.length - 1];
+        System.arraycopy(postings, 0, result, 0, at);
+        System.arraycopy(postings, at + 1, result, at, postings.length - at - 1);
+        return result;
+    }
+
+    private record State(LongIntHashMap stopSlots,
+                         int[][] postings,
+                         String[] routeNames,
+                         Map<String, Integer> routeOrdinals,
+                         Map<String, long[]> routeStops) {
+
+        static State empty() {
+            return new State(new LongIntHashMap(), new int[0][], new String[0], Map.of(), Map.of());
+        }
+
+        int[] postingsOf(long stopId) {
+            int slot = stopSlots.get(stopId, -1);
+            return slot < 0 ? NO_ROUTES : postings[slot];
+        }
+    }
+
+    private static final class IntList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(items, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.example.model.StopTime;
 import org.example.repository.StopTimeRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @AllArgsConstructor
 @Service
 public class StopTimeService {
@@ -14,4 +16,12 @@ public class StopTimeService {
     public void saveStopTime(StopTime stopTime) {
         stopTimeRepository.save(stopTime);
     }
+
+    public void saveStopTimes(List<StopTime> stopTimes) {
+        stopTimeRepository.saveAll(stopTimes);
+    }
+
+    public int deleteStopTimesOfRoute(String routeId) {
+        return stopTimeRepository.deleteByRouteId(routeId);
+    }
 }
@@ -0,0 +1,250 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.Departure;
+import org.example.dtos.DepartureBoard;
+import org.example.dtos.FrequencyRequest;
+import org.example.event.DataLoadedEvent;
+import org.example.event.RouteChangedEvent;
+import org.example.exception.ValidationException;
+import org.example.model.BusStop;
+import org.example.model.Frequency;
+import org.example.model.Route;
+import org.example.repository.FrequencyRepository;
+import org.example.repository.RouteRepository;
+import org.example.util.GeoUtils;
+import org.example.util.ServiceTimes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Route schedules: the stop times and frequency windows written with a route, and departure boards served
+ * from an in-memory DepartureIndex.
+ *
+ * The index is built at startup and rebuilt off-thread after route changes like the network graph; a
+ * board is a lookup of the stop and a binary search, without a database round trip. Every day runs the
+ * same timetable, there is no service calendar.
+ */
+@Slf4j
+@Service
+public class TimetableService implements DepartureIndex.RunningTimes {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final RouteRepository routeRepository;
+    private final FrequencyRepository frequencyRepository;
+    private final ZoneId zone;
+    private final double speedMps;
+    private final int dwellSeconds;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "departure-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private volatile DepartureIndex index = DepartureIndex.empty();
+
+    public TimetableService(RouteRepository routeRepository,
+                            FrequencyRepository frequencyRepository,
+                            @Value("${busroute.timetable.zone:Asia/Ho_Chi_Minh}") String zone,
+                            @Value("${busroute.timetable.speed-mps:5.5}") double speedMps,
+                            @Value("${busroute.timetable.dwell-seconds:20}") int dwellSeconds) {
+        this.routeRepository = routeRepository;
+        this.frequencyRepository = frequencyRepository;
+        this.zone = ZoneId.of(zone);
+        this.speedMps = speedMps;
+        this.dwellSeconds = dwellSeconds;
+    }
+
+    /**
+     * Next departures from a stop at or after a time of day; a stop no scheduled route serves has none
+     *
+     * @param after HH:mm or HH:mm:ss, the current time in the timetable zone when null
+     */
+    public DepartureBoard getDepartures(Long stopId, String after, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        int clock = after != null ? ServiceTimes.parse("after", after) : LocalTime.now(zone).toSecondOfDay();
+        if (clock >= ServiceTimes.DAY_SECONDS) {
+            throw new ValidationException("after must be a time of day before 24:00");
+        }
+
+        DepartureIndex current = index;
+        int slot = current.slotOf(stopId);
+        List<Departure> departures = new ArrayList<>();
+        if (slot >= 0) {
+            int[] dayOffsets = new int[limit];
+            int[] positions = current.next(slot, clock, limit, dayOffsets);
+            for (int i = 0; i < positions.length; i++) {
+                int trip = current.departureTrip[positions[i]];
+                int route = current.tripRoute[trip];
+                int seconds = current.departureSeconds[positions[i]] + dayOffsets[i];
+                departures.add(Departure.builder()
+                        .routeId(current.routeIds[route])
+                        .busNumber(current.routeIds[route].split("_")[0])
+                        .headsign(current.headsigns[route])
+                        .tripId(current.routeIds[route] + "@" + ServiceTimes.format(current.tripStart[trip]))
+                        .departureTime(ServiceTimes.format(Math.floorMod(seconds, ServiceTimes.DAY_SECONDS)))
+                        .minutesAway((seconds - clock) / 60)
+                        .build());
+            }
+        }
+        return DepartureBoard.builder()
+                .stopId(stopId)
+                .stopName(slot >= 0 ? current.stopNames[slot] : null)
+                .after(ServiceTimes.format(clock))
+                .departures(departures)
+                .build();
+    }
+
+    /**
+     * Arrival and departure times at every stop of a route being written: the requested times (arrival
+     * equal to departure), estimated running times from 00:00 when only frequencies are given, or null when
+     * the route has no schedule
+     */
+    int[][] stopTimesFor(AddRouteRequest request, List<BusStop> stops) {
+        List<String> requested = request.getDepartureTimes();
+        if (requested != null && !requested.isEmpty()) {
+            if (requested.size() != stops.size()) {
+                throw new ValidationException("Invalid route data",
+                        Map.of("departureTimes", "Expected one departure time per stop (" + stops.size() + ")"));
+            }
+            int[] times = new int[requested.size()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = ServiceTimes.parse("departureTimes[" + i + "]", requested.get(i));
+                if (i > 0 && times[i] < times[i - 1]) {
+                    throw new ValidationException("Invalid route data",
+                            Map.of("departureTimes", "Departure times must not decrease along the route"));
+                }
+            }
+            return new int[][]{times, times};
+        }
+        if (request.getFrequencies() == null || request.getFrequencies().isEmpty()) {
+            return null;
+        }
+        double[] lat = new double[stops.size()];
+        double[] lon = new double[stops.size()];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = stops.get(i).getLat();
+            lon[i] = stops.get(i).getLon();
+        }
+        int[] departures = departureOffsets(lat, lon);
+        return new int[][]{arrivalsOf(departures), departures};
+    }
+
+    /**
+     * Validated frequency windows of a route being written, none when the request has no frequencies
+     */
+    List<Frequency> frequenciesFor(Route route, AddRouteRequest request) {
+        List<Frequency> frequencies = new ArrayList<>();
+        if (request.getFrequencies() == null) {
+            return frequencies;
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (int i = 0; i < request.getFrequencies().size(); i++) {
+            FrequencyRequest window = request.getFrequencies().get(i);
+            String field = "frequencies[" + i + "]";
+            int start = ServiceTimes.parse(field + ".startTime", window.getStartTime());
+            int end = ServiceTimes.parse(field + ".endTime", window.getEndTime());
+            if (end <= start) {
+                errors.put(field, "End time must be after start time");
+            }
+            if (window.getHeadwayMinutes() == null || window.getHeadwayMinutes() < 1) {
+                errors.put(field + ".headwayMinutes", "Headway must be at least 1 minute");
+                continue;
+            }
+            Frequency frequency = new Frequency();
+            frequency.setRoute(route);
+            frequency.setStartTime(start);
+            frequency.setEndTime(end);
+            frequency.setHeadwaySecs(window.getHeadwayMinutes() * 60);
+            frequencies.add(frequency);
+        }
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Invalid route data", errors);
+        }
+        return frequencies;
+    }
+
+    void saveFrequencies(List<Frequency> frequencies) {
+        frequencyRepository.saveAll(frequencies);
+    }
+
+    int deleteFrequenciesOfRoute(String routeId) {
+        return frequencyRepository.deleteByRouteId(routeId);
+    }
+
+    /**
+     * Departure offsets from the first stop at the configured speed over straight-line distances, with a
+     * dwell at every intermediate stop
+     */
+    @Override
+    public int[] departureOffsets(double[] lat, double[] lon) {
+        int[] offsets = new int[lat.length];
+        double seconds = 0;
+        for (int i = 1; i < lat.length; i++) {
+            seconds += GeoUtils.haversineMeters(lat[i - 1], lon[i - 1], lat[i], lon[i]) / speedMps;
+            if (i < lat.length - 1) {
+                seconds += dwellSeconds;
+            }
+            offsets[i] = (int) Math.round(seconds);
+        }
+        return offsets;
+    }
+
+    /**
+     * Arrival times for departure times estimated by departureOffsets
+     */
+    int[] arrivalsOf(int[] departures) {
+        int[] arrivals = departures.clone();
+        for (int i = 1; i < arrivals.length - 1; i++) {
+            arrivals[i] -= dwellSeconds;
+        }
+        return arrivals;
+    }
+
+    @EventListener(DataLoadedEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        DepartureIndex built = DepartureIndex.build(routeRepository.findAllRouteStopTimes(),
+                frequencyRepository.findAllRows(), this);
+        index = built;
+        log.info("Departure index built: {} routes, {} trips, {} departures at {} stops in {} ms",
+                built.routeIds.length, built.tripCount(), built.departureCount(), built.stopIds.length,
+                System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Departure index rebuild failed, keeping the previous index", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+}
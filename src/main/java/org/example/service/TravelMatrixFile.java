@@ -0,0 +1,161 @@
+package org.example.service;
+
+import org.example.util.LongIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped all-pairs stop matrix.
+ *
+ * Layout (little endian):
+ * <pre>
+ * int    magic "BRMX"
+ * int    format version
+ * int    stop count n
+ * int    distance resolution in metres
+ * long   creation time, epoch millis
+ * long[n] stop ids, in matrix order
+ * u16[n*n] hop counts, row = origin
+ * u16[n*n] distances in resolution units, row = origin
+ * </pre>
+ * Values are quantized to unsigned 16 bits; 0xFFFF means unreachable and larger values saturate at 0xFFFE.
+ * Each matrix is mapped separately, which keeps n up to about 32k stops within one mapping.
+ */
+final class TravelMatrixFile implements AutoCloseable {
+
+    static final int MAGIC = 0x584D5242; // "BRMX" in little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final char UNREACHABLE = 0xFFFF;
+    static final char MAX_VALUE = 0xFFFE;
+
+    final int stopCount;
+    final int resolutionMeters;
+    final long createdAt;
+    final long[] stopIds;
+    final long fileBytes;
+
+    private final FileChannel channel;
+    private final LongIntHashMap index;
+    private final MappedByteBuffer hops;
+    private final MappedByteBuffer distances;
+
+    private TravelMatrixFile(FileChannel channel, FileChannel.MapMode mode, int stopCount, int resolutionMeters,
+                             long createdAt, long[] stopIds) throws IOException {
+        this.channel = channel;
+        this.stopCount = stopCount;
+        this.resolutionMeters = resolutionMeters;
+        this.createdAt = createdAt;
+        this.stopIds = stopIds;
+        this.index = new LongIntHashMap(stopCount);
+        for (int i = 0; i < stopCount; i++) {
+            index.put(stopIds[i], i);
+        }
+        long matrixBytes = (long) stopCount * stopCount * 2;
+        long hopsOffset = HEADER_BYTES + 8L * stopCount;
+        this.hops = channel.map(mode, hopsOffset, matrixBytes);
+        this.distances = channel.map(mode, hopsOffset + matrixBytes, matrixBytes);
+        this.hops.order(ByteOrder.LITTLE_ENDIAN);
+        this.distances.order(ByteOrder.LITTLE_ENDIAN);
+        this.fileBytes = hopsOffset + 2 * matrixBytes;
+    }
+
+    /**
+     * Create a new file of the right size with the header and stop ids written; rows are filled afterwards
+     */
+    static TravelMatrixFile create(Path path, long[] stopIds, int resolutionMeters) throws IOException {
+        int n = stopIds.length;
+        if ((long) n * n * 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many stops for a mapped matrix: " + n);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long headerBytes = HEADER_BYTES + 8L * n;
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerBytes);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            long createdAt = System.currentTimeMillis();
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(resolutionMeters).putLong(createdAt);
+            for (long id : stopIds) {
+                header.putLong(id);
+            }
+            header.force();
+            return new TravelMatrixFile(channel, FileChannel.MapMode.READ_WRITE, n, resolutionMeters, createdAt, stopIds.clone());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static TravelMatrixFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer fixed = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            fixed.order(ByteOrder.LITTLE_ENDIAN);
+            if (fixed.getInt() != MAGIC || fixed.getInt() != VERSION) {
+                throw new IOException("Not a travel matrix file of version " + VERSION + ": " + path);
+            }
+            int n = fixed.getInt();
+            int resolution = fixed.getInt();
+            long createdAt = fixed.getLong();
+            long expected = HEADER_BYTES + 8L * n + 4L * n * n;
+            if (channel.size() != expected) {
+                throw new IOException("Truncated travel matrix file: " + path);
+            }
+            MappedByteBuffer ids = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 8L * n);
+            ids.order(ByteOrder.LITTLE_ENDIAN);
+            long[] stopIds = new long[n];
+            ids.asLongBuffer().get(stopIds);
+            return new TravelMatrixFile(channel, FileChannel.MapMode.READ_ONLY, n, resolution, createdAt, stopIds);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    int indexOf(long stopId) {
+        return index.get(stopId, -1);
+    }
+
+    /**
+     * Write one origin row; rows of different origins may be written concurrently
+     */
+    void writeRow(int origin, double[] hopCosts, double[] meterCosts) {
+        int base = origin * stopCount * 2;
+        for (int to = 0; to < stopCount; to++) {
+            hops.putChar(base + to * 2, quantize(hopCosts[to], 1));
+            distances.putChar(base + to * 2, quantize(meterCosts[to], resolutionMeters));
+        }
+    }
+
+    char hops(int from, int to) {
+        return hops.getChar((from * stopCount + to) * 2);
+    }
+
+    char distanceUnits(int from, int to) {
+        return distances.getChar((from * stopCount + to) * 2);
+    }
+
+    void force() {
+        hops.force();
+        distances.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static char quantize(double value, double unit) {
+        if (Double.isInfinite(value) || Double.isNaN(value)) {
+            return UNREACHABLE;
+        }
+        long units = Math.round(value / unit);
+        return (char) Math.min(units, MAX_VALUE);
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.TravelMatrixEntry;
+import org.example.dtos.TravelMatrixStatus;
+import org.example.event.DataLoadedEvent;
+import org.example.exception.ConflictException;
+import org.example.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batch job computing hop-count and distance matrices between all stops of the network.
+ *
+ * Origins are split across a fork-join pool; each origin runs one BFS and one Dijkstra on the
+ * network graph and writes its two rows straight into a memory-mapped file. The job writes to a
+ * temporary file and atomically replaces the served matrix when it completes, so lookups always
+ * read a consistent matrix without touching the database.
+ */
+@Slf4j
+@Service
+public class TravelMatrixService {
+
+    private final NetworkGraphService networkGraphService;
+    private final Path matrixPath;
+    private final int resolutionMeters;
+    private final ForkJoinPool pool;
+
+    private final AtomicReference<TravelMatrixFile> current = new AtomicReference<>();
+    private final AtomicInteger originsDone = new AtomicInteger();
+    private volatile int originsTotal;
+    private volatile boolean running;
+    private volatile LocalDateTime jobStartedAt;
+    private volatile Long lastJobMillis;
+    private volatile String lastError;
+
+    public TravelMatrixService(NetworkGraphService networkGraphService,
+                               @Value("${busroute.matrix.path:data/travel-matrix.bin}") String matrixPath,
+                               @Value("${busroute.matrix.resolution-meters:10}") int resolutionMeters,
+                               @Value("${busroute.matrix.parallelism:0}") int parallelism) {
+        this.networkGraphService = networkGraphService;
+        this.matrixPath = Path.of(matrixPath);
+        this.resolutionMeters = resolutionMeters;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @EventListener(DataLoadedEvent.class)
+    public void loadExisting() {
+        if (!Files.exists(matrixPath)) {
+            return;
+        }
+        try {
+            swap(TravelMatrixFile.open(matrixPath));
+            log.info("Loaded travel matrix for {} stops from {}", current.get().stopCount, matrixPath);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable travel matrix {}: {}", matrixPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Start the batch job in the background
+     *
+     * @throws ConflictException when a job is already running
+     */
+    public synchronized TravelMatrixStatus startJob() {
+        if (running) {
+            throw new ConflictException("A travel matrix job is already running");
+        }
+        running = true;
+        lastError = null;
+        jobStartedAt = LocalDateTime.now();
+        originsDone.set(0);
+        Thread worker = new Thread(this::runJob, "travel-matrix-job");
+        worker.setDaemon(true);
+        worker.start();
+        return getStatus();
+    }
+
+    public TravelMatrixEntry lookup(long fromStopId, long toStopId) {
+        TravelMatrixFile matrix = current.get();
+        if (matrix == null) {
+            throw new ResourceNotFoundException("No travel matrix has been computed yet");
+        }
+        int from = matrix.indexOf(fromStopId);
+        int to = matrix.indexOf(toStopId);
+        if (from < 0) {
+            throw new ResourceNotFoundException("Bus Stop in travel matrix", fromStopId);
+        }
+        if (to < 0) {
+            throw new ResourceNotFoundException("Bus Stop in travel matrix", toStopId);
+        }
+        char hops = matrix.hops(from, to);
+        char distance = matrix.distanceUnits(from, to);
+        boolean reachable = hops != TravelMatrixFile.UNREACHABLE;
+        return TravelMatrixEntry.builder()
+                .fromStopId(fromStopId)
+                .toStopId(toStopId)
+                .reachable(reachable)
+                .hops(reachable ? (int) hops : null)
+                .distanceMeters(reachable && distance != TravelMatrixFile.UNREACHABLE ? distance * matrix.resolutionMeters : null)
+                .build();
+    }
+
+    public TravelMatrixStatus getStatus() {
+        TravelMatrixFile matrix = current.get();
+        return TravelMatrixStatus.builder()
+                .state(running ? "RUNNING" : lastError != null ? "FAILED" : "IDLE")
+                .originsDone(originsDone.get())
+                .originsTotal(originsTotal)
+                .jobStartedAt(jobStartedAt)
+                .lastJobMillis(lastJobMillis)
+                .lastError(lastError)
+                .stopCount(matrix != null ? matrix.stopCount : null)
+                .matrixCreatedAt(matrix != null
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(matrix.createdAt), ZoneId.systemDefault()) : null)
+                .fileBytes(matrix != null ? matrix.fileBytes : null)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        pool.shutdownNow();
+        TravelMatrixFile matrix = current.getAndSet(null);
+        if (matrix != null) {
+            matrix.close();
+        }
+    }
+
+    private void runJob() {
+        long started = System.currentTimeMillis();
+        Path temp = matrixPath.resolveSibling(matrixPath.getFileName() + ".tmp");
+        try {
+            NetworkGraph graph = networkGraphService.getGraph();
+            originsTotal = graph.stopCount();
+            if (matrixPath.getParent() != null) {
+                Files.createDirectories(matrixPath.getParent());
+            }
+            try (TravelMatrixFile output = TravelMatrixFile.create(temp, graph.stopIds, resolutionMeters)) {
+                pool.invoke(new OriginRange(graph, output, 0, graph.stopCount()));
+                output.force();
+            }
+            Files.move(temp, matrixPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            swap(TravelMatrixFile.open(matrixPath));
+            lastJobMillis = System.currentTimeMillis() - started;
+            log.info("Travel matrix for {} stops computed in {} ms", graph.stopCount(), lastJobMillis);
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            log.error("Travel matrix job failed", e);
+        } finally {
+            running = false;
+        }
+    }
+
+    private void swap(TravelMatrixFile next) {
+        TravelMatrixFile previous = current.getAndSet(next);
+        if (previous != null) {
+            try {
+                // The mapping stays valid for readers still holding it, closing only releases the channel
+                previous.close();
+            } catch (IOException e) {
+                log.debug("Could not close previous travel matrix: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recursively halves the origin range; small ranges are computed directly
+     */
+    private final class OriginRange extends RecursiveAction {
+        private static final int LEAF_SIZE = 16;
+
+        private final NetworkGraph graph;
+        private final TravelMatrixFile output;
+        private final int from;
+        private final int to;
+
+        OriginRange(NetworkGraph graph, TravelMatrixFile output, int from, int to) {
+            this.graph = graph;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int origin = from; origin < to; origin++) {
+                    double[] hops = IsochroneService.search(graph, origin, IsochroneService.Mode.STOPS, Integer.MAX_VALUE, 1);
+                    // At one metre per minute the MINUTES search yields plain metres
+                    double[] meters = IsochroneService.search(graph, origin, IsochroneService.Mode.MINUTES, Double.MAX_VALUE, 1);
+                    output.writeRow(origin, hops, meters);
+                    originsDone.incrementAndGet();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new OriginRange(graph, output, from, mid), new OriginRange(graph, output, mid, to));
+        }
+    }
+}
@@ -5,12 +5,22 @@ import org.example.model.Trip;
 import org.example.repository.TripRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 @AllArgsConstructor
 public class TripService {
     private TripRepository tripRepository;
 
-    public void saveTrip(Trip trip) {
-        tripRepository.save(trip);
+    public Trip saveTrip(Trip trip) {
+        return tripRepository.save(trip);
+    }
+
+    public List<Trip> saveTrips(List<Trip> trips) {
+        return tripRepository.saveAll(trips);
+    }
+
+    public int deleteTripsOfRoute(String routeId) {
+        return tripRepository.deleteByRouteId(routeId);
     }
 }
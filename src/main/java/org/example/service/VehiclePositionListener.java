@@ -0,0 +1,11 @@
+package org.example.service;
+
+import org.example.model.VehiclePosition;
+
+/**
+ * Receives every accepted vehicle position on the ingest thread, so implementations must be cheap
+ * and must not block or touch the database.
+ */
+public interface VehiclePositionListener {
+    void onPosition(VehiclePosition position);
+}
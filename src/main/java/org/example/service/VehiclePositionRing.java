@@ -0,0 +1,56 @@
+package org.example.service;
+
+import org.example.model.VehiclePosition;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free multi-producer ring of the most recent position reports of one route.
+ *
+ * Writers claim a slot with a single getAndIncrement and publish the immutable report into it,
+ * overwriting the oldest entry. Readers scan the ring without blocking writers and keep the newest
+ * report per vehicle. The capacity only has to exceed the number of reports a route receives
+ * between two updates of the same vehicle.
+ */
+class VehiclePositionRing {
+
+    private final AtomicReferenceArray<VehiclePosition> slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    VehiclePositionRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void publish(VehiclePosition position) {
+        int index = (int) (cursor.getAndIncrement() & mask);
+        slots.set(index, position);
+    }
+
+    /**
+     * Newest report per vehicle that is not older than the given epoch millisecond
+     */
+    List<VehiclePosition> latestPerVehicle(long notBefore) {
+        Map<String, VehiclePosition> latest = new HashMap<>();
+        int length = slots.length();
+        for (int i = 0; i < length; i++) {
+            VehiclePosition position = slots.get(i);
+            if (position == null || position.getTimestamp() < notBefore) {
+                continue;
+            }
+            latest.merge(position.getVehicleId(), position,
+                    (a, b) -> a.getTimestamp() >= b.getTimestamp() ? a : b);
+        }
+        List<VehiclePosition> result = new ArrayList<>(latest.values());
+        result.sort(Comparator.comparing(VehiclePosition::getVehicleId));
+        return result;
+    }
+
+    long totalPublished() {
+        return cursor.get();
+    }
+}
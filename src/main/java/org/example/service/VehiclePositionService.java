@@ -0,0 +1,135 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.IngestResult;
+import org.example.dtos.VehiclePositionUpdate;
+import org.example.event.RouteChangedEvent;
+import org.example.model.VehiclePosition;
+import org.example.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory store of live vehicle positions, one lock-free ring per route.
+ * Ingest and snapshot reads never touch the database.
+ */
+@Slf4j
+@Service
+public class VehiclePositionService {
+
+    private final ConcurrentHashMap<String, VehiclePositionRing> rings = new ConcurrentHashMap<>();
+    private final int ringCapacity;
+    private final int maxRoutes;
+    private final long maxAgeMs;
+    private final List<VehiclePositionListener> listeners;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public VehiclePositionService(@Value("${busroute.vehicles.ring-capacity:256}") int ringCapacity,
+                                  @Value("${busroute.vehicles.max-routes:5000}") int maxRoutes,
+                                  @Value("${busroute.vehicles.max-age-ms:120000}") long maxAgeMs,
+                                  List<VehiclePositionListener> listeners) {
+        this.ringCapacity = ringCapacity;
+        this.maxRoutes = maxRoutes;
+        this.maxAgeMs = maxAgeMs;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Store a batch of position reports; invalid reports are counted and skipped
+     */
+    public IngestResult ingest(List<VehiclePositionUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return IngestResult.builder().build();
+        }
+        long now = System.currentTimeMillis();
+        int ok = 0;
+        for (VehiclePositionUpdate update : updates) {
+            VehiclePosition position = toPosition(update, now);
+            if (position == null || !publish(position)) {
+                continue;
+            }
+            ok++;
+        }
+        int bad = updates.size() - ok;
+        accepted.add(ok);
+        rejected.add(bad);
+        return IngestResult.builder().accepted(ok).rejected(bad).build();
+    }
+
+    /**
+     * Store a single report, used by the built-in simulator
+     */
+    public boolean publish(VehiclePosition position) {
+        VehiclePositionRing ring = rings.get(position.getRouteId());
+        if (ring == null) {
+            if (rings.size() >= maxRoutes) {
+                return false;
+            }
+            ring = rings.computeIfAbsent(position.getRouteId(), id -> new VehiclePositionRing(ringCapacity));
+        }
+        ring.publish(position);
+        for (VehiclePositionListener listener : listeners) {
+            listener.onPosition(position);
+        }
+        return true;
+    }
+
+    /**
+     * Latest known position of every vehicle on the route that reported recently
+     */
+    public List<VehiclePosition> getVehiclesOnRoute(String routeId) {
+        VehiclePositionRing ring = rings.get(routeId);
+        if (ring == null) {
+            return List.of();
+        }
+        return ring.latestPerVehicle(System.currentTimeMillis() - maxAgeMs);
+    }
+
+    public Set<String> getActiveRouteIds() {
+        return Collections.unmodifiableSet(rings.keySet());
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("routes", rings.size());
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        if (event.getType() == RouteChangedEvent.ChangeType.DELETED) {
+            rings.remove(event.getRouteId());
+        }
+    }
+
+    private VehiclePosition toPosition(VehiclePositionUpdate update, long now) {
+        if (update == null || update.getVehicleId() == null || update.getRouteId() == null
+                || update.getLat() == null || update.getLon() == null
+                || !GeoUtils.isValidCoordinate(update.getLat(), update.getLon())) {
+            return null;
+        }
+        long timestamp = update.getTimestamp() != null ? update.getTimestamp() : now;
+        // Reports from the future would shadow real ones, clamp them to the arrival time
+        if (timestamp > now) {
+            timestamp = now;
+        }
+        return VehiclePosition.builder()
+                .vehicleId(update.getVehicleId())
+                .routeId(update.getRouteId())
+                .lat(update.getLat())
+                .lon(update.getLon())
+                .bearing(update.getBearing() != null ? update.getBearing() : 0f)
+                .speed(update.getSpeed() != null ? update.getSpeed() : 0f)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.BusRouteDto;
+import org.example.event.DataLoadedEvent;
+import org.example.model.Route;
+import org.example.model.VehiclePosition;
+import org.example.repository.RouteRepository;
+import org.example.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives simulated buses back and forth along stored route geometry, for local testing of the live map.
+ * Geometry is read once at startup; every tick only feeds the in-memory position store.
+ * Enable with busroute.simulator.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "busroute.simulator.enabled", havingValue = "true")
+public class VehicleSimulator {
+
+    private final RouteRepository routeRepository;
+    private final VehiclePositionService vehiclePositionService;
+    private final int maxRoutes;
+    private final int vehiclesPerRoute;
+    private final double speedMps;
+
+    private volatile List<SimulatedBus> buses = List.of();
+    private long lastTick;
+
+    public VehicleSimulator(RouteRepository routeRepository,
+                            VehiclePositionService vehiclePositionService,
+                            @Value("${busroute.simulator.routes:50}") int maxRoutes,
+                            @Value("${busroute.simulator.vehicles-per-route:3}") int vehiclesPerRoute,
+                            @Value("${busroute.simulator.speed-mps:8.0}") double speedMps) {
+        this.routeRepository = routeRepository;
+        this.vehiclePositionService = vehiclePositionService;
+        this.maxRoutes = maxRoutes;
+        this.vehiclesPerRoute = vehiclesPerRoute;
+        this.speedMps = speedMps;
+    }
+
+    @EventListener(DataLoadedEvent.class)
+    public void start() {
+        List<SimulatedBus> created = new ArrayList<>();
+        for (Route route : routeRepository.findAll(PageRequest.of(0, maxRoutes))) {
+            List<BusRouteDto> stops = routeRepository.findRouteStopWithSequence(route.getRouteId());
+            if (stops.size() < 2) {
+                continue;
+            }
+            Polyline line = new Polyline(stops);
+            for (int i = 0; i < vehiclesPerRoute; i++) {
+                double offset = line.length * i / vehiclesPerRoute;
+                created.add(new SimulatedBus(route.getRouteId() + "-sim-" + i, route.getRouteId(), line, offset));
+            }
+        }
+        buses = created;
+        lastTick = System.currentTimeMillis();
+        log.info("Vehicle simulator started with {} buses", created.size());
+    }
+
+    @Scheduled(fixedRateString = "${busroute.simulator.tick-ms:1000}")
+    public void tick() {
+        List<SimulatedBus> current = buses;
+        if (current.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        double elapsedSeconds = (now - lastTick) / 1000.0;
+        lastTick = now;
+        for (SimulatedBus bus : current) {
+            bus.advance(speedMps * elapsedSeconds);
+            vehiclePositionService.publish(bus.position(now, (float) speedMps));
+        }
+    }
+
+    /**
+     * Stop geometry with cumulative distances for interpolation
+     */
+    private static final class Polyline {
+        final double[] lat;
+        final double[] lon;
+        final double[] cumulative;
+        final double length;
+
+        Polyline(List<BusRouteDto> stops) {
+            int n = stops.size();
+            lat = new double[n];
+            lon = new double[n];
+            cumulative = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = stops.get(i).getLat();
+                lon[i] = stops.get(i).getLon();
+                if (i > 0) {
+                    cumulative[i] = cumulative[i - 1] + GeoUtils.haversineMeters(lat[i - 1], lon[i - 1], lat[i], lon[i]);
+                }
+            }
+            length = cumulative[n - 1];
+        }
+
+        int segmentAt(double distance) {
+            int i = 1;
+            while (i < cumulative.length - 1 && cumulative[i] < distance) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    private static final class SimulatedBus {
+        final String vehicleId;
+        final String routeId;
+        final Polyline line;
+        // Distance travelled along a there-and-back loop of the route
+        double travelled;
+
+        SimulatedBus(String vehicleId, String routeId, Polyline line, double offset) {
+            this.vehicleId = vehicleId;
+            this.routeId = routeId;
+            this.line = line;
+            this.travelled = offset;
+        }
+
+        void advance(double meters) {
+            travelled = line.length > 0 ? (travelled + meters) % (2 * line.length) : 0;
+        }
+
+        VehiclePosition position(long now, float speed) {
+            boolean returning = travelled > line.length;
+            double along = returning ? 2 * line.length - travelled : travelled;
+            int i = line.segmentAt(along);
+            double segmentLength = line.cumulative[i] - line.cumulative[i - 1];
+            double t = segmentLength > 0 ? (along - line.cumulative[i - 1]) / segmentLength : 0;
+            double lat = line.lat[i - 1] + (line.lat[i] - line.lat[i - 1]) * t;
+            double lon = line.lon[i - 1] + (line.lon[i] - line.lon[i - 1]) * t;
+            double bearing = returning
+                    ? GeoUtils.bearingDegrees(line.lat[i], line.lon[i], line.lat[i - 1], line.lon[i - 1])
+                    : GeoUtils.bearingDegrees(line.lat[i - 1], line.lon[i - 1], line.lat[i], line.lon[i]);
+            return VehiclePosition.builder()
+                    .vehicleId(vehicleId)
+                    .routeId(routeId)
+                    .lat(lat)
+                    .lon(lon)
+                    .bearing((float) bearing)
+                    .speed(speed)
+                    .timestamp(now)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.util;
+
+import org.example.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens for keyset pagination.
+ *
+ * A token is the URL-safe Base64 of "v1|kind|lastKey". The kind ties a token to the listing it came
+ * from, so a stop cursor is rejected by the route listing instead of silently skipping rows.
+ */
+public final class Cursors {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String VERSION = "v1";
+
+    private Cursors() {
+    }
+
+    public static String encode(String kind, String lastKey) {
+        String raw = VERSION + "|" + kind + "|" + lastKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Last key of the previous page, or null for a missing cursor (first page)
+     *
+     * @throws ValidationException when the token is malformed or belongs to another listing
+     */
+    public static String decode(String kind, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+        String[] parts = raw.split("\\|", 3);
+        if (parts.length != 3 || !VERSION.equals(parts[0]) || !kind.equals(parts[1])) {
+            throw new ValidationException("Invalid cursor");
+        }
+        return parts[2];
+    }
+
+    public static void requirePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public static long decodeLong(String kind, String cursor, long firstKey) {
+        String key = decode(kind, cursor);
+        if (key == null) {
+            return firstKey;
+        }
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.util;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.example.exception.ValidationException;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sparse responses via ?fields=a,b,c.
+ *
+ * DTOs annotated with @JsonFilter(FieldSelection.FILTER) are written with only the selected properties;
+ * the filter is applied by Jackson while serializing, so the unselected properties are never read or
+ * written. Without a selection every property is written (see JacksonConfig).
+ */
+public final class FieldSelection {
+
+    public static final String FILTER = "fields";
+
+    private FieldSelection() {
+    }
+
+    /**
+     * Selected property names, or null when all properties are wanted
+     *
+     * @throws ValidationException for names that are not properties of the type
+     */
+    public static Set<String> parse(Class<?> type, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> known = new TreeSet<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                known.add(field.getName());
+            }
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(trimmed)) {
+                throw new ValidationException("Unknown field '" + trimmed + "', expected any of " + known);
+            }
+            selected.add(trimmed);
+        }
+        return selected.isEmpty() ? null : selected;
+    }
+
+    public static boolean includes(Set<String> selection, String... names) {
+        return selection == null || Arrays.stream(names).anyMatch(selection::contains);
+    }
+
+    /**
+     * Wrap a response body so that filtered DTOs inside it keep only the selected properties
+     */
+    public static MappingJacksonValue apply(Object body, Set<String> selection) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+                .setFailOnUnknownId(false)
+                .addFilter(FILTER, selection == null
+                        ? SimpleBeanPropertyFilter.serializeAll()
+                        : new Selected(selection)));
+        return value;
+    }
+
+    /**
+     * The selection a body was wrapped with by apply, or null when all properties are wanted; for encoders
+     * that do not go through Jackson
+     */
+    public static Set<String> selectionOf(MappingJacksonValue value) {
+        if (value.getFilters() instanceof SimpleFilterProvider provider
+                && provider.findPropertyFilter(FILTER, null) instanceof Selected selected) {
+            return selected.names();
+        }
+        return null;
+    }
+
+    private static final class Selected extends SimpleBeanPropertyFilter.FilterExceptFilter {
+
+        Selected(Set<String> names) {
+            super(names);
+        }
+
+        Set<String> names() {
+            return _propertiesToInclude;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.util;
+
+/**
+ * Small spherical-earth helpers shared by the geometry features
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance in metres
+     */
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Metres per degree of longitude at the given latitude
+     */
+    public static double metersPerDegreeLon(double lat) {
+        return Math.toRadians(1) * EARTH_RADIUS_METERS * Math.cos(Math.toRadians(lat));
+    }
+
+    /**
+     * Metres per degree of latitude
+     */
+    public static double metersPerDegreeLat() {
+        return Math.toRadians(1) * EARTH_RADIUS_METERS;
+    }
+
+    /**
+     * Initial bearing from the first to the second point in degrees, 0 = north
+     */
+    public static double bearingDegrees(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360.0) % 360.0;
+    }
+
+    public static boolean isValidCoordinate(double lat, double lon) {
+        return lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180 && !(lat == 0 && lon == 0);
+    }
+}
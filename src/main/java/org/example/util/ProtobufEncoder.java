@@ -0,0 +1,388 @@
+package org.example.util;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.BusRouteDto;
+import org.example.dtos.BusStopResponse;
+import org.example.dtos.CursorPage;
+import org.example.dtos.RouteResponse;
+import org.example.exception.ErrorResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encoder for the messages of src/main/proto/busroute.proto.
+ *
+ * Writes straight from the response DTOs to the output stream with CodedOutputStream, without building
+ * generated message objects first. A length-delimited submessage needs its size before its content, so
+ * each message is described once as a sequence of field writes (Message) that is replayed against a size
+ * counter and then against the stream; list items remember their size, so each item is visited twice.
+ * Null and unselected (?fields=) properties are not written.
+ */
+public final class ProtobufEncoder {
+
+    public static final String SCHEMA = "busroute.proto";
+
+    private static final String PACKAGE = "busroute.v1.";
+    private static final int BUFFER_SIZE = 8192;
+
+    private ProtobufEncoder() {
+    }
+
+    /**
+     * Whether a response body of this declared type can be encoded: a stop, or a List, Page or CursorPage
+     * of stops, routes or route points, optionally inside ApiResponse, or an ErrorResponse.
+     * MappingJacksonValue bodies are accepted here and checked when written.
+     */
+    public static boolean supports(ResolvableType type) {
+        Class<?> raw = type.resolve(Object.class);
+        if (MappingJacksonValue.class.isAssignableFrom(raw) || ErrorResponse.class.isAssignableFrom(raw)) {
+            return true;
+        }
+        if (ApiResponse.class.isAssignableFrom(raw)) {
+            type = type.getGeneric(0);
+            raw = type.resolve(Object.class);
+        }
+        if (BusStopResponse.class.isAssignableFrom(raw)) {
+            return true;
+        }
+        return isListing(raw) && kindOf(type.getGeneric(0).resolve(Object.class)) != null;
+    }
+
+    /**
+     * Fully qualified name of the message the body is written as
+     *
+     * @throws IllegalArgumentException for bodies outside the schema
+     */
+    public static String messageName(Object body, ResolvableType declaredType) {
+        if (body instanceof ApiResponse<?>) {
+            return PACKAGE + "Envelope";
+        }
+        if (body instanceof ErrorResponse) {
+            return PACKAGE + "Error";
+        }
+        return PACKAGE + payload(body, declaredType, null).name();
+    }
+
+    /**
+     * Write an ApiResponse as Envelope, or a bare payload as its own message
+     *
+     * @param declaredType declared type of the body, used to tell empty listings apart; may be NONE
+     * @param selection    properties to write, null for all
+     * @throws IllegalArgumentException for bodies outside the schema
+     */
+    public static void write(Object body, ResolvableType declaredType, Set<String> selection, OutputStream out)
+            throws IOException {
+        Message message;
+        if (body instanceof ApiResponse<?> response) {
+            ResolvableType dataType = ApiResponse.class.isAssignableFrom(declaredType.resolve(Object.class))
+                    ? declaredType.getGeneric(0) : ResolvableType.NONE;
+            message = envelope(response, response.getData() == null ? null : payload(response.getData(), dataType, selection));
+        } else if (body instanceof ErrorResponse error) {
+            message = error(error);
+        } else {
+            message = payload(body, declaredType, selection).message();
+        }
+        CodedOutputStream coded = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        message.fields(new Writer(coded));
+        coded.flush();
+    }
+
+    @FunctionalInterface
+    private interface Message {
+        void fields(Sink sink) throws IOException;
+    }
+
+    private interface Sink {
+        void string(int field, String value) throws IOException;
+
+        void int32(int field, Integer value) throws IOException;
+
+        void int64(int field, Long value) throws IOException;
+
+        void float64(int field, Double value) throws IOException;
+
+        void bool(int field, Boolean value) throws IOException;
+
+        void message(int field, Message value) throws IOException;
+    }
+
+    private record Payload(int envelopeField, String name, Message message) {
+    }
+
+    private enum Kind { STOP, ROUTE, ROUTE_POINT }
+
+    private static Message envelope(ApiResponse<?> response, Payload payload) {
+        return sink -> {
+            sink.bool(1, response.isSuccess());
+            sink.string(2, response.getMessage());
+            sink.string(3, format(response.getTimestamp()));
+            if (payload != null && payload.envelopeField() > 0) {
+                sink.message(payload.envelopeField(), payload.message());
+            }
+        };
+    }
+
+    private static Message error(ErrorResponse error) {
+        return sink -> {
+            sink.string(1, format(error.getTimestamp()));
+            sink.int32(2, error.getStatus());
+            sink.string(3, error.getError());
+            sink.string(4, error.getMessage());
+            sink.string(5, error.getPath());
+            if (error.getDetails() != null) {
+                for (Map.Entry<String, ?> detail : error.getDetails().entrySet()) {
+                    sink.message(6, entry -> {
+                        entry.string(1, detail.getKey());
+                        entry.string(2, String.valueOf(detail.getValue()));
+                    });
+                }
+            }
+        };
+    }
+
+    private static Payload payload(Object data, ResolvableType declaredType, Set<String> selection) {
+        if (data instanceof BusStopResponse stop) {
+            return new Payload(4, "Stop", stop(stop, selection));
+        }
+        List<?> items;
+        Message page;
+        if (data instanceof Page<?> p) {
+            items = p.getContent();
+            page = sink -> {
+                sink.int32(1, p.getNumber());
+                sink.int32(2, p.getSize());
+                sink.int64(3, p.getTotalElements());
+                sink.int32(4, p.getTotalPages());
+            };
+        } else if (data instanceof CursorPage<?> c) {
+            items = c.getItems() != null ? c.getItems() : List.of();
+            page = sink -> {
+                sink.int32(2, c.getSize());
+                sink.int64(3, c.getTotal());
+                sink.string(5, c.getNextCursor());
+            };
+        } else if (data instanceof List<?> list) {
+            items = list;
+            page = null;
+        } else {
+            throw new IllegalArgumentException("No protobuf message for " + data.getClass().getSimpleName());
+        }
+
+        Kind kind = items.isEmpty()
+                ? kindOf(declaredType.getGeneric(0).resolve(Object.class))
+                : kindOf(items.get(0).getClass());
+        if (kind == null && !items.isEmpty()) {
+            throw new IllegalArgumentException("No protobuf message for lists of " + items.get(0).getClass().getSimpleName());
+        }
+        if (kind == null) {
+            // empty listing of unknown element type: any of the list messages decodes to the same bytes
+            return new Payload(0, "StopList", list(items, Kind.STOP, page, selection));
+        }
+        return switch (kind) {
+            case STOP -> new Payload(5, "StopList", list(items, kind, page, selection));
+            case ROUTE -> new Payload(6, "RouteList", list(items, kind, page, selection));
+            case ROUTE_POINT -> new Payload(7, "RoutePointList", list(items, kind, null, selection));
+        };
+    }
+
+    private static Message list(List<?> items, Kind kind, Message page, Set<String> selection) {
+        List<Sized> messages = new ArrayList<>(items.size());
+        for (Object item : items) {
+            messages.add(new Sized(switch (kind) {
+                case STOP -> stop((BusStopResponse) item, selection);
+                case ROUTE -> route((RouteResponse) item, selection);
+                case ROUTE_POINT -> routePoint((BusRouteDto) item);
+            }));
+        }
+        return sink -> {
+            for (Sized message : messages) {
+                sink.message(1, message);
+            }
+            if (page != null) {
+                sink.message(2, page);
+            }
+        };
+    }
+
+    private static Message stop(BusStopResponse stop, Set<String> selection) {
+        return sink -> {
+            if (has(selection, "id")) sink.int64(1, stop.getId());
+            if (has(selection, "name")) sink.string(2, stop.getName());
+            if (has(selection, "latitude")) sink.float64(3, stop.getLatitude());
+            if (has(selection, "longitude")) sink.float64(4, stop.getLongitude());
+            if (has(selection, "bench")) sink.string(5, stop.getBench());
+            if (has(selection, "shelter")) sink.string(6, stop.getShelter());
+            if (has(selection, "hasWheelchairAccess")) sink.bool(7, stop.getHasWheelchairAccess());
+            if (has(selection, "description")) sink.string(8, stop.getDescription());
+            if (has(selection, "routeCount")) sink.int32(9, stop.getRouteCount());
+            if (has(selection, "nearestLandmark")) sink.string(10, stop.getNearestLandmark());
+            if (has(selection, "distanceFromUser")) sink.float64(11, stop.getDistanceFromUser());
+        };
+    }
+
+    private static Message route(RouteResponse route, Set<String> selection) {
+        String createdAt = has(selection, "createdAt") ? format(route.getCreatedAt()) : null;
+        String updatedAt = has(selection, "updatedAt") ? format(route.getUpdatedAt()) : null;
+        return sink -> {
+            if (has(selection, "routeId")) sink.string(1, route.getRouteId());
+            if (has(selection, "busNumber")) sink.string(2, route.getBusNumber());
+            if (has(selection, "routeShortName")) sink.string(3, route.getRouteShortName());
+            if (has(selection, "routeLongName")) sink.string(4, route.getRouteLongName());
+            if (has(selection, "direction")) sink.int32(5, route.getDirection());
+            if (has(selection, "directionName")) sink.string(6, route.getDirectionName());
+            if (has(selection, "stopCount")) sink.int32(7, route.getStopCount());
+            if (has(selection, "description")) sink.string(8, route.getDescription());
+            if (has(selection, "version")) sink.int64(9, route.getVersion());
+            sink.string(10, createdAt);
+            sink.string(11, updatedAt);
+        };
+    }
+
+    private static Message routePoint(BusRouteDto point) {
+        return sink -> {
+            sink.float64(1, point.getLat());
+            sink.float64(2, point.getLon());
+            sink.int32(3, point.getSequence());
+            sink.string(4, point.getName());
+        };
+    }
+
+    private static boolean isListing(Class<?> raw) {
+        return List.class.isAssignableFrom(raw) || Page.class.isAssignableFrom(raw) || CursorPage.class.isAssignableFrom(raw);
+    }
+
+    private static Kind kindOf(Class<?> element) {
+        if (element == null) {
+            return null;
+        }
+        if (BusStopResponse.class.isAssignableFrom(element)) {
+            return Kind.STOP;
+        }
+        if (RouteResponse.class.isAssignableFrom(element)) {
+            return Kind.ROUTE;
+        }
+        if (BusRouteDto.class.isAssignableFrom(element)) {
+            return Kind.ROUTE_POINT;
+        }
+        return null;
+    }
+
+    private static boolean has(Set<String> selection, String name) {
+        return selection == null || selection.contains(name);
+    }
+
+    private static String format(LocalDateTime time) {
+        return time != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(time) : null;
+    }
+
+    private static int sizeOf(Message message) throws IOException {
+        if (message instanceof Sized sized) {
+            if (sized.size < 0) {
+                sized.size = sizeOf(sized.message);
+            }
+            return sized.size;
+        }
+        Sizer sizer = new Sizer();
+        message.fields(sizer);
+        return sizer.size;
+    }
+
+    // a message that computes its size only once
+    private static final class Sized implements Message {
+
+        final Message message;
+        int size = -1;
+
+        Sized(Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public void fields(Sink sink) throws IOException {
+            message.fields(sink);
+        }
+    }
+
+    private static final class Sizer implements Sink {
+
+        int size;
+
+        @Override
+        public void string(int field, String value) {
+            if (value != null) size += CodedOutputStream.computeStringSize(field, value);
+        }
+
+        @Override
+        public void int32(int field, Integer value) {
+            if (value != null) size += CodedOutputStream.computeInt32Size(field, value);
+        }
+
+        @Override
+        public void int64(int field, Long value) {
+            if (value != null) size += CodedOutputStream.computeInt64Size(field, value);
+        }
+
+        @Override
+        public void float64(int field, Double value) {
+            if (value != null) size += CodedOutputStream.computeDoubleSize(field, value);
+        }
+
+        @Override
+        public void bool(int field, Boolean value) {
+            if (value != null) size += CodedOutputStream.computeBoolSize(field, value);
+        }
+
+        @Override
+        public void message(int field, Message value) throws IOException {
+            int length = sizeOf(value);
+            size += CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+        }
+    }
+
+    private record Writer(CodedOutputStream out) implements Sink {
+
+        @Override
+        public void string(int field, String value) throws IOException {
+            if (value != null) out.writeString(field, value);
+        }
+
+        @Override
+        public void int32(int field, Integer value) throws IOException {
+            if (value != null) out.writeInt32(field, value);
+        }
+
+        @Override
+        public void int64(int field, Long value) throws IOException {
+            if (value != null) out.writeInt64(field, value);
+        }
+
+        @Override
+        public void float64(int field, Double value) throws IOException {
+            if (value != null) out.writeDouble(field, value);
+        }
+
+        @Override
+        public void bool(int field, Boolean value) throws IOException {
+            if (value != null) out.writeBool(field, value);
+        }
+
+        @Override
+        public void message(int field, Message value) throws IOException {
+            out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(sizeOf(value));
+            value.fields(this);
+        }
+    }
+}
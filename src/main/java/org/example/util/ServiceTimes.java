@@ -0,0 +1,44 @@
+package org.example.util;
+
+import org.example.exception.ValidationException;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Times on a service day as seconds since midnight, GTFS-style: a trip running past midnight keeps
+ * counting (25:10:00 is 01:10 the next morning), so times stay increasing along a trip.
+ */
+public final class ServiceTimes {
+
+    public static final int DAY_SECONDS = 86_400;
+    public static final int MAX_SECONDS = 2 * DAY_SECONDS;
+
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2}):([0-5]\\d)(?::([0-5]\\d))?");
+
+    private ServiceTimes() {
+    }
+
+    /**
+     * Parse HH:mm or HH:mm:ss, hours up to 47
+     *
+     * @throws ValidationException naming the field when the value is malformed
+     */
+    public static int parse(String field, String value) {
+        Matcher matcher = value != null ? TIME.matcher(value.trim()) : null;
+        if (matcher == null || !matcher.matches()) {
+            throw new ValidationException(field + " must be a time as HH:mm or HH:mm:ss");
+        }
+        int seconds = Integer.parseInt(matcher.group(1)) * 3600 + Integer.parseInt(matcher.group(2)) * 60
+                + (matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 0);
+        if (seconds >= MAX_SECONDS) {
+            throw new ValidationException(field + " must be before 48:00");
+        }
+        return seconds;
+    }
+
+    public static String format(int seconds) {
+        return String.format(Locale.ROOT, "%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+}
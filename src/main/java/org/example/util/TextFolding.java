@@ -0,0 +1,81 @@
+package org.example.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Accent- and case-insensitive comparison of stop names.
+ *
+ * Folding decomposes the name, drops the combining marks (Vietnamese tones and vowel marks) and maps đ,
+ * which is a letter of its own rather than d with a mark, to d; punctuation becomes single spaces.
+ * "Đối diện 108 Nguyễn Trãi" and "doi dien 108 nguyen trai" fold to the same string.
+ */
+public final class TextFolding {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private TextFolding() {
+    }
+
+    /**
+     * Folded form of the text, "" for null or text without letters and digits
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD);
+        String lower = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(lower).replaceAll(" ").trim();
+    }
+
+    /**
+     * Similarity of two folded names from 0 to 1: the better of the edit-distance ratio, which catches
+     * typos and abbreviations, and the Dice coefficient of the word sets, which catches reordered words.
+     * 0 when either name is empty.
+     */
+    public static double similarity(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        double edit = 1.0 - (double) levenshtein(a, b) / Math.max(a.length(), b.length());
+        Set<String> wordsA = new HashSet<>(Arrays.asList(a.split(" ")));
+        Set<String> wordsB = new HashSet<>(Arrays.asList(b.split(" ")));
+        int shared = 0;
+        for (String word : wordsA) {
+            if (wordsB.contains(word)) {
+                shared++;
+            }
+        }
+        double dice = 2.0 * shared / (wordsA.size() + wordsB.size());
+        return Math.max(edit, dice);
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.dtos.AddRouteRequest;
+import org.example.model.BusStop;
+import org.example.repository.StopRepository;
+import org.example.service.RouteService;
+import org.example.service.StartupDataLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Read replica routing against two in-memory H2 databases, one standing in for the primary and one for
+ * the replica. H2 has no replication, so the test copies the primary into the replica with SCRIPT /
+ * RUNSCRIPT whenever the replica should catch up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "busroute.datasource.replicas=" + ReadReplicaTest.REPLICA_URL,
+        "busroute.datasource.replica-check-ms=" + ReadReplicaTest.CHECK_MS,
+        "busroute.datasource.read-your-writes=true"})
+@ActiveProfiles("test")
+class ReadReplicaTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-copy;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final long CHECK_MS = 100;
+
+    private static final int READS = 50;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private StopRepository stopRepository;
+
+    @Autowired
+    private StartupDataLoader startupDataLoader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    private Long[] stopIds;
+
+    @BeforeEach
+    void replicateRoute() throws Exception {
+        await("stops to be loaded", startupDataLoader::isReady);
+        stopIds = stopRepository.findAll(PageRequest.of(0, 6)).stream().map(BusStop::getId).toArray(Long[]::new);
+        if (!exists("R1_0")) {
+            routeService.createRoute(request(3));
+        }
+        replicate();
+    }
+
+    @Test
+    void readsGoToAnUpToDateReplica() {
+        double replicaReads = reads("replica-1");
+        double primaryReads = reads("primary");
+
+        readRoute();
+
+        assertThat(reads("replica-1") - replicaReads).isEqualTo(READS);
+        assertThat(reads("primary") - primaryReads).isZero();
+    }
+
+    @Test
+    void updatedRouteReadsBackFreshFromThePrimaryUntilTheReplicaCatchesUp() throws Exception {
+        int stopCount = routeService.getRouteWithStops("R1_0").size() == 3 ? 5 : 3;
+        routeService.updateRoute("R1_0", request(stopCount));
+
+        // The replica still has the old stops, read-your-writes keeps the reads on the primary
+        double replicaReads = reads("replica-1");
+        double primaryReads = reads("primary");
+        assertThat(routeService.getRouteWithStops("R1_0")).hasSize(stopCount);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM route_stop WHERE route_id = 'R1_0'", Integer.class))
+                .isNotEqualTo(stopCount);
+        readRoute();
+        assertThat(reads("replica-1") - replicaReads).isZero();
+        assertThat(reads("primary") - primaryReads).isEqualTo(READS + 1);
+
+        replicate();
+        replicaReads = reads("replica-1");
+        assertThat(routeService.getRouteWithStops("R1_0")).hasSize(stopCount);
+        assertThat(reads("replica-1") - replicaReads).isEqualTo(1);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaGoesDown() {
+        readRoute();
+        replica.execute("SHUTDOWN");
+
+        // The pooled connections of the replica are dead now; no read may fail on them
+        double primaryReads = reads("primary");
+        readRoute();
+        assertThat(reads("primary") - primaryReads).isEqualTo(READS);
+    }
+
+    private void readRoute() {
+        for (int i = 0; i < READS; i++) {
+            assertThat(routeService.getRouteWithStops("R1_0")).isNotEmpty();
+        }
+    }
+
+    /**
+     * Copy the primary into the replica and wait until the health check lets reads go to it
+     */
+    private void replicate() throws Exception {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        Path script = Files.createTempFile("busroute-replica", ".sql");
+        try {
+            primary.execute("SCRIPT TO '" + script + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+        await("the replica check to pass", () -> {
+            double replicaReads = reads("replica-1");
+            routeService.getRouteWithStops("R1_0");
+            return reads("replica-1") > replicaReads;
+        });
+    }
+
+    private boolean exists(String routeId) {
+        return new JdbcTemplate(primaryDataSource)
+                .queryForObject("SELECT COUNT(*) FROM route WHERE route_id = ?", Integer.class, routeId) > 0;
+    }
+
+    private double reads(String target) {
+        Counter counter = meterRegistry.find("busroute.datasource.read_connections").tag("target", target).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private AddRouteRequest request(int stopCount) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber("R1");
+        request.setDirection(0);
+        request.setStopIds(Arrays.copyOf(stopIds, stopCount));
+        return request;
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
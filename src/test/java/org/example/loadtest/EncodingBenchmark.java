@@ -0,0 +1,187 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.example.dtos.ApiResponse;
+import org.example.dtos.BusRouteDto;
+import org.example.dtos.BusStopResponse;
+import org.example.dtos.RouteResponse;
+import org.example.model.BusStop;
+import org.example.util.FieldSelection;
+import org.example.util.ProtobufEncoder;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the response encodings offered through content negotiation: JSON (the baseline), CBOR,
+ * MessagePack and Protobuf, by encoded size, gzipped size and encode time.
+ *
+ * The payloads are built from stop.json the way the services build them: every stop as returned by a
+ * city-wide /stops/bounds call, the same with fields=id,latitude,longitude and envelope=false, a page of
+ * 500 routes and a 200-point route geometry. The mappers are configured like the application's
+ * (Jackson2ObjectMapperBuilder with the field-selection filter). No server or database is needed:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.example.loadtest.EncodingBenchmark --iterations=200
+ * </pre>
+ */
+public class EncodingBenchmark {
+
+    private static final String[] FORMATS = {"json", "cbor", "msgpack", "protobuf"};
+
+    private final Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 20);
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 200;
+        for (String arg : args) {
+            if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else {
+                System.err.println("Options: --iterations=<n>");
+                System.exit(2);
+            }
+        }
+        new EncodingBenchmark().run(iterations);
+    }
+
+    EncodingBenchmark() {
+        SimpleFilterProvider filters = new SimpleFilterProvider()
+                .setFailOnUnknownId(false)
+                .addFilter(FieldSelection.FILTER, SimpleBeanPropertyFilter.serializeAll());
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().filters(filters).build());
+        mappers.put("cbor", Jackson2ObjectMapperBuilder.json().filters(filters).factory(new CBORFactory()).build());
+        mappers.put("msgpack", Jackson2ObjectMapperBuilder.json().filters(filters).factory(new MessagePackFactory()).build());
+    }
+
+    private void run(int iterations) throws IOException {
+        List<BusStopResponse> stops = loadStops();
+        Map<String, MappingJacksonValue> payloads = new LinkedHashMap<>();
+        payloads.put("stops (" + stops.size() + ")", FieldSelection.apply(ApiResponse.success(stops), null));
+        payloads.put("stops id,lat,lon", FieldSelection.apply(stops,
+                new LinkedHashSet<>(List.of("id", "latitude", "longitude"))));
+        payloads.put("routes (500)", FieldSelection.apply(ApiResponse.success(routes(500)), null));
+        payloads.put("geometry (200)", FieldSelection.apply(ApiResponse.success(geometry(stops, 200)), null));
+
+        System.out.printf(Locale.ROOT, "%-18s %-9s %10s %10s %9s %10s %8s%n",
+                "payload", "format", "bytes", "gzip", "size", "median us", "time");
+        for (Map.Entry<String, MappingJacksonValue> payload : payloads.entrySet()) {
+            long baseBytes = 0;
+            long baseMicros = 0;
+            for (String format : FORMATS) {
+                byte[] encoded = encode(format, payload.getValue());
+                long micros = medianMicros(format, payload.getValue(), iterations);
+                if (format.equals("json")) {
+                    baseBytes = encoded.length;
+                    baseMicros = micros;
+                }
+                System.out.printf(Locale.ROOT, "%-18s %-9s %10d %10d %8.0f%% %10d %7.0f%%%n",
+                        payload.getKey(), format, encoded.length, gzip(encoded),
+                        100.0 * encoded.length / baseBytes, micros, 100.0 * micros / Math.max(1, baseMicros));
+            }
+        }
+    }
+
+    private long medianMicros(String format, MappingJacksonValue payload, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            encode(format, payload);
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            encode(format, payload);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        return nanos[iterations / 2] / 1000;
+    }
+
+    private byte[] encode(String format, MappingJacksonValue payload) throws IOException {
+        buffer.reset();
+        if (format.equals("protobuf")) {
+            ProtobufEncoder.write(payload.getValue(), ResolvableType.NONE, FieldSelection.selectionOf(payload), buffer);
+        } else {
+            mappers.get(format).writer(payload.getFilters()).writeValue(buffer, payload.getValue());
+        }
+        return buffer.toByteArray();
+    }
+
+    private static int gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+
+    private static List<BusStopResponse> loadStops() throws IOException {
+        BusStop[] busStops;
+        try (InputStream in = EncodingBenchmark.class.getClassLoader().getResourceAsStream("stop.json")) {
+            if (in == null) {
+                throw new IllegalStateException("stop.json not on the classpath");
+            }
+            busStops = new ObjectMapper().readValue(in, BusStop[].class);
+        }
+        List<BusStopResponse> stops = new ArrayList<>(busStops.length);
+        for (BusStop stop : busStops) {
+            stops.add(BusStopResponse.builder()
+                    .id(stop.getId())
+                    .name(stop.getName() != null ? stop.getName() : stop.getTag() != null ? stop.getTag().getName() : null)
+                    .latitude(stop.getLat())
+                    .longitude(stop.getLon())
+                    .bench(stop.getTag() != null ? stop.getTag().getBench() : null)
+                    .shelter(stop.getTag() != null ? stop.getTag().getShelter() : null)
+                    .routeCount(stop.getId().intValue() & 7)
+                    .build());
+        }
+        return stops;
+    }
+
+    private static PageImpl<RouteResponse> routes(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RouteResponse> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String busNumber = Integer.toString(i / 2 + 1);
+            routes.add(RouteResponse.builder()
+                    .routeId(busNumber + "_" + (i % 2))
+                    .busNumber(busNumber)
+                    .routeShortName("Tuyến " + busNumber)
+                    .routeLongName("Bến xe Giáp Bát đến Bến xe Mỹ Đình " + i)
+                    .direction(i % 2)
+                    .stopCount(20 + i % 30)
+                    .version((long) i % 3)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        }
+        return new PageImpl<>(routes, PageRequest.of(0, count), count * 4L);
+    }
+
+    private static List<BusRouteDto> geometry(List<BusStopResponse> stops, int points) {
+        List<BusRouteDto> geometry = new ArrayList<>(points);
+        for (int i = 0; i < points && i < stops.size(); i++) {
+            BusStopResponse stop = stops.get(i);
+            geometry.add(new BusRouteDto(stop.getLatitude(), stop.getLongitude(), i, stop.getName()));
+        }
+        return geometry;
+    }
+}
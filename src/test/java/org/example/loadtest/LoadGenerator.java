@@ -0,0 +1,313 @@
+package org.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Open-model HTTP load generator for the REST API.
+ *
+ * Requests are started at a constant arrival rate whatever the response times are, and latency is
+ * measured from the moment a request was scheduled to start, not from when it was actually sent. A
+ * slow server therefore shows up as higher latency instead of as a lower request rate (no coordinated
+ * omission). Uses only the JDK, so it runs against any instance:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes org.example.loadtest.LoadGenerator \
+ *      --url=http://localhost:8080 --rate=200 --duration=60 --warmup=10 \
+ *      --mix=bounds=50,route=30,routes=15,create=5
+ * </pre>
+ */
+public class LoadGenerator {
+
+    enum Scenario { BOUNDS, ROUTE, ROUTES, CREATE }
+
+    private static final Pattern ROUTE_ID = Pattern.compile("\"routeId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern STOP = Pattern.compile(
+            "\"id\"\\s*:\\s*(\\d+)\\s*,\\s*\"lat\"\\s*:\\s*(-?[\\d.]+)\\s*,\\s*\"lon\"\\s*:\\s*(-?[\\d.]+)");
+    private static final int CREATE_STOPS = 10;
+
+    private final String baseUrl;
+    private final double rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int maxInFlight;
+    private final Map<Scenario, Integer> mix;
+    private final HttpClient client;
+    private final Random random = new Random(7);
+
+    private final Map<Scenario, LatencyHistogram> histograms = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, AtomicLong> errors = new EnumMap<>(Scenario.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final String runTag = Integer.toString(new Random().nextInt(36 * 36), 36);
+    private final AtomicInteger createCounter = new AtomicInteger();
+
+    private List<String> routeIds = List.of();
+    private long[] stopIds = new long[0];
+    private double[] stopLats = new double[0];
+    private double[] stopLons = new double[0];
+
+    LoadGenerator(Map<String, String> options) {
+        this.baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        this.mix = parseMix(options.getOrDefault("mix", "bounds=50,route=30,routes=15,create=5"));
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        for (Scenario scenario : Scenario.values()) {
+            histograms.put(scenario, new LatencyHistogram());
+            errors.put(scenario, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Options: --url= --rate=<req/s> --duration=<s> --warmup=<s> --max-in-flight= "
+                        + "--mix=bounds=50,route=30,routes=15,create=5");
+                System.exit(2);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadGenerator generator = new LoadGenerator(options);
+        generator.discover();
+        generator.run();
+        generator.report();
+    }
+
+    /**
+     * Fetch the route and stop ids the scenarios pick from
+     */
+    void discover() throws Exception {
+        String routes = get("/api/v1/routes?page=0&size=2000");
+        List<String> ids = new ArrayList<>();
+        Matcher routeMatcher = ROUTE_ID.matcher(routes);
+        while (routeMatcher.find()) {
+            ids.add(routeMatcher.group(1));
+        }
+        routeIds = ids;
+
+        String stops = get("/api/v1/stops/all");
+        List<double[]> rows = new ArrayList<>();
+        Matcher stopMatcher = STOP.matcher(stops);
+        while (stopMatcher.find()) {
+            rows.add(new double[]{Double.parseDouble(stopMatcher.group(1)),
+                    Double.parseDouble(stopMatcher.group(2)), Double.parseDouble(stopMatcher.group(3))});
+        }
+        stopIds = new long[rows.size()];
+        stopLats = new double[rows.size()];
+        stopLons = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            stopIds[i] = (long) rows.get(i)[0];
+            stopLats[i] = rows.get(i)[1];
+            stopLons[i] = rows.get(i)[2];
+        }
+        System.out.printf(Locale.ROOT, "Target %s: %d routes, %d stops%n", baseUrl, routeIds.size(), stopIds.length);
+        if (stopIds.length == 0) {
+            throw new IllegalStateException("No stops returned by " + baseUrl + "/api/v1/stops/all");
+        }
+        if (routeIds.isEmpty()) {
+            mix.remove(Scenario.ROUTE);
+        }
+    }
+
+    /**
+     * Dispatch requests on a fixed schedule for warmup + duration seconds; only post-warmup results count
+     */
+    void run() throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmupSeconds * 1_000_000_000L;
+        long end = measureFrom + durationSeconds * 1_000_000_000L;
+        long nextProgress = start + 5_000_000_000L;
+        long lastCompleted = 0;
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        System.out.printf(Locale.ROOT, "Open model at %.1f req/s, %d s warmup, %d s measured, mix %s%n",
+                rate, warmupSeconds, durationSeconds, mix);
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (System.nanoTime() >= nextProgress) {
+                long done = completed.get();
+                System.out.printf(Locale.ROOT, "  %4d s  %8.1f resp/s  in flight %d%n",
+                        (System.nanoTime() - start) / 1_000_000_000L, (done - lastCompleted) / 5.0, inFlight.get());
+                lastCompleted = done;
+                nextProgress += 5_000_000_000L;
+            }
+            dispatch(pick(totalWeight), intended, intended >= measureFrom);
+        }
+
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    void report() {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "requests", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        LatencyHistogram all = new LatencyHistogram();
+        long allErrors = 0;
+        for (Scenario scenario : Scenario.values()) {
+            LatencyHistogram histogram = histograms.get(scenario);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            printRow(scenario.name().toLowerCase(Locale.ROOT), histogram, errors.get(scenario).get());
+            all.add(histogram);
+            allErrors += errors.get(scenario).get();
+        }
+        printRow("total", all, allErrors);
+        if (dropped.get() > 0) {
+            System.out.printf(Locale.ROOT, "%d requests not sent: more than %d in flight%n", dropped.get(), maxInFlight);
+        }
+    }
+
+    private void printRow(String name, LatencyHistogram h, long errorCount) {
+        System.out.printf(Locale.ROOT, "%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, h.count(), errorCount, (double) h.count() / durationSeconds, h.mean() / 1000,
+                h.percentile(50) / 1000.0, h.percentile(90) / 1000.0, h.percentile(99) / 1000.0,
+                h.percentile(99.9) / 1000.0, h.max() / 1000.0);
+    }
+
+    private void dispatch(Scenario scenario, long intendedNanos, boolean measured) {
+        if (inFlight.get() >= maxInFlight) {
+            dropped.incrementAndGet();
+            if (measured) {
+                errors.get(scenario).incrementAndGet();
+            }
+            return;
+        }
+        inFlight.incrementAndGet();
+        client.sendAsync(request(scenario), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    inFlight.decrementAndGet();
+                    completed.incrementAndGet();
+                    if (!measured) {
+                        return;
+                    }
+                    histograms.get(scenario).record((System.nanoTime() - intendedNanos) / 1000);
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.get(scenario).incrementAndGet();
+                    }
+                });
+    }
+
+    private HttpRequest request(Scenario scenario) {
+        return switch (scenario) {
+            case BOUNDS -> {
+                int s = random.nextInt(stopIds.length);
+                double half = 0.003 + random.nextDouble() * 0.012;  // ~0.6 to 3 km wide viewports
+                yield getRequest(String.format(Locale.ROOT,
+                        "/api/v1/stops/bounds?minLat=%.6f&maxLat=%.6f&minLon=%.6f&maxLon=%.6f",
+                        stopLats[s] - half, stopLats[s] + half, stopLons[s] - half, stopLons[s] + half));
+            }
+            case ROUTE -> getRequest("/api/v1/routes/" + routeIds.get(random.nextInt(routeIds.size())));
+            case ROUTES -> getRequest("/api/v1/routes?page=" + random.nextInt(Math.max(1, routeIds.size() / 20)) + "&size=20");
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/routes"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(createBody()))
+                    .build();
+        };
+    }
+
+    private HttpRequest getRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    // A new line through the stops nearest to a random one; bus numbers stay within the 10 character limit
+    private String createBody() {
+        int origin = random.nextInt(stopIds.length);
+        List<Integer> nearest = new ArrayList<>(stopIds.length);
+        for (int i = 0; i < stopIds.length; i++) {
+            nearest.add(i);
+        }
+        nearest.sort(Comparator.comparingDouble(i -> squaredDistance(origin, i)));
+        String ids = nearest.subList(0, Math.min(CREATE_STOPS, nearest.size())).stream()
+                .map(i -> Long.toString(stopIds[i]))
+                .collect(Collectors.joining(","));
+        String busNumber = "L" + runTag + Integer.toString(createCounter.incrementAndGet(), 36);
+        return "{\"busNumber\":\"" + busNumber + "\",\"direction\":0,\"stopIds\":[" + ids
+                + "],\"description\":\"Load test route\"}";
+    }
+
+    private double squaredDistance(int a, int b) {
+        double dLat = stopLats[a] - stopLats[b];
+        double dLon = stopLons[a] - stopLons[b];
+        return dLat * dLat + dLon * dLon;
+    }
+
+    private Scenario pick(int totalWeight) {
+        int ticket = random.nextInt(totalWeight);
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        return Scenario.BOUNDS;
+    }
+
+    // Waits out 503 + Retry-After while the target is still loading its data
+    private String get(String path) throws Exception {
+        HttpResponse<String> response = client.send(getRequest(path), HttpResponse.BodyHandlers.ofString());
+        for (int i = 0; i < 60 && response.statusCode() == 503; i++) {
+            long retryAfter = response.headers().firstValueAsLong("Retry-After").orElse(5);
+            System.out.printf(Locale.ROOT, "Target not ready, retrying in %d s%n", retryAfter);
+            Thread.sleep(retryAfter * 1000);
+            response = client.send(getRequest(path), HttpResponse.BodyHandlers.ofString());
+        }
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private static Map<Scenario, Integer> parseMix(String spec) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) {
+                mix.put(Scenario.valueOf(kv[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Empty scenario mix: " + spec);
+        }
+        return mix;
+    }
+}
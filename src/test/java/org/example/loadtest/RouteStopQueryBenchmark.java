@@ -0,0 +1,161 @@
+package org.example.loadtest;
+
+import org.example.Main;
+import org.example.service.StartupDataLoader;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the route_stop read model with the four-way join it replaced (route, trip, stop_times, stop
+ * sorted by stop_sequence), for the three read shapes the services use: one route's geometry, the stop
+ * counts of a page of routes and the whole network in route order.
+ *
+ * Starts the application in-process with the embedded profile (H2, synthetic routes), waits for the
+ * startup load and runs both variants of each query through JDBC, printing median and p99 latency and
+ * the query plans of the geometry query. Extra arguments are passed to the application:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.example.loadtest.RouteStopQueryBenchmark --iterations=2000 --busroute.seed.routes=1000
+ * </pre>
+ */
+public class RouteStopQueryBenchmark {
+
+    private static final String JOIN_GEOMETRY = """
+            SELECT s.lat, s.lon, st.stop_sequence, s.name
+            FROM route r
+            INNER JOIN trip t ON r.route_id = t.route_id
+            INNER JOIN stop_times st ON t.trip_id = st.trip_id
+            INNER JOIN stop s ON s.id = st.stop_id
+            WHERE r.route_id = ?
+            ORDER BY st.stop_sequence""";
+    private static final String PROJECTION_GEOMETRY = """
+            SELECT rs.lat, rs.lon, rs.seq, rs.name
+            FROM route_stop rs
+            WHERE rs.route_id = ?
+            ORDER BY rs.seq""";
+    private static final String JOIN_COUNTS = """
+            SELECT t.route_id, COUNT(*)
+            FROM trip t
+            INNER JOIN stop_times st ON t.trip_id = st.trip_id
+            WHERE t.route_id IN (%s)
+            GROUP BY t.route_id""";
+    private static final String PROJECTION_COUNTS = """
+            SELECT rs.route_id, COUNT(*)
+            FROM route_stop rs
+            WHERE rs.route_id IN (%s)
+            GROUP BY rs.route_id""";
+    private static final String JOIN_NETWORK = """
+            SELECT t.route_id, s.id, s.lat, s.lon, st.stop_sequence, s.name
+            FROM trip t
+            INNER JOIN stop_times st ON t.trip_id = st.trip_id
+            INNER JOIN stop s ON s.id = st.stop_id
+            ORDER BY t.route_id, st.stop_sequence""";
+    private static final String PROJECTION_NETWORK = """
+            SELECT rs.route_id, rs.stop_id, rs.lat, rs.lon, rs.seq, rs.name
+            FROM route_stop rs
+            ORDER BY rs.route_id, rs.seq""";
+
+    private static final int PAGE_SIZE = 50;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 2000;
+        List<String> appArgs = new ArrayList<>(List.of("--spring.profiles.active=embedded", "--server.port=0"));
+        for (String arg : args) {
+            if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+        if (appArgs.stream().noneMatch(arg -> arg.startsWith("--busroute.seed.routes="))) {
+            appArgs.add("--busroute.seed.routes=1000");
+        }
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(Main.class, appArgs.toArray(new String[0]))) {
+            StartupDataLoader loader = context.getBean(StartupDataLoader.class);
+            while (!loader.isReady()) {
+                if (loader.getStage() == StartupDataLoader.Stage.FAILED) {
+                    throw new IllegalStateException("startup data load failed");
+                }
+                Thread.sleep(100);
+            }
+            new RouteStopQueryBenchmark().run(context.getBean(JdbcTemplate.class), iterations);
+        }
+    }
+
+    private void run(JdbcTemplate jdbc, int iterations) {
+        List<String> routeIds = jdbc.queryForList("SELECT route_id FROM route", String.class);
+        long rows = jdbc.queryForObject("SELECT COUNT(*) FROM route_stop", Long.class);
+        System.out.printf(Locale.ROOT, "%d routes, %d route_stop rows%n%n", routeIds.size(), rows);
+        Collections.shuffle(routeIds, new Random(42));
+        String page = String.join(",", Collections.nCopies(PAGE_SIZE, "?"));
+
+        System.out.printf(Locale.ROOT, "%-16s %-10s %10s %10s %8s%n", "query", "variant", "median us", "p99 us", "speedup");
+        compare("route geometry", iterations,
+                i -> jdbc.queryForList(JOIN_GEOMETRY, routeIds.get(i % routeIds.size())),
+                i -> jdbc.queryForList(PROJECTION_GEOMETRY, routeIds.get(i % routeIds.size())));
+        compare("page stop counts", iterations,
+                i -> jdbc.queryForList(JOIN_COUNTS.formatted(page), pageOf(routeIds, i)),
+                i -> jdbc.queryForList(PROJECTION_COUNTS.formatted(page), pageOf(routeIds, i)));
+        compare("whole network", Math.max(5, iterations / 100),
+                i -> jdbc.query(JOIN_NETWORK, rs -> { while (rs.next()) { rs.getString(1); } return null; }),
+                i -> jdbc.query(PROJECTION_NETWORK, rs -> { while (rs.next()) { rs.getString(1); } return null; }));
+
+        System.out.println();
+        System.out.println("Plan, join:       " + plan(jdbc, JOIN_GEOMETRY, routeIds.get(0)));
+        System.out.println("Plan, route_stop: " + plan(jdbc, PROJECTION_GEOMETRY, routeIds.get(0)));
+    }
+
+    private static Object[] pageOf(List<String> routeIds, int i) {
+        Object[] page = new Object[PAGE_SIZE];
+        for (int k = 0; k < PAGE_SIZE; k++) {
+            page[k] = routeIds.get((i * PAGE_SIZE + k) % routeIds.size());
+        }
+        return page;
+    }
+
+    private static void compare(String name, int iterations, IntConsumer join, IntConsumer projection) {
+        long[] joinMicros = time(join, iterations);
+        long[] projectionMicros = time(projection, iterations);
+        print(name, "join", joinMicros, joinMicros);
+        print(name, "route_stop", projectionMicros, joinMicros);
+    }
+
+    private static long[] time(IntConsumer query, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            query.accept(i);
+        }
+        long[] micros = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long started = System.nanoTime();
+            query.accept(i);
+            micros[i] = (System.nanoTime() - started) / 1000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private static void print(String name, String variant, long[] micros, long[] baseline) {
+        long median = micros[micros.length / 2];
+        System.out.printf(Locale.ROOT, "%-16s %-10s %10d %10d %7.1fx%n", name, variant, median,
+                micros[(int) (micros.length * 0.99)], (double) baseline[baseline.length / 2] / Math.max(1, median));
+    }
+
+    private static String plan(JdbcTemplate jdbc, String sql, String routeId) {
+        // H2 answers one text column, MySQL one row per table
+        return jdbc.queryForList("EXPLAIN " + sql, routeId).stream()
+                .map(row -> row.values().toString())
+                .collect(Collectors.joining(" | "))
+                .replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-request: from launching the JVM until the first API call succeeds.
+ *
+ * Each variant is started several times as a child process with the embedded profile and without route
+ * seeding; the benchmark polls GET /api/v1/routes until it returns 200, i.e. until the background data
+ * load is done and the API stops answering 503, and then kills the process. Run it from the project root
+ * after mvn -Pfast-start package:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes org.example.loadtest.StartupBenchmark --runs=5
+ * java -cp target/test-classes:target/classes org.example.loadtest.StartupBenchmark "--variant=custom:-Xshare:off -jar target/app.jar"
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final String JAR = "Bus_Route-1.0-SNAPSHOT.jar";
+    private static final String[] APP_ARGS = {"--spring.profiles.active=embedded", "--busroute.seed.routes=0"};
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--runs=")) {
+                runs = Integer.parseInt(arg.substring("--runs=".length()));
+            } else if (arg.startsWith("--variant=") && arg.contains(":")) {
+                String spec = arg.substring("--variant=".length());
+                variants.put(spec.substring(0, spec.indexOf(':')), spec.substring(spec.indexOf(':') + 1));
+            } else {
+                System.err.println("Options: --runs=<n> --variant=<name>:<jvm args and -jar ...>");
+                System.exit(2);
+            }
+        }
+        if (variants.isEmpty()) {
+            variants.put("jar", "-jar target/" + JAR);
+            variants.put("extracted", "-jar target/fast-start/" + JAR);
+            variants.put("aot", "-Dspring.aot.enabled=true -jar target/fast-start/" + JAR);
+            variants.put("aot+cds", "-XX:SharedArchiveFile=target/fast-start/application.jsa -Dspring.aot.enabled=true -jar target/fast-start/" + JAR);
+        }
+
+        System.out.printf(Locale.ROOT, "%-10s %8s %8s %8s   (ms to first successful request, %d runs)%n",
+                "variant", "min", "median", "max", runs);
+        for (Map.Entry<String, String> variant : variants.entrySet()) {
+            long[] millis = new long[runs];
+            try {
+                for (int i = 0; i < runs; i++) {
+                    millis[i] = timeToFirstRequest(variant.getValue());
+                }
+            } catch (IOException | IllegalStateException e) {
+                System.out.printf(Locale.ROOT, "%-10s skipped: %s%n", variant.getKey(), e.getMessage());
+                continue;
+            }
+            Arrays.sort(millis);
+            System.out.printf(Locale.ROOT, "%-10s %8d %8d %8d%n",
+                    variant.getKey(), millis[0], millis[runs / 2], millis[runs - 1]);
+        }
+    }
+
+    private static long timeToFirstRequest(String jvmArgs) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+        command.addAll(Arrays.asList(APP_ARGS));
+        command.add("--server.port=" + port);
+        String jar = command.get(command.indexOf("-jar") + 1);
+        if (!new File(jar).isFile()) {
+            throw new IllegalStateException(jar + " not found, build with mvn -Pfast-start package");
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/routes?size=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = started + TimeUnit.SECONDS.toNanos(120);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited with code " + process.exitValue());
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("no successful request within 120 s");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.BusStop;
+import org.example.model.Tag;
+import org.example.service.StopDeduplicator;
+import org.example.util.GeoUtils;
+import org.example.util.TextFolding;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Duplicate stop detection on the grid (StopDeduplicator) against comparing every pair, on stop.json and
+ * on tiled copies of it (same density over a larger area, ids offset per copy).
+ *
+ * Prints time and distance checks of both; the all-pairs scan only runs up to --naive-max-stops. The
+ * matching pair counts must agree, which shows the grid does not miss pairs. No Spring context:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.example.loadtest.StopDedupBenchmark --max-meters=8 --copies=1,4,16,64
+ * </pre>
+ */
+public class StopDedupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        double maxMeters = 8;
+        double minSimilarity = 0.8;
+        double unnamedMeters = 2;
+        int naiveMaxStops = 20_000;
+        int[] copies = {1, 4, 16, 64};
+        for (String arg : args) {
+            if (arg.startsWith("--max-meters=")) {
+                maxMeters = Double.parseDouble(arg.substring("--max-meters=".length()));
+            } else if (arg.startsWith("--min-similarity=")) {
+                minSimilarity = Double.parseDouble(arg.substring("--min-similarity=".length()));
+            } else if (arg.startsWith("--naive-max-stops=")) {
+                naiveMaxStops = Integer.parseInt(arg.substring("--naive-max-stops=".length()));
+            } else if (arg.startsWith("--copies=")) {
+                copies = Arrays.stream(arg.substring("--copies=".length()).split(",")).mapToInt(Integer::parseInt).toArray();
+            }
+        }
+
+        BusStop[] source;
+        try (InputStream in = StopDedupBenchmark.class.getResourceAsStream("/stop.json")) {
+            source = new ObjectMapper().readValue(in, BusStop[].class);
+        }
+        // Warm up the JIT on the real data
+        for (int i = 0; i < 5; i++) {
+            StopDeduplicator.find(Arrays.asList(source), maxMeters, minSimilarity, unnamedMeters);
+        }
+
+        System.out.printf(Locale.ROOT, "max %.0f m, name similarity %.2f, unnamed %.0f m%n%n", maxMeters, minSimilarity, unnamedMeters);
+        System.out.printf(Locale.ROOT, "%8s %10s %12s %10s %10s %14s %10s %10s%n", "stops", "grid ms", "grid checks",
+                "matched", "dups", "naive checks", "naive ms", "matched");
+        for (int k : copies) {
+            List<BusStop> stops = tile(source, k);
+            long started = System.nanoTime();
+            StopDeduplicator.Result result = StopDeduplicator.find(stops, maxMeters, minSimilarity, unnamedMeters);
+            double gridMs = (System.nanoTime() - started) / 1e6;
+            String naive = String.format(Locale.ROOT, "%14s %10s %10s", "-", "-", "-");
+            if (stops.size() <= naiveMaxStops) {
+                started = System.nanoTime();
+                long matched = allPairs(stops, maxMeters, minSimilarity, unnamedMeters);
+                double naiveMs = (System.nanoTime() - started) / 1e6;
+                long checks = (long) stops.size() * (stops.size() - 1) / 2;
+                naive = String.format(Locale.ROOT, "%14d %10.0f %10d", checks, naiveMs, matched);
+            }
+            System.out.printf(Locale.ROOT, "%8d %10.1f %12d %10d %10d %s%n", stops.size(), gridMs, result.pairsCompared(),
+                    result.pairsMatched(), result.duplicateCount(), naive);
+        }
+    }
+
+    private static long allPairs(List<BusStop> stops, double maxMeters, double minSimilarity, double unnamedMeters) {
+        int n = stops.size();
+        String[] folded = new String[n];
+        for (int i = 0; i < n; i++) {
+            Tag tag = stops.get(i).getTag();
+            folded[i] = TextFolding.fold(tag != null ? tag.getName() : null);
+        }
+        long matched = 0;
+        for (int i = 0; i < n; i++) {
+            BusStop a = stops.get(i);
+            for (int j = i + 1; j < n; j++) {
+                BusStop b = stops.get(j);
+                double meters = GeoUtils.haversineMeters(a.getLat(), a.getLon(), b.getLat(), b.getLon());
+                boolean match = folded[i].isEmpty() || folded[j].isEmpty()
+                        ? meters <= Math.min(unnamedMeters, maxMeters)
+                        : meters <= maxMeters && opposite(folded[i]) == opposite(folded[j])
+                        && TextFolding.similarity(folded[i], folded[j]) >= minSimilarity;
+                if (match) {
+                    matched++;
+                }
+            }
+        }
+        return matched;
+    }
+
+    private static boolean opposite(String folded) {
+        return (" " + folded + " ").contains(" doi dien ");
+    }
+
+    /**
+     * k copies of the stops laid out side by side in a square, each shifted by the extent of the data
+     */
+    private static List<BusStop> tile(BusStop[] source, int k) {
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        long maxId = 0;
+        for (BusStop stop : source) {
+            minLat = Math.min(minLat, stop.getLat());
+            maxLat = Math.max(maxLat, stop.getLat());
+            minLon = Math.min(minLon, stop.getLon());
+            maxLon = Math.max(maxLon, stop.getLon());
+            maxId = Math.max(maxId, stop.getId());
+        }
+        int side = (int) Math.ceil(Math.sqrt(k));
+        List<BusStop> stops = new ArrayList<>(source.length * k);
+        for (int copy = 0; copy < k; copy++) {
+            double dLat = (copy / side) * (maxLat - minLat + 0.01);
+            double dLon = (copy % side) * (maxLon - minLon + 0.01);
+            for (BusStop stop : source) {
+                BusStop shifted = new BusStop();
+                shifted.setId(stop.getId() + copy * (maxId + 1));
+                shifted.setLat(stop.getLat() + dLat);
+                shifted.setLon(stop.getLon() + dLon);
+                shifted.setTag(stop.getTag());
+                stops.add(shifted);
+            }
+        }
+        return stops;
+    }
+}
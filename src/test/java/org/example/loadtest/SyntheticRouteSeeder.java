@@ -0,0 +1,187 @@
+package org.example.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.FrequencyRequest;
+import org.example.event.StopsImportedEvent;
+import org.example.exception.ConflictException;
+import org.example.model.BusStop;
+import org.example.repository.StopRepository;
+import org.example.service.RouteService;
+import org.example.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Seeds the embedded database with synthetic routes once the stops are imported, so the service can be
+ * load tested without a copy of the production database.
+ *
+ * Each route is a walk over nearby stops that keeps roughly to its initial heading, which gives realistic
+ * stop spacing and overlapping corridors. Routes are created through RouteService, i.e. the same write
+ * path as the API; the return direction is the reversed stop list. The random seed is fixed, so runs are
+ * reproducible.
+ */
+@Slf4j
+@Component
+@Profile("embedded")
+public class SyntheticRouteSeeder {
+
+    private static final double CELL_DEGREES = 0.01;        // ~1.1 km
+    private static final double MIN_HOP_METERS = 250;
+    private static final double MAX_HOP_METERS = 1200;
+    private static final double MAX_TURN_DEGREES = 60;
+
+    private final StopRepository stopRepository;
+    private final RouteService routeService;
+    private final int routeCount;
+    private final int minStops;
+    private final int maxStops;
+    private final long seed;
+
+    public SyntheticRouteSeeder(StopRepository stopRepository,
+                                RouteService routeService,
+                                @Value("${busroute.seed.routes:150}") int routeCount,
+                                @Value("${busroute.seed.min-stops:12}") int minStops,
+                                @Value("${busroute.seed.max-stops:40}") int maxStops,
+                                @Value("${busroute.seed.random-seed:42}") long seed) {
+        this.stopRepository = stopRepository;
+        this.routeService = routeService;
+        this.routeCount = routeCount;
+        this.minStops = minStops;
+        this.maxStops = maxStops;
+        this.seed = seed;
+    }
+
+    @EventListener
+    public void onStopsImported(StopsImportedEvent event) {
+        long started = System.currentTimeMillis();
+        List<BusStop> stops = stopRepository.findAll();
+        if (stops.size() < minStops) {
+            log.warn("Only {} stops available, skipping synthetic routes", stops.size());
+            return;
+        }
+        Map<Long, List<BusStop>> grid = buildGrid(stops);
+        Random random = new Random(seed);
+
+        int created = 0;
+        int existing = 0;
+        int attempts = 0;
+        while (created < routeCount && attempts < routeCount * 10) {
+            attempts++;
+            List<BusStop> walk = walk(stops.get(random.nextInt(stops.size())), grid, random,
+                    minStops + random.nextInt(maxStops - minStops + 1));
+            if (walk.size() < minStops) {
+                continue;
+            }
+            String busNumber = "S" + (created + 1);
+            int headway = 8 + random.nextInt(13);
+            List<BusStop> back = new ArrayList<>(walk);
+            Collections.reverse(back);
+            existing += createUnlessExists(request(busNumber, 0, walk, headway)) ? 0 : 1;
+            existing += createUnlessExists(request(busNumber, 1, back, headway)) ? 0 : 1;
+            created++;
+        }
+        log.info("Seeded {} synthetic lines ({} routes, {} already there) over {} stops in {} ms",
+                created, created * 2, existing, stops.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Routes from an earlier run against the same database, or from a retried import, are kept as they are
+     *
+     * @return false when the route already existed
+     */
+    private boolean createUnlessExists(AddRouteRequest request) {
+        try {
+            routeService.createRoute(request);
+            return true;
+        } catch (ConflictException e) {
+            return false;
+        }
+    }
+
+    private List<BusStop> walk(BusStop start, Map<Long, List<BusStop>> grid, Random random, int length) {
+        List<BusStop> walk = new ArrayList<>(length);
+        Set<Long> visited = new HashSet<>();
+        walk.add(start);
+        visited.add(start.getId());
+        double heading = random.nextDouble() * 360;
+
+        BusStop current = start;
+        while (walk.size() < length) {
+            List<BusStop> candidates = new ArrayList<>();
+            long cellLat = cell(current.getLat());
+            long cellLon = cell(current.getLon());
+            for (long dLat = -1; dLat <= 1; dLat++) {
+                for (long dLon = -1; dLon <= 1; dLon++) {
+                    for (BusStop stop : grid.getOrDefault(key(cellLat + dLat, cellLon + dLon), List.of())) {
+                        if (visited.contains(stop.getId())) {
+                            continue;
+                        }
+                        double meters = GeoUtils.haversineMeters(current.getLat(), current.getLon(), stop.getLat(), stop.getLon());
+                        double bearing = GeoUtils.bearingDegrees(current.getLat(), current.getLon(), stop.getLat(), stop.getLon());
+                        if (meters >= MIN_HOP_METERS && meters <= MAX_HOP_METERS && turn(heading, bearing) <= MAX_TURN_DEGREES) {
+                            candidates.add(stop);
+                        }
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            BusStop next = candidates.get(random.nextInt(candidates.size()));
+            heading = GeoUtils.bearingDegrees(current.getLat(), current.getLon(), next.getLat(), next.getLon());
+            walk.add(next);
+            visited.add(next.getId());
+            current = next;
+        }
+        return walk;
+    }
+
+    private static AddRouteRequest request(String busNumber, int direction, List<BusStop> stops, int headwayMinutes) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber(busNumber);
+        request.setDirection(direction);
+        request.setStopIds(stops.stream().map(BusStop::getId).toArray(Long[]::new));
+        request.setDescription("Synthetic route for load testing");
+        // Running times are estimated from the stop positions; the headway halves in the morning and evening peaks
+        request.setFrequencies(List.of(
+                new FrequencyRequest("05:00", "07:00", headwayMinutes),
+                new FrequencyRequest("07:00", "09:00", Math.max(5, headwayMinutes / 2)),
+                new FrequencyRequest("09:00", "16:30", headwayMinutes),
+                new FrequencyRequest("16:30", "18:30", Math.max(5, headwayMinutes / 2)),
+                new FrequencyRequest("18:30", "22:30", headwayMinutes)));
+        return request;
+    }
+
+    private static Map<Long, List<BusStop>> buildGrid(List<BusStop> stops) {
+        Map<Long, List<BusStop>> grid = new HashMap<>();
+        for (BusStop stop : stops) {
+            grid.computeIfAbsent(key(cell(stop.getLat()), cell(stop.getLon())), k -> new ArrayList<>()).add(stop);
+        }
+        return grid;
+    }
+
+    private static long cell(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(long cellLat, long cellLon) {
+        return (cellLat << 32) ^ (cellLon & 0xFFFFFFFFL);
+    }
+
+    private static double turn(double headingA, double headingB) {
+        double diff = Math.abs(headingA - headingB) % 360;
+        return diff > 180 ? 360 - diff : diff;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.loadtest;
+
+import org.example.Main;
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.OperationStatus;
+import org.example.dtos.RouteWriteRequest;
+import org.example.service.RouteService;
+import org.example.service.RouteWriteQueue;
+import org.example.service.StartupDataLoader;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Sustained route write throughput of direct RouteService calls (one transaction per write, from several
+ * threads as concurrent editors would) against the queued path of RouteWriteQueue.
+ *
+ * Starts the application in-process with the embedded profile, creates the routes, then runs the same
+ * stream of updates both ways: once spread over all routes, where every write is committed, and once
+ * with a few hot routes, where the queue also coalesces repeated updates. Extra arguments are passed to
+ * the application:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.example.loadtest.WriteBehindBenchmark --routes=500 --writes=5000 --threads=16
+ * </pre>
+ */
+public class WriteBehindBenchmark {
+
+    private static final int STOPS_PER_ROUTE = 20;
+
+    public static void main(String[] args) throws Exception {
+        int routes = 500;
+        int writes = 5000;
+        int threads = 16;
+        List<String> appArgs = new ArrayList<>(List.of("--spring.profiles.active=embedded", "--server.port=0"));
+        for (String arg : args) {
+            if (arg.startsWith("--routes=")) {
+                routes = Integer.parseInt(arg.substring("--routes=".length()));
+            } else if (arg.startsWith("--writes=")) {
+                writes = Integer.parseInt(arg.substring("--writes=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+        if (appArgs.stream().noneMatch(arg -> arg.startsWith("--busroute.seed.routes="))) {
+            appArgs.add("--busroute.seed.routes=0");
+        }
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(Main.class, appArgs.toArray(new String[0]))) {
+            StartupDataLoader loader = context.getBean(StartupDataLoader.class);
+            while (!loader.isReady()) {
+                if (loader.getStage() == StartupDataLoader.Stage.FAILED) {
+                    throw new IllegalStateException("startup data load failed");
+                }
+                Thread.sleep(100);
+            }
+            new WriteBehindBenchmark(context, threads).run(routes, writes);
+        }
+    }
+
+    private final RouteService routeService;
+    private final RouteWriteQueue routeWriteQueue;
+    private final JdbcTemplate jdbc;
+    private final int threads;
+    private final Random random = new Random(42);
+    private long[] stopIds;
+
+    WriteBehindBenchmark(ConfigurableApplicationContext context, int threads) {
+        this.routeService = context.getBean(RouteService.class);
+        this.routeWriteQueue = context.getBean(RouteWriteQueue.class);
+        this.jdbc = context.getBean(JdbcTemplate.class);
+        this.threads = threads;
+    }
+
+    private void run(int routes, int writes) throws Exception {
+        stopIds = jdbc.queryForList("SELECT id FROM stop ORDER BY id", Long.class).stream().mapToLong(Long::longValue).toArray();
+        List<String> routeIds = new ArrayList<>(routes);
+        for (int i = 0; i < routes; i++) {
+            routeIds.add(routeService.createRoute(request("W" + i, 0)).getRouteId());
+        }
+        System.out.printf(Locale.ROOT, "%d routes of %d stops, %d updates, %d direct writer threads%n%n",
+                routes, STOPS_PER_ROUTE, writes, threads);
+        System.out.printf(Locale.ROOT, "%-14s %-8s %10s %10s %10s%n", "workload", "path", "writes/s", "seconds", "failed");
+
+        List<String> spread = new ArrayList<>(writes);
+        List<String> hot = new ArrayList<>(writes);
+        for (int i = 0; i < writes; i++) {
+            spread.add(routeIds.get(i % routeIds.size()));
+            hot.add(routeIds.get(random.nextInt(Math.min(20, routeIds.size()))));
+        }
+        compare("spread", spread);
+        compare("20 hot routes", hot);
+    }
+
+    private void compare(String workload, List<String> targets) throws Exception {
+        List<AddRouteRequest> requests = targets.stream()
+                .map(routeId -> request(routeId.substring(0, routeId.indexOf('_')), 0))
+                .collect(Collectors.toList());
+
+        AtomicInteger failed = new AtomicInteger();
+        long started = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(targets.size());
+        for (int i = 0; i < targets.size(); i++) {
+            int at = i;
+            futures.add(pool.submit(() -> {
+                try {
+                    routeService.updateRoute(targets.get(at), requests.get(at));
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        print(workload, "direct", targets.size(), System.nanoTime() - started, failed.get());
+
+        started = System.nanoTime();
+        List<CompletableFuture<OperationStatus>> completions = new ArrayList<>(targets.size());
+        for (int from = 0; from < targets.size(); from += 500) {
+            List<RouteWriteRequest> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + 500, targets.size()); i++) {
+                RouteWriteRequest write = new RouteWriteRequest();
+                write.setType(RouteWriteRequest.Type.UPDATE);
+                write.setRouteId(targets.get(i));
+                write.setRoute(requests.get(i));
+                chunk.add(write);
+            }
+            for (OperationStatus status : routeWriteQueue.submit(chunk)) {
+                completions.add(routeWriteQueue.completion(status.getOperationId()));
+            }
+        }
+        CompletableFuture.allOf(completions.toArray(CompletableFuture<?>[]::new)).join();
+        Map<String, Long> outcomes = completions.stream()
+                .collect(Collectors.groupingBy(c -> c.join().getStatus(), Collectors.counting()));
+        print(workload, "queued", targets.size(), System.nanoTime() - started,
+                outcomes.getOrDefault("FAILED", 0L).intValue());
+        System.out.printf(Locale.ROOT, "%-14s %-8s %s%n", "", "", outcomes);
+    }
+
+    private AddRouteRequest request(String busNumber, int direction) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber(busNumber);
+        request.setDirection(direction);
+        Long[] stops = new Long[STOPS_PER_ROUTE];
+        int start = random.nextInt(stopIds.length - STOPS_PER_ROUTE);
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = stopIds[start + i];
+        }
+        request.setStopIds(stops);
+        return request;
+    }
+
+    private static void print(String workload, String path, int writes, long nanos, int failed) {
+        double seconds = nanos / 1e9;
+        System.out.printf(Locale.ROOT, "%-14s %-8s %10.0f %10.2f %10d%n", workload, path, writes / seconds, seconds, failed);
+    }
+}
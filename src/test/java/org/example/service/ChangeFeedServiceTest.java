@@ -0,0 +1,111 @@
+package org.example.service;
+
+import org.example.event.RouteChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Resuming the change feed from Last-Event-ID: replay within one process, reset across a restart.
+ */
+class ChangeFeedServiceTest {
+
+    private final List<ChangeFeedService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(ChangeFeedService::shutdown);
+    }
+
+    @Test
+    void resumeReplaysTheMissedChanges() throws InterruptedException {
+        ChangeFeedService feed = service();
+        change(feed, "A_0");
+        String position = feed.getPosition();
+        change(feed, "B_0");
+        change(feed, "C_0");
+
+        RecordingEmitter client = new RecordingEmitter();
+        feed.subscribe(position, client);
+
+        client.await(2);
+        assertThat(client.events).hasSize(2);
+        assertThat(client.events.get(0)).contains("event:change").contains("B_0");
+        assertThat(client.events.get(1)).contains("event:change").contains("C_0").contains("id:" + feed.getPosition());
+    }
+
+    @Test
+    void resumeAfterARestartGetsAReset() throws InterruptedException {
+        ChangeFeedService before = service();
+        change(before, "A_0");
+        String position = before.getPosition();
+
+        // The restarted process has already counted past the client's offset
+        ChangeFeedService after = service();
+        for (int i = 0; i < 3; i++) {
+            change(after, "R" + i + "_0");
+        }
+        RecordingEmitter client = new RecordingEmitter();
+        after.subscribe(position, client);
+
+        client.await(1);
+        assertThat(client.events).hasSize(1);
+        assertThat(client.events.get(0)).contains("event:reset").contains("id:" + after.getPosition());
+    }
+
+    @Test
+    void plainOffsetsGetAReset() throws InterruptedException {
+        ChangeFeedService feed = service();
+        change(feed, "A_0");
+        change(feed, "B_0");
+        RecordingEmitter client = new RecordingEmitter();
+        feed.subscribe("1", client);
+
+        client.await(1);
+        assertThat(client.events).singleElement().asString().contains("event:reset");
+    }
+
+    private ChangeFeedService service() {
+        ChangeFeedService service = new ChangeFeedService(16, 16, 60_000, 1);
+        services.add(service);
+        return service;
+    }
+
+    private static void change(ChangeFeedService feed, String routeId) {
+        feed.onRouteChanged(new RouteChangedEvent(routeId, RouteChangedEvent.ChangeType.UPDATED, List.of()));
+        feed.flush();
+    }
+
+    /**
+     * Keeps the text of every event sent instead of writing it to a response
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            events.add(text.toString());
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (events.size() < count) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Expected " + count + " events, got " + events);
+                }
+                Thread.sleep(10);
+            }
+            // Nothing more may follow
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.service;
+
+import org.example.Main;
+import org.example.dtos.AddRouteRequest;
+import org.example.model.BusStop;
+import org.example.repository.StopRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Two instances on one database: a route written through one instance reaches the other's in-memory
+ * indexes through change_log, in both directions, and so does a stop merge made by an import.
+ */
+class ChangeLogCoherenceTest {
+
+    private static final String DATABASE = "jdbc:h2:mem:coherence;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext instanceA;
+    private static ConfigurableApplicationContext instanceB;
+
+    @BeforeAll
+    static void startInstances() throws InterruptedException {
+        // One after the other, so the second instance finds the schema in place
+        instanceA = start("instance-a");
+        instanceB = start("instance-b");
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (instanceB != null) {
+            instanceB.close();
+        }
+        if (instanceA != null) {
+            instanceA.close();
+        }
+    }
+
+    @Test
+    void routeWritesReachTheOtherInstance() throws InterruptedException {
+        Long[] stopIds = instanceA.getBean(StopRepository.class).findAll(PageRequest.of(0, 3)).stream()
+                .map(BusStop::getId).toArray(Long[]::new);
+        StopRouteIndex indexA = instanceA.getBean(StopRouteIndex.class);
+        StopRouteIndex indexB = instanceB.getBean(StopRouteIndex.class);
+        assertThat(indexB.getRouteIds(stopIds[1])).doesNotContain("K1_0");
+
+        // Created through A: B only learns about it from change_log
+        instanceA.getBean(RouteService.class).createRoute(request("K1", stopIds));
+        assertThat(indexA.getRouteIds(stopIds[1])).contains("K1_0");
+        await("B to index the route created through A", () -> indexB.getRouteIds(stopIds[1]).contains("K1_0"));
+
+        // Deleted through B: A only learns about it from change_log
+        instanceB.getBean(RouteService.class).deleteRoute("K1_0");
+        assertThat(indexB.getRouteIds(stopIds[1])).doesNotContain("K1_0");
+        await("A to drop the route deleted through B", () -> !indexA.getRouteIds(stopIds[1]).contains("K1_0"));
+    }
+
+    @Test
+    void stopMergesReachTheOtherInstance() throws InterruptedException {
+        List<BusStop> stops = instanceA.getBean(StopRepository.class).findAll(PageRequest.of(1, 10, Sort.by("id"))).getContent();
+        BusStop kept = stops.get(0);
+        BusStop merged = stops.get(1);
+        Long[] stopIds = {stops.get(2).getId(), merged.getId(), stops.get(3).getId()};
+        instanceA.getBean(RouteService.class).createRoute(request("K2", stopIds));
+        StopRouteIndex indexB = instanceB.getBean(StopRouteIndex.class);
+        NetworkSnapshotService snapshotB = instanceB.getBean(NetworkSnapshotService.class);
+        await("B to index the route created through A", () -> indexB.getRouteIds(merged.getId()).contains("K2_0"));
+        assertThat(snapshotB.forStops().indexOf(merged.getId())).isNotNegative();
+
+        // An import through A in which the second stop is a copy of the first; the lower id is kept
+        BusStop copy = new BusStop();
+        copy.setId(merged.getId());
+        copy.setLat(kept.getLat());
+        copy.setLon(kept.getLon());
+        copy.setName(kept.getName());
+        StopDeduplicationService deduplication = instanceA.getBean(StopDeduplicationService.class);
+        assertThat(deduplication.deduplicateImport(List.of(kept, copy))).containsExactly(kept);
+        deduplication.applyImportMerges();
+
+        // B only learns about the merge from change_log
+        await("B to move the route to the kept stop", () -> indexB.getRouteIds(kept.getId()).contains("K2_0"));
+        assertThat(indexB.getRouteIds(merged.getId())).isEmpty();
+        await("B to drop the merged stop from its snapshot", () -> snapshotB.forStops().indexOf(merged.getId()) < 0);
+    }
+
+    private static ConfigurableApplicationContext start(String instanceId) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=" + DATABASE,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--busroute.coherence.instance-id=" + instanceId,
+                        "--busroute.dedup.apply=true",
+                        "--busroute.coherence.poll-ms=100");
+        StartupDataLoader loader = context.getBean(StartupDataLoader.class);
+        await(instanceId + " to load its data", loader::isReady);
+        return context;
+    }
+
+    private static AddRouteRequest request(String busNumber, Long[] stopIds) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber(busNumber);
+        request.setDirection(0);
+        request.setStopIds(stopIds);
+        return request;
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + what);
+            }
+            Thread.sleep(50);
+        }
+    }
+}
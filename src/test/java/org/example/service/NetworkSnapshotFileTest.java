@@ -0,0 +1,169 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Round trip of the network snapshot file, and rejection of files that are foreign, corrupt, truncated
+ * or whose indexes point outside their arrays.
+ */
+class NetworkSnapshotFileTest {
+
+    private static final long HIGH_WATER_MARK = 42L;
+    private static final int N = 3;
+    private static final int R = 2;
+    private static final int S = 3;
+
+    // Offsets of the sections after the header, see the layout in NetworkSnapshotFile
+    private static final int NAME_REFS = NetworkSnapshotFile.HEADER_BYTES + 24 * N;
+    private static final int ROUTE_STARTS = NAME_REFS + 12 * N;
+    private static final int ROUTE_STOPS = ROUTE_STARTS + 4 * (R + 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void snapshotSurvivesTheRoundTrip() throws IOException {
+        NetworkSnapshotFile.Contents contents = NetworkSnapshotFile.read(writeSnapshot(), 7L);
+        NetworkSnapshot snapshot = contents.snapshot();
+
+        assertThat(contents.highWaterMark()).isEqualTo(HIGH_WATER_MARK);
+        assertThat(contents.createdAt()).isPositive();
+        assertThat(snapshot.changeSequence).isEqualTo(7L);
+        assertThat(snapshot.stopIds).containsExactly(11L, 22L, 33L);
+        assertThat(snapshot.lat).containsExactly(20.95, 21.02, 21.04);
+        assertThat(snapshot.lon).containsExactly(105.81, 105.78, 105.85);
+        assertThat(snapshot.indexOf(22L)).isEqualTo(1);
+        assertThat(snapshot.indexOf(99L)).isEqualTo(-1);
+
+        // Strings are UTF-8 and shared between references; -1 reads back as no value
+        assertThat(snapshot.name(0)).isEqualTo("Bến xe Mỹ Đình");
+        assertThat(snapshot.name(1)).isEqualTo("Chợ Đồng Xuân");
+        assertThat(snapshot.name(2)).isNull();
+        assertThat(snapshot.bench(0)).isEqualTo("yes");
+        assertThat(snapshot.shelter(1)).isEqualTo("yes");
+        assertThat(snapshot.shelter(0)).isNull();
+
+        assertThat(snapshot.routeIds).containsExactly("01_0", "01_1");
+        assertThat(snapshot.routeStops[0]).containsExactly(0, 1, 2);
+        assertThat(snapshot.routeStops[1]).containsExactly(2, 0);
+    }
+
+    @Test
+    void rejectsAFlippedByte() throws IOException {
+        Path path = writeSnapshot();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[NetworkSnapshotFile.HEADER_BYTES + 3] ^= 0x10;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(path, 0)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Checksum");
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        Path path = writeSnapshot();
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 2);
+        }
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(path, 0)).isInstanceOf(IOException.class);
+
+        // Cut inside the fixed-size sections, so the header counts no longer fit
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(ROUTE_STOPS);
+        }
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(path, 0)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+
+        try (var channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+            channel.truncate(NetworkSnapshotFile.HEADER_BYTES - 1);
+        }
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(path, 0)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void rejectsWrongMagicOrVersion() throws IOException {
+        Path foreign = writeSnapshot();
+        putInt(foreign, 0, 0x584D5242); // "BRMX", a travel matrix file
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(foreign, 0)).isInstanceOf(IOException.class);
+
+        Path newer = writeSnapshot();
+        putInt(newer, 4, NetworkSnapshotFile.VERSION + 1);
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(newer, 0)).isInstanceOf(IOException.class)
+                .hasMessageContaining("version");
+    }
+
+    @Test
+    void rejectsIndexesOutsideTheirArraysEvenWithAValidChecksum() throws IOException {
+        Path stopIndex = writeSnapshot();
+        rewrite(stopIndex, ROUTE_STOPS + 4, N);
+        assertInconsistent(stopIndex);
+
+        Path negativeStopIndex = writeSnapshot();
+        rewrite(negativeStopIndex, ROUTE_STOPS, -1);
+        assertInconsistent(negativeStopIndex);
+
+        // Route starts 0, 3, 5 -> 0, 6, 5: the first route would run past the second
+        Path decreasingStart = writeSnapshot();
+        rewrite(decreasingStart, ROUTE_STARTS + 4, 6);
+        assertInconsistent(decreasingStart);
+
+        Path stringRef = writeSnapshot();
+        rewrite(stringRef, NAME_REFS + 4, S);
+        assertInconsistent(stringRef);
+
+        Path benchRef = writeSnapshot();
+        rewrite(benchRef, NAME_REFS + 4 * N, -2);
+        assertInconsistent(benchRef);
+    }
+
+    private Path writeSnapshot() throws IOException {
+        NetworkSnapshot snapshot = NetworkSnapshot.of(1L,
+                new long[]{11L, 22L, 33L},
+                new double[]{20.95, 21.02, 21.04},
+                new double[]{105.81, 105.78, 105.85},
+                new int[]{0, 1, -1},
+                new int[]{2, -1, -1},
+                new int[]{-1, 2, -1},
+                new String[]{"Bến xe Mỹ Đình", "Chợ Đồng Xuân", "yes"},
+                new String[]{"01_0", "01_1"},
+                new int[][]{{0, 1, 2}, {2, 0}});
+        Path path = Files.createTempFile(dir, "snapshot", ".bin");
+        NetworkSnapshotFile.write(path, snapshot, HIGH_WATER_MARK);
+        return path;
+    }
+
+    private static void assertInconsistent(Path path) {
+        assertThatThrownBy(() -> NetworkSnapshotFile.read(path, 0)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Inconsistent");
+    }
+
+    /**
+     * Overwrite one int after the header and store a matching checksum, as a buggy writer would
+     */
+    private static void rewrite(Path path, int offset, int value) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        file.putInt(offset, value);
+        CRC32C crc = new CRC32C();
+        crc.update(file.slice(NetworkSnapshotFile.HEADER_BYTES, file.capacity() - NetworkSnapshotFile.HEADER_BYTES));
+        file.putLong(NetworkSnapshotFile.HEADER_BYTES - 8, crc.getValue());
+        Files.write(path, file.array());
+    }
+
+    private static void putInt(Path path, int offset, int value) throws IOException {
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        file.putInt(offset, value);
+        Files.write(path, file.array());
+    }
+}
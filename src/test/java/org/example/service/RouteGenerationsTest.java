@@ -0,0 +1,55 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A value built while its route changed is returned but never left in the cache.
+ */
+class RouteGenerationsTest {
+
+    private final RouteGenerations generations = new RouteGenerations();
+
+    @Test
+    void valueOfAnUnchangedRouteIsCached() {
+        ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+        long token = generations.begin("A_0");
+
+        assertThat(generations.putIfUnchanged(cache, "A_0", token, "built")).isEqualTo("built");
+        assertThat(cache).containsEntry("A_0", "built");
+        // A concurrent build of the same generation gets the cached value
+        assertThat(generations.putIfUnchanged(cache, "A_0", token, "second")).isEqualTo("built");
+    }
+
+    @Test
+    void changeDuringTheBuildKeepsTheValueOutOfTheCache() {
+        ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+        long token = generations.begin("A_0");
+        generations.bump("A_0");
+
+        assertThat(generations.unchanged("A_0", token)).isFalse();
+        assertThat(generations.putIfUnchanged(cache, "A_0", token, "stale")).isEqualTo("stale");
+        assertThat(cache).isEmpty();
+        assertThat(generations.unchanged("B_0", generations.begin("B_0"))).isTrue();
+    }
+
+    @Test
+    void changeBetweenTheCheckAndThePutRemovesTheValue() {
+        // The change listener runs right when the value goes in: it bumps, then removes what was there
+        ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>() {
+            @Override
+            public String putIfAbsent(String key, String value) {
+                generations.bump(key);
+                remove(key);
+                return super.putIfAbsent(key, value);
+            }
+        };
+        long token = generations.begin("A_0");
+
+        assertThat(generations.putIfUnchanged(cache, "A_0", token, "stale")).isEqualTo("stale");
+        assertThat(cache).isEmpty();
+    }
+}
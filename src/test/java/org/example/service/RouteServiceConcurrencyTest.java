@@ -0,0 +1,181 @@
+package org.example.service;
+
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.RouteResponse;
+import org.example.exception.ConflictException;
+import org.example.model.BusStop;
+import org.example.model.Route;
+import org.example.repository.RouteRepository;
+import org.example.repository.StopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Concurrent route writes through RouteService: creates of the same route id must produce exactly one
+ * route, and version-checked updates that retry on conflict must all land, one version each.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class RouteServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private RouteRepository routeRepository;
+
+    @Autowired
+    private StopRepository stopRepository;
+
+    @Autowired
+    private StartupDataLoader startupDataLoader;
+
+    private Long[] stopIds;
+
+    @BeforeEach
+    void waitForStops() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!startupDataLoader.isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Stops were not loaded: " + startupDataLoader.getProgress());
+            }
+            Thread.sleep(100);
+        }
+        stopIds = stopRepository.findAll(PageRequest.of(0, THREADS + 2)).stream().map(BusStop::getId).toArray(Long[]::new);
+    }
+
+    @Test
+    void concurrentCreatesOfOneRouteLetExactlyOneSucceed() throws Exception {
+        List<Callable<RouteResponse>> creates = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int stopCount = 2 + i;
+            creates.add(() -> routeService.createRoute(request("C1", stopCount, null)));
+        }
+
+        int created = 0;
+        int conflicts = 0;
+        int createdStops = 0;
+        for (Future<RouteResponse> result : runTogether(creates)) {
+            try {
+                createdStops = result.get().getStopCount();
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(ConflictException.class);
+                conflicts++;
+            }
+        }
+
+        assertThat(created).isEqualTo(1);
+        assertThat(conflicts).isEqualTo(THREADS - 1);
+        // The losers wrote no trips or stop times of their own
+        assertThat(routeService.getRouteWithStops("C1_0")).hasSize(createdStops);
+    }
+
+    @Test
+    void concurrentVersionedUpdatesLoseNoUpdate() throws Exception {
+        routeService.createRoute(request("U1", 2, null));
+        long initialVersion = routeRepository.findById("U1_0").orElseThrow().getVersion();
+
+        // Each writer reads the current version and retries on conflict, like a client would; the writers
+        // differ in their number of stops, so the final route shows whose update it holds
+        Map<Long, Integer> acknowledged = new ConcurrentHashMap<>();
+        List<Callable<Integer>> updates = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int stopCount = 2 + i;
+            updates.add(() -> {
+                int conflicts = 0;
+                while (true) {
+                    Route current = routeRepository.findById("U1_0").orElseThrow();
+                    try {
+                        RouteResponse response = routeService.updateRoute("U1_0", request("U1", stopCount, current.getVersion()));
+                        assertThat(acknowledged.put(response.getVersion(), stopCount)).isNull();
+                        return conflicts;
+                    } catch (ConflictException e) {
+                        conflicts++;
+                    }
+                }
+            });
+        }
+        for (Future<Integer> result : runTogether(updates)) {
+            result.get();
+        }
+
+        // Every update got its own version and the last one is what the route holds
+        Route route = routeRepository.findById("U1_0").orElseThrow();
+        List<Long> expectedVersions = new ArrayList<>();
+        for (long v = initialVersion + 1; v <= initialVersion + THREADS; v++) {
+            expectedVersions.add(v);
+        }
+        assertThat(acknowledged.keySet()).containsExactlyInAnyOrderElementsOf(expectedVersions);
+        assertThat(route.getVersion()).isEqualTo(initialVersion + THREADS);
+        assertThat(routeService.getRouteWithStops("U1_0")).hasSize(acknowledged.get(route.getVersion()));
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        routeService.createRoute(request("V1", 2, null));
+        long version = routeRepository.findById("V1_0").orElseThrow().getVersion();
+        routeService.updateRoute("V1_0", request("V1", 3, version));
+
+        try {
+            routeService.updateRoute("V1_0", request("V1", 4, version));
+            fail("Update based on a stale version was accepted");
+        } catch (ConflictException expected) {
+            assertThat(routeService.getRouteWithStops("V1_0")).hasSize(3);
+        }
+    }
+
+    private AddRouteRequest request(String busNumber, int stopCount, Long version) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber(busNumber);
+        request.setDirection(0);
+        request.setStopIds(Arrays.copyOf(stopIds, stopCount));
+        request.setVersion(version);
+        return request;
+    }
+
+    /**
+     * Run the tasks on their own threads, released at the same moment
+     */
+    private static <T> List<Future<T>> runTogether(List<Callable<T>> tasks) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> results = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.OperationStatus;
+import org.example.dtos.RouteWriteRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Folding of queued writes to one route within a batch: the batch applies the net effect of each route's
+ * writes, last write wins.
+ */
+class RouteWriteQueueTest {
+
+    private RouteService routeService;
+    private RouteWriteQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        routeService = mock(RouteService.class);
+        // A wait long enough for each test's writes to land in one batch
+        queue = new RouteWriteQueue(routeService, mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                100, 200, 200, 1, 15);
+        ReflectionTestUtils.setField(queue, "entityManager", mock(EntityManager.class));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void createFollowedByUpdatesIsOneCreateOfTheLastContent() throws Exception {
+        AddRouteRequest last = route("F1", 3L);
+        List<OperationStatus> statuses = submitAndWait(
+                write(RouteWriteRequest.Type.CREATE, null, route("F1", 1L)),
+                write(RouteWriteRequest.Type.UPDATE, "F1_0", route("F1", 2L)),
+                write(RouteWriteRequest.Type.UPDATE, "F1_0", last));
+
+        verify(routeService).createRoute(last);
+        verify(routeService, never()).updateRoute(anyString(), any());
+        assertThat(statuses).extracting(OperationStatus::getStatus).containsExactly("COALESCED", "COALESCED", "APPLIED");
+        assertThat(statuses).extracting(OperationStatus::getCoalescedInto)
+                .containsExactly(statuses.get(2).getOperationId(), statuses.get(2).getOperationId(), null);
+    }
+
+    @Test
+    void createUpdateDeleteLeavesOnlyTheDelete() throws Exception {
+        List<OperationStatus> statuses = submitAndWait(
+                write(RouteWriteRequest.Type.CREATE, null, route("F2", 1L)),
+                write(RouteWriteRequest.Type.UPDATE, "F2_0", route("F2", 2L)),
+                write(RouteWriteRequest.Type.DELETE, "F2_0", null));
+
+        // The route may have existed before the create, in which case the chain deletes it
+        verify(routeService).deleteRouteIfExists("F2_0");
+        verify(routeService, never()).createRoute(any());
+        verify(routeService, never()).updateRoute(anyString(), any());
+        verify(routeService, never()).deleteRoute(anyString());
+        assertThat(statuses).extracting(OperationStatus::getStatus).containsExactly("COALESCED", "COALESCED", "APPLIED");
+    }
+
+    @Test
+    void recreateAfterDeleteKeepsBothInOrder() throws Exception {
+        AddRouteRequest recreated = route("F3", 2L);
+        List<OperationStatus> statuses = submitAndWait(
+                write(RouteWriteRequest.Type.UPDATE, "F3_0", route("F3", 1L)),
+                write(RouteWriteRequest.Type.DELETE, "F3_0", null),
+                write(RouteWriteRequest.Type.CREATE, null, route("F3", 3L)),
+                write(RouteWriteRequest.Type.UPDATE, "F3_0", recreated));
+
+        InOrder order = inOrder(routeService);
+        order.verify(routeService).deleteRoute("F3_0");
+        order.verify(routeService).createRoute(recreated);
+        verify(routeService, never()).updateRoute(anyString(), any());
+        assertThat(statuses).extracting(OperationStatus::getStatus)
+                .containsExactly("COALESCED", "APPLIED", "COALESCED", "APPLIED");
+    }
+
+    @Test
+    void versionedAndRenamingUpdatesAreNotFolded() throws Exception {
+        AddRouteRequest versioned = route("F4", 2L);
+        versioned.setVersion(1L);
+        AddRouteRequest renamed = route("F5", 3L);
+        List<OperationStatus> statuses = submitAndWait(
+                write(RouteWriteRequest.Type.UPDATE, "F4_0", route("F4", 1L)),
+                write(RouteWriteRequest.Type.UPDATE, "F4_0", versioned),
+                write(RouteWriteRequest.Type.CREATE, null, route("F6", 1L)),
+                write(RouteWriteRequest.Type.UPDATE, "F6_0", renamed));
+
+        InOrder order = inOrder(routeService);
+        order.verify(routeService).updateRoute("F4_0", route("F4", 1L));
+        order.verify(routeService).updateRoute("F4_0", versioned);
+        verify(routeService).createRoute(route("F6", 1L));
+        verify(routeService).updateRoute("F6_0", renamed);
+        assertThat(statuses).extracting(OperationStatus::getStatus).containsOnly("APPLIED");
+    }
+
+    private List<OperationStatus> submitAndWait(RouteWriteRequest... writes) throws Exception {
+        List<OperationStatus> statuses = new ArrayList<>();
+        for (OperationStatus queued : queue.submit(List.of(writes))) {
+            statuses.add(queue.completion(queued.getOperationId()).get(10, TimeUnit.SECONDS));
+        }
+        return statuses;
+    }
+
+    private static RouteWriteRequest write(RouteWriteRequest.Type type, String routeId, AddRouteRequest route) {
+        RouteWriteRequest write = new RouteWriteRequest();
+        write.setType(type);
+        write.setRouteId(routeId);
+        write.setRoute(route);
+        return write;
+    }
+
+    private static AddRouteRequest route(String busNumber, Long... stopIds) {
+        AddRouteRequest request = new AddRouteRequest();
+        request.setBusNumber(busNumber);
+        request.setDirection(0);
+        request.setStopIds(stopIds);
+        return request;
+    }
+}
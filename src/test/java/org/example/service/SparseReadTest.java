@@ -0,0 +1,118 @@
+package org.example.service;
+
+import org.example.dtos.AddRouteRequest;
+import org.example.dtos.BusStopResponse;
+import org.example.dtos.RouteResponse;
+import org.example.model.BusStop;
+import org.example.repository.RouteRepository;
+import org.example.repository.StopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Listings with a field selection read only the selected columns; the selected fields must match the
+ * full read of the same page.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class SparseReadTest {
+
+    @Autowired
+    private BusStopService busStopService;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private RouteRepository routeRepository;
+
+    @Autowired
+    private StopRepository stopRepository;
+
+    @Autowired
+    private StartupDataLoader startupDataLoader;
+
+    @BeforeEach
+    void waitForStops() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!startupDataLoader.isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Stops were not loaded: " + startupDataLoader.getProgress());
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    void stopPageWithFieldsMatchesTheFullPage() {
+        PageRequest pageable = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "id"));
+        Set<String> fields = Set.of("id", "name", "latitude", "routeCount");
+
+        Page<BusStopResponse> full = busStopService.getAllStops(pageable, null);
+        Page<BusStopResponse> sparse = busStopService.getAllStops(pageable, fields);
+
+        assertThat(sparse.getTotalElements()).isEqualTo(full.getTotalElements());
+        assertThat(sparse.getContent()).extracting(BusStopResponse::getId, BusStopResponse::getName,
+                        BusStopResponse::getLatitude, BusStopResponse::getRouteCount)
+                .containsExactlyElementsOf(full.getContent().stream()
+                        .map(stop -> tuple(stop.getId(), stop.getName(),
+                                stop.getLatitude(), stop.getRouteCount()))
+                        .toList());
+        assertThat(sparse.getContent()).allSatisfy(stop -> assertThat(stop.getLongitude()).isNull());
+    }
+
+    @Test
+    void stopByIdWithFieldsMatchesTheFullRead() {
+        Long stopId = stopRepository.findAll(PageRequest.of(0, 1)).getContent().get(0).getId();
+        BusStopResponse full = busStopService.getStopById(stopId, null);
+        BusStopResponse sparse = busStopService.getStopById(stopId, Set.of("longitude"));
+
+        assertThat(sparse.getId()).isEqualTo(full.getId());
+        assertThat(sparse.getLongitude()).isEqualTo(full.getLongitude());
+        assertThat(sparse.getName()).isNull();
+    }
+
+    @Test
+    void routePageWithFieldsMatchesTheFullPage() {
+        if (!routeRepository.existsById("S1_0")) {
+            Long[] stopIds = stopRepository.findAll(PageRequest.of(0, 4)).stream().map(BusStop::getId).toArray(Long[]::new);
+            AddRouteRequest request = new AddRouteRequest();
+            request.setBusNumber("S1");
+            request.setDirection(0);
+            request.setStopIds(Arrays.copyOf(stopIds, 4));
+            routeService.createRoute(request);
+        }
+        PageRequest pageable = PageRequest.of(0, 20, Sort.by("routeId"));
+        Set<String> fields = Set.of("routeId", "busNumber", "directionName", "stopCount");
+
+        Page<RouteResponse> full = routeService.getAllRoutes(pageable, null);
+        Page<RouteResponse> sparse = routeService.getAllRoutes(pageable, fields);
+
+        assertThat(sparse.getTotalElements()).isEqualTo(full.getTotalElements());
+        assertThat(sparse.getContent()).extracting(RouteResponse::getRouteId)
+                .containsExactlyElementsOf(full.getContent().stream().map(RouteResponse::getRouteId).toList());
+        assertThat(sparse.getContent()).extracting(RouteResponse::getDirectionName)
+                .containsExactlyElementsOf(full.getContent().stream().map(RouteResponse::getDirectionName).toList());
+        assertThat(sparse.getContent()).extracting(RouteResponse::getStopCount)
+                .containsExactlyElementsOf(full.getContent().stream().map(RouteResponse::getStopCount).toList());
+        assertThat(sparse.getContent()).filteredOn(route -> route.getRouteId().equals("S1_0"))
+                .singleElement().satisfies(route -> {
+                    assertThat(route.getBusNumber()).isEqualTo("S1");
+                    assertThat(route.getStopCount()).isEqualTo(4);
+                    assertThat(route.getRouteShortName()).isNull();
+                });
+    }
+}
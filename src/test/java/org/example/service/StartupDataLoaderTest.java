@@ -0,0 +1,124 @@
+package org.example.service;
+
+import org.example.event.DataLoadedEvent;
+import org.example.event.StopsImportedEvent;
+import org.example.repository.StopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Retries of the staged startup resume at the failed step instead of importing the stops again.
+ */
+class StartupDataLoaderTest {
+
+    private static final String STOPS = """
+            [
+              {"type": "node", "id": 1, "lat": 21.0, "lon": 105.8, "tags": {"name": "A"}},
+              {"type": "node", "id": 2, "lat": 21.1, "lon": 105.9, "tags": {"name": "B"}},
+              {"type": "node", "id": 3, "lat": 21.2, "lon": 106.0, "tags": {"name": "C"}}
+            ]
+            """;
+
+    @TempDir
+    Path dir;
+
+    private StopRepository stopRepository;
+    private StopDeduplicationService stopDeduplicationService;
+    // Written by the loader thread
+    private final List<Object> published = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        stopRepository = mock(StopRepository.class);
+        stopDeduplicationService = mock(StopDeduplicationService.class);
+        when(stopDeduplicationService.deduplicateImport(anyList())).then(returnsFirstArg());
+    }
+
+    @Test
+    void failedStopsImportedListenerDoesNotReimport() throws Exception {
+        StartupDataLoader loader = loader(event -> {
+            // A listener of StopsImportedEvent (e.g. a seeder) fails the first time
+            if (event instanceof StopsImportedEvent && count(StopsImportedEvent.class) == 1) {
+                throw new IllegalStateException("listener failed");
+            }
+        });
+
+        assertThat(run(loader)).isEqualTo(StartupDataLoader.Stage.READY);
+        verify(stopRepository, times(2)).saveAll(anyList());
+        verify(stopDeduplicationService, times(1)).applyImportMerges();
+        assertThat(count(StopsImportedEvent.class)).isEqualTo(2);
+        assertThat(count(DataLoadedEvent.class)).isEqualTo(1);
+        assertThat(loader.getProgress().getAttempt()).isEqualTo(2);
+    }
+
+    @Test
+    void failedWarmupOnlyRepeatsTheWarmup() throws Exception {
+        StartupDataLoader loader = loader(event -> {
+            if (event instanceof DataLoadedEvent && count(DataLoadedEvent.class) < 3) {
+                throw new IllegalStateException("index build failed");
+            }
+        });
+
+        assertThat(run(loader)).isEqualTo(StartupDataLoader.Stage.READY);
+        verify(stopRepository, times(2)).saveAll(anyList());
+        assertThat(count(StopsImportedEvent.class)).isEqualTo(1);
+        assertThat(count(DataLoadedEvent.class)).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        StartupDataLoader loader = loader(event -> {
+            if (event instanceof DataLoadedEvent) {
+                throw new IllegalStateException("index build failed");
+            }
+        });
+
+        assertThat(run(loader)).isEqualTo(StartupDataLoader.Stage.FAILED);
+        verify(stopRepository, times(2)).saveAll(anyList());
+        assertThat(count(DataLoadedEvent.class)).isEqualTo(3);
+        assertThat(loader.getProgress().getLastError()).isEqualTo("index build failed");
+    }
+
+    private StartupDataLoader loader(ApplicationEventPublisher listeners) throws IOException {
+        Path stopFile = Files.writeString(dir.resolve("stops.json"), STOPS);
+        ApplicationEventPublisher publisher = event -> {
+            published.add(event);
+            listeners.publishEvent(event);
+        };
+        // Batches of two, so the three stops take two saveAll calls per import
+        return new StartupDataLoader(stopRepository, stopDeduplicationService, publisher, new DefaultResourceLoader(),
+                stopFile.toUri().toString(), 2, 3, 1);
+    }
+
+    private static StartupDataLoader.Stage run(StartupDataLoader loader) throws InterruptedException {
+        loader.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (loader.getStage() != StartupDataLoader.Stage.READY && loader.getStage() != StartupDataLoader.Stage.FAILED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        loader.shutdown();
+        return loader.getStage();
+    }
+
+    private long count(Class<?> type) {
+        return published.stream().filter(type::isInstance).count();
+    }
+}
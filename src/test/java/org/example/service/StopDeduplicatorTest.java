@@ -0,0 +1,253 @@
+package org.example.service;
+
+import org.example.dtos.StopDuplicate;
+import org.example.dtos.StopMergeCandidate;
+import org.example.model.BusStop;
+import org.example.util.GeoUtils;
+import org.example.util.TextFolding;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Matching rules of the stop deduplicator (names, the unnamed radius, "đối diện", the kept stop and
+ * merging only members that match it), and the grid search against a brute-force comparison of all pairs.
+ */
+class StopDeduplicatorTest {
+
+    private static final double MAX_METERS = 30;
+    private static final double MIN_SIMILARITY = 0.8;
+    private static final double UNNAMED_METERS = 15;
+
+    private static final double LAT = 21.0285;
+    private static final double LON = 105.8542;
+
+    @Test
+    void mergesTheSameNameWrittenWithAndWithoutMarks() {
+        StopDeduplicator.Result result = find(
+                stop(1, "Bến xe Mỹ Đình", 0, 0),
+                stop(2, "BEN XE MY DINH", 12, 0),
+                stop(3, "Chợ Đồng Xuân", 0, 12));
+
+        assertThat(groups(result)).containsExactly(Map.entry(1L, List.of(2L)));
+        StopDuplicate duplicate = result.candidates().get(0).getDuplicates().get(0);
+        assertThat(duplicate.getNameSimilarity()).isEqualTo(1.0);
+        assertThat(duplicate.getDistanceMeters()).isBetween(11.9, 12.1);
+    }
+
+    @Test
+    void oppositeStopNeverMatchesTheStopItFaces() {
+        StopDeduplicator.Result result = find(
+                stop(1, "Chợ Đồng Xuân", 0, 0),
+                stop(2, "Đối diện Chợ Đồng Xuân", 8, 0));
+        assertThat(result.candidates()).isEmpty();
+        assertThat(result.pairsCompared()).isEqualTo(1);
+
+        // Two copies of the opposite stop are still duplicates of each other
+        result = find(
+                stop(1, "Đối diện Chợ Đồng Xuân", 0, 0),
+                stop(2, "doi dien cho Dong Xuan", 8, 0));
+        assertThat(groups(result)).containsExactly(Map.entry(1L, List.of(2L)));
+    }
+
+    @Test
+    void unnamedStopsOnlyMatchWithinTheUnnamedRadius() {
+        assertThat(groups(find(stop(1, "Chợ Đồng Xuân", 0, 0), stop(2, null, 10, 0))))
+                .containsExactly(Map.entry(1L, List.of(2L)));
+        assertThat(groups(find(stop(1, null, 0, 0), stop(2, "", 10, 0))))
+                .containsExactly(Map.entry(1L, List.of(2L)));
+        // Within maxMeters but beyond the unnamed radius
+        assertThat(find(stop(1, "Chợ Đồng Xuân", 0, 0), stop(2, null, 20, 0)).candidates()).isEmpty();
+    }
+
+    @Test
+    void chainAlongAStreetOnlyMergesMembersMatchingTheKeptStop() {
+        // 1-2 and 2-3 match, 1-3 are 50 m apart: union-find joins all three, only 2 is merged into 1
+        StopDeduplicator.Result result = find(
+                stop(1, "Nguyễn Trãi", 0, 0),
+                stop(2, "Nguyễn Trãi", 25, 0),
+                stop(3, "Nguyễn Trãi", 50, 0));
+
+        assertThat(result.pairsMatched()).isEqualTo(2);
+        assertThat(groups(result)).containsExactly(Map.entry(1L, List.of(2L)));
+        assertThat(result.duplicateCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsTheNamedStopThenTheOneWithMoreDataThenTheLowestId() {
+        assertThat(groups(find(stop(1, null, 0, 0), stop(2, "Chợ Đồng Xuân", 5, 0))))
+                .containsExactly(Map.entry(2L, List.of(1L)));
+
+        BusStop detailed = stop(2, "Chợ Đồng Xuân", 5, 0);
+        detailed.setBench("yes");
+        detailed.setShelter("yes");
+        BusStop bench = stop(3, "Chợ Đồng Xuân", 0, 5);
+        bench.setBench("yes");
+        assertThat(groups(find(stop(1, "Chợ Đồng Xuân", 0, 0), detailed, bench)))
+                .containsExactly(Map.entry(2L, List.of(1L, 3L)));
+
+        assertThat(groups(find(stop(9, "Chợ Đồng Xuân", 0, 0), stop(4, "Chợ Đồng Xuân", 5, 0), stop(7, "Chợ Đồng Xuân", 0, 5))))
+                .containsExactly(Map.entry(4L, List.of(9L, 7L)));
+    }
+
+    @Test
+    void pairAcrossACellBoundaryIsFound() {
+        // Cells are maxMeters high; put two stops 8 m apart on either side of a row boundary
+        double cellLat = MAX_METERS / GeoUtils.metersPerDegreeLat();
+        double boundary = (Math.floor(LAT / cellLat) + 1) * cellLat;
+        double offset = 4 / GeoUtils.metersPerDegreeLat();
+        BusStop below = stop(1, "Chợ Đồng Xuân", 0, 0);
+        below.setLat(boundary - offset);
+        BusStop above = stop(2, "Chợ Đồng Xuân", 0, 0);
+        above.setLat(boundary + offset);
+        assertThat(Math.floor(below.getLat() / cellLat)).isNotEqualTo(Math.floor(above.getLat() / cellLat));
+
+        StopDeduplicator.Result result = find(below, above);
+
+        assertThat(result.pairsCompared()).isEqualTo(1);
+        assertThat(groups(result)).containsExactly(Map.entry(1L, List.of(2L)));
+    }
+
+    @Test
+    void gridFindsTheSameGroupsAsComparingAllPairs() {
+        String[] names = {"Bến xe Mỹ Đình", "Ben xe My Dinh", "Đối diện Bến xe Mỹ Đình", "Chợ Đồng Xuân",
+                "Cho Dong Xuan", "Nguyễn Trãi", "Nguyen Trai 2", null, ""};
+        Random random = new Random(7);
+        List<BusStop> stops = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            // Tight clusters of a few stops scattered over about 1 km
+            double north = (i / 4) % 20 * 50 + random.nextDouble() * 20;
+            double east = (i / 4) / 20 * 200 + random.nextDouble() * 20;
+            BusStop stop = stop(1000 - i, names[random.nextInt(names.length)], north, east);
+            if (random.nextInt(3) == 0) {
+                stop.setBench("yes");
+            }
+            stops.add(stop);
+        }
+
+        StopDeduplicator.Result result = StopDeduplicator.find(stops, MAX_METERS, MIN_SIMILARITY, UNNAMED_METERS);
+        BruteForce expected = bruteForce(stops);
+
+        assertThat(expected.pairsMatched).isPositive();
+        assertThat(result.pairsMatched()).isEqualTo(expected.pairsMatched);
+        assertThat(result.pairsCompared()).isLessThan((long) stops.size() * (stops.size() - 1) / 2);
+        assertThat(groups(result)).isEqualTo(expected.groups).isNotEmpty();
+    }
+
+    private record BruteForce(long pairsMatched, Map<Long, List<Long>> groups) {
+    }
+
+    /**
+     * The rules of StopDeduplicator applied to every pair, with groups joined by relabelling
+     */
+    private static BruteForce bruteForce(List<BusStop> stops) {
+        int n = stops.size();
+        int[] group = new int[n];
+        for (int i = 0; i < n; i++) {
+            group[i] = i;
+        }
+        long matched = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (matches(stops.get(i), stops.get(j))) {
+                    matched++;
+                    int from = group[j], to = group[i];
+                    for (int k = 0; k < n; k++) {
+                        if (group[k] == from) {
+                            group[k] = to;
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Long, List<Long>> groups = new TreeMap<>();
+        for (int g = 0; g < n; g++) {
+            List<BusStop> members = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                if (group[i] == g) {
+                    members.add(stops.get(i));
+                }
+            }
+            if (members.size() < 2) {
+                continue;
+            }
+            BusStop keep = members.get(0);
+            for (BusStop member : members) {
+                if (preferred(member, keep)) {
+                    keep = member;
+                }
+            }
+            List<Long> merged = new ArrayList<>();
+            for (BusStop member : members) {
+                if (member != keep && matches(keep, member)) {
+                    merged.add(member.getId());
+                }
+            }
+            if (!merged.isEmpty()) {
+                groups.put(keep.getId(), merged);
+            }
+        }
+        return new BruteForce(matched, groups);
+    }
+
+    private static boolean matches(BusStop a, BusStop b) {
+        double meters = GeoUtils.haversineMeters(a.getLat(), a.getLon(), b.getLat(), b.getLon());
+        String nameA = TextFolding.fold(a.getName());
+        String nameB = TextFolding.fold(b.getName());
+        if (meters > MAX_METERS) {
+            return false;
+        }
+        if (nameA.isEmpty() || nameB.isEmpty()) {
+            return meters <= UNNAMED_METERS;
+        }
+        if ((" " + nameA + " ").contains(" doi dien ") != (" " + nameB + " ").contains(" doi dien ")) {
+            return false;
+        }
+        return TextFolding.similarity(nameA, nameB) >= MIN_SIMILARITY;
+    }
+
+    private static boolean preferred(BusStop candidate, BusStop current) {
+        boolean candidateNamed = !TextFolding.fold(candidate.getName()).isEmpty();
+        if (candidateNamed != !TextFolding.fold(current.getName()).isEmpty()) {
+            return candidateNamed;
+        }
+        int candidateDetail = (candidate.getBench() != null ? 1 : 0) + (candidate.getShelter() != null ? 1 : 0);
+        int currentDetail = (current.getBench() != null ? 1 : 0) + (current.getShelter() != null ? 1 : 0);
+        if (candidateDetail != currentDetail) {
+            return candidateDetail > currentDetail;
+        }
+        return candidate.getId() < current.getId();
+    }
+
+    private static StopDeduplicator.Result find(BusStop... stops) {
+        return StopDeduplicator.find(List.of(stops), MAX_METERS, MIN_SIMILARITY, UNNAMED_METERS);
+    }
+
+    // Kept stop id -> merged stop ids
+    private static Map<Long, List<Long>> groups(StopDeduplicator.Result result) {
+        Map<Long, List<Long>> groups = new TreeMap<>();
+        for (StopMergeCandidate candidate : result.candidates()) {
+            groups.put(candidate.getKeepStopId(), candidate.getDuplicates().stream().map(StopDuplicate::getStopId).toList());
+        }
+        return groups;
+    }
+
+    /**
+     * A stop the given metres north and east of a point in central Hanoi
+     */
+    private static BusStop stop(long id, String name, double north, double east) {
+        BusStop stop = new BusStop();
+        stop.setId(id);
+        stop.setName(name);
+        stop.setLat(LAT + north / GeoUtils.metersPerDegreeLat());
+        stop.setLon(LON + east / GeoUtils.metersPerDegreeLon(LAT));
+        return stop;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Round trip of the quantized travel matrix file: header layout, the unreachable sentinel and
+ * saturation of values too large for 16 bits.
+ */
+class TravelMatrixFileTest {
+
+    private static final long[] STOP_IDS = {101L, 202L, 303L};
+    private static final int RESOLUTION = 10;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void headerAndStopIdsAreWrittenLittleEndian() throws IOException {
+        Path path = writeMatrix();
+
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        int n = STOP_IDS.length;
+        assertThat(file.capacity()).isEqualTo(TravelMatrixFile.HEADER_BYTES + 8 * n + 4 * n * n);
+        assertThat(file.getInt()).isEqualTo(TravelMatrixFile.MAGIC);
+        assertThat(new String(new byte[]{file.get(0), file.get(1), file.get(2), file.get(3)})).isEqualTo("BRMX");
+        assertThat(file.getInt()).isEqualTo(TravelMatrixFile.VERSION);
+        assertThat(file.getInt()).isEqualTo(n);
+        assertThat(file.getInt()).isEqualTo(RESOLUTION);
+        assertThat(file.getLong()).isPositive();
+        for (long id : STOP_IDS) {
+            assertThat(file.getLong()).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void valuesSurviveTheRoundTrip() throws IOException {
+        try (TravelMatrixFile matrix = TravelMatrixFile.open(writeMatrix())) {
+            assertThat(matrix.stopCount).isEqualTo(STOP_IDS.length);
+            assertThat(matrix.resolutionMeters).isEqualTo(RESOLUTION);
+            assertThat(matrix.stopIds).containsExactly(STOP_IDS);
+            assertThat(matrix.indexOf(202L)).isEqualTo(1);
+            assertThat(matrix.indexOf(999L)).isEqualTo(-1);
+
+            assertThat((int) matrix.hops(0, 0)).isZero();
+            assertThat((int) matrix.hops(0, 1)).isEqualTo(2);
+            // 1234 m at 10 m resolution rounds to 123 units
+            assertThat((int) matrix.distanceUnits(0, 1)).isEqualTo(123);
+        }
+    }
+
+    @Test
+    void unreachableAndNaNUseTheSentinel() throws IOException {
+        try (TravelMatrixFile matrix = TravelMatrixFile.open(writeMatrix())) {
+            assertThat(matrix.hops(0, 2)).isEqualTo(TravelMatrixFile.UNREACHABLE);
+            assertThat(matrix.distanceUnits(0, 2)).isEqualTo(TravelMatrixFile.UNREACHABLE);
+            assertThat((int) TravelMatrixFile.UNREACHABLE).isEqualTo(65535);
+            assertThat(matrix.hops(2, 0)).isEqualTo(TravelMatrixFile.UNREACHABLE);
+        }
+    }
+
+    @Test
+    void largeValuesSaturateBelowTheSentinel() throws IOException {
+        try (TravelMatrixFile matrix = TravelMatrixFile.open(writeMatrix())) {
+            // 70000 hops and 10,000 km do not fit in 16 bits; they must not read back as unreachable
+            assertThat(matrix.hops(1, 2)).isEqualTo(TravelMatrixFile.MAX_VALUE);
+            assertThat(matrix.distanceUnits(1, 2)).isEqualTo(TravelMatrixFile.MAX_VALUE);
+            assertThat((int) TravelMatrixFile.MAX_VALUE).isEqualTo(65534);
+            // The largest value that fits is stored as is
+            assertThat((int) matrix.hops(1, 0)).isEqualTo(65534);
+        }
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedFiles() throws IOException {
+        Path foreign = dir.resolve("foreign.bin");
+        Files.write(foreign, new byte[TravelMatrixFile.HEADER_BYTES]);
+        assertThatThrownBy(() -> TravelMatrixFile.open(foreign)).isInstanceOf(IOException.class);
+
+        Path truncated = writeMatrix();
+        try (var channel = Files.newByteChannel(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(truncated) - 2);
+        }
+        assertThatThrownBy(() -> TravelMatrixFile.open(truncated)).isInstanceOf(IOException.class);
+    }
+
+    private Path writeMatrix() throws IOException {
+        Path path = Files.createTempFile(dir, "matrix", ".bin");
+        double inf = Double.POSITIVE_INFINITY;
+        try (TravelMatrixFile matrix = TravelMatrixFile.create(path, STOP_IDS, RESOLUTION)) {
+            matrix.writeRow(0, new double[]{0, 2, inf}, new double[]{0, 1234, inf});
+            matrix.writeRow(1, new double[]{65534, 0, 70_000}, new double[]{0, 0, 1e7});
+            matrix.writeRow(2, new double[]{Double.NaN, inf, 0}, new double[]{inf, inf, 0});
+            matrix.force();
+        }
+        return path;
+    }
+}
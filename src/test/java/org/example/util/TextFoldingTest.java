@@ -0,0 +1,47 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Folding of Vietnamese stop names (đ, tone and vowel marks, case, punctuation) and the name similarity
+ * built on it.
+ */
+class TextFoldingTest {
+
+    @Test
+    void foldsTonesVowelMarksAndDToPlainLetters() {
+        assertThat(TextFolding.fold("Đối diện 108 Nguyễn Trãi")).isEqualTo("doi dien 108 nguyen trai");
+        assertThat(TextFolding.fold("đường Láng")).isEqualTo("duong lang");
+        // Precomposed and decomposed input fold alike
+        assertThat(TextFolding.fold("Nguy\u1ec5n")).isEqualTo("nguyen");
+        assertThat(TextFolding.fold("Nguye\u0302\u0303n")).isEqualTo("nguyen");
+        assertThat(TextFolding.fold("Bến xe Mỹ Đình")).isEqualTo(TextFolding.fold("BEN XE MY DINH"));
+    }
+
+    @Test
+    void punctuationBecomesSingleSpaces() {
+        assertThat(TextFolding.fold("  Chợ  Bến-Thành, (cổng 2) ")).isEqualTo("cho ben thanh cong 2");
+        assertThat(TextFolding.fold("--")).isEmpty();
+        assertThat(TextFolding.fold("")).isEmpty();
+        assertThat(TextFolding.fold(null)).isEmpty();
+    }
+
+    @Test
+    void similarityCatchesTyposAndReorderedWords() {
+        assertThat(TextFolding.similarity("ben xe my dinh", "ben xe my dinh")).isEqualTo(1.0);
+        // One letter off in 14
+        assertThat(TextFolding.similarity("ben xe my dinh", "ben xe my dint")).isCloseTo(13.0 / 14, within(1e-9));
+        // Same words in another order: the edit distance is large, the word sets are equal
+        assertThat(TextFolding.similarity("ben xe my dinh", "my dinh ben xe")).isEqualTo(1.0);
+        assertThat(TextFolding.similarity("cho dong xuan", "ben xe my dinh")).isLessThan(0.5);
+    }
+
+    @Test
+    void emptyNamesAreNeverSimilar() {
+        assertThat(TextFolding.similarity("", "")).isZero();
+        assertThat(TextFolding.similarity("", "ben xe")).isZero();
+    }
+}